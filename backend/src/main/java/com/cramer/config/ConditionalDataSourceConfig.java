@@ -2,6 +2,8 @@ package com.cramer.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.context.annotation.Bean;
@@ -12,6 +14,8 @@ import javax.sql.DataSource;
 @Configuration
 public class ConditionalDataSourceConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(ConditionalDataSourceConfig.class);
+
     @Value("${spring.datasource.url:}")
     private String dsUrl;
 
@@ -21,6 +25,21 @@ public class ConditionalDataSourceConfig {
     @Value("${spring.datasource.password:}")
     private String dsPass;
 
+    @Value("${cramer.datasource.replica.url:}")
+    private String replicaUrl;
+
+    @Value("${cramer.datasource.replica.username:}")
+    private String replicaUser;
+
+    @Value("${cramer.datasource.replica.password:}")
+    private String replicaPass;
+
+    @Value("${cramer.datasource.replica.max-pool-size:10}")
+    private int replicaMaxPoolSize;
+
+    @Value("${cramer.datasource.replica.max-lag-ms:5000}")
+    private long replicaMaxLagMillis;
+
     @Bean
     @ConditionalOnExpression("'${spring.datasource.url:}' != ''")
     public DataSource conditionalDataSource() {
@@ -33,6 +52,24 @@ public class ConditionalDataSourceConfig {
         if (dsUser != null && !dsUser.isEmpty()) config.setUsername(dsUser);
         if (dsPass != null && !dsPass.isEmpty()) config.setPassword(dsPass);
         config.setInitializationFailTimeout(0);
-        return new HikariDataSource(config);
+        HikariDataSource primary = new HikariDataSource(config);
+        if (replicaUrl == null || replicaUrl.isBlank()) {
+            return primary;
+        }
+
+        // With a replica configured, read-only transactions are routed to it (credentials default to the primary's)
+        HikariConfig replicaConfig = new HikariConfig();
+        replicaConfig.setPoolName("replica");
+        replicaConfig.setJdbcUrl(replicaUrl);
+        String user = replicaUser != null && !replicaUser.isEmpty() ? replicaUser : dsUser;
+        String pass = replicaPass != null && !replicaPass.isEmpty() ? replicaPass : dsPass;
+        if (user != null && !user.isEmpty()) replicaConfig.setUsername(user);
+        if (pass != null && !pass.isEmpty()) replicaConfig.setPassword(pass);
+        replicaConfig.setMaximumPoolSize(replicaMaxPoolSize);
+        replicaConfig.setReadOnly(true);
+        replicaConfig.setInitializationFailTimeout(0);
+        logger.info("Read replica configured: read-only transactions are routed to it while its lag is at most {}ms",
+                replicaMaxLagMillis);
+        return new ReplicaRoutingDataSource(primary, new HikariDataSource(replicaConfig), replicaMaxLagMillis);
     }
 }
@@ -0,0 +1,220 @@
+package com.cramer.config;
+
+import com.cramer.util.MetricsSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * DataSource that sends read-only transactions ({@code @Transactional(readOnly = true)}, including
+ * Spring Data's default read methods) to a replica pool and everything else to the primary.
+ * <p>
+ * Connections are fetched lazily, on the first statement, because the transaction manager opens
+ * the connection before it marks the transaction read-only. Work that refills caches after a change
+ * runs inside {@link #onPrimary(Supplier)}, so it never caches what a lagging replica still shows.
+ * <p>
+ * Every {@code cramer.datasource.replica.lag-check-interval-ms} the primary's current WAL position
+ * is recorded, and the replica's lag is the age of the oldest recorded position it has not replayed
+ * yet. Comparing against the primary also catches a replica whose WAL stream has stalled, which has
+ * replayed everything it received. While the lag exceeds {@code cramer.datasource.replica.max-lag-ms},
+ * or either server cannot be reached, read-only transactions fall back to the primary, so readers
+ * never see data older than the configured lag. Until the replica has replayed a recorded position,
+ * everything goes to the primary.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements MetricsSource, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String PRIMARY_LSN_QUERY = "SELECT pg_current_wal_lsn()::text";
+    // NULL when the server is not a standby
+    private static final String REPLAY_LSN_QUERY = "SELECT pg_last_wal_replay_lsn()::text";
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private enum Target {
+        PRIMARY, REPLICA
+    }
+
+    /**
+     * The primary's WAL position at a lag check.
+     */
+    private record WalPosition(long checkedAtMillis, long lsn) {
+    }
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final long maxLagMillis;
+    private final AtomicLong primaryConnections = new AtomicLong();
+    private final AtomicLong replicaConnections = new AtomicLong();
+    private final AtomicLong lagFallbacks = new AtomicLong();
+    private final AtomicLong pinnedReads = new AtomicLong();
+    private final AtomicLong lagCheckFailures = new AtomicLong();
+    // Oldest first; only touched by the (synchronized) lag check
+    private final Deque<WalPosition> unreplayed = new ArrayDeque<>();
+    private boolean replayedAny;
+
+    private volatile boolean replicaUsable;
+    private volatile long lastLagMillis = -1;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, HikariDataSource replica, long maxLagMillis) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagMillis = maxLagMillis;
+
+        AbstractRoutingDataSource router = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return route();
+            }
+        };
+        router.setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+        // Known defaults, so that creating the proxy does not open a connection (pools start lazily)
+        setDefaultAutoCommit(true);
+        setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Run work on the current thread with its read-only transactions routed to the primary, for reads
+     * that must see the latest commits (e.g. loading a value into a cache that was just invalidated).
+     * Without a replica configured this simply runs the work.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        if (PRIMARY_ONLY.get() != null) {
+            return work.get();
+        }
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    private Target route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryConnections.incrementAndGet();
+            return Target.PRIMARY;
+        }
+        if (PRIMARY_ONLY.get() != null) {
+            pinnedReads.incrementAndGet();
+            primaryConnections.incrementAndGet();
+            return Target.PRIMARY;
+        }
+        if (!replicaUsable) {
+            lagFallbacks.incrementAndGet();
+            primaryConnections.incrementAndGet();
+            return Target.PRIMARY;
+        }
+        replicaConnections.incrementAndGet();
+        return Target.REPLICA;
+    }
+
+    @Scheduled(fixedDelayString = "${cramer.datasource.replica.lag-check-interval-ms:5000}")
+    public synchronized void checkReplicaLag() {
+        try {
+            long now = System.currentTimeMillis();
+            // The primary first: the replica must have replayed at least this far to be current as of now
+            long primaryLsn = parseLsn(queryString(primary, PRIMARY_LSN_QUERY));
+            String replayLsn = queryString(replica, REPLAY_LSN_QUERY);
+            unreplayed.addLast(new WalPosition(now, primaryLsn));
+            if (replayLsn == null) {
+                // Not a standby (e.g. the primary itself behind another address): nothing to wait for
+                unreplayed.clear();
+                replayedAny = true;
+            } else {
+                long replayed = parseLsn(replayLsn);
+                while (!unreplayed.isEmpty() && Long.compareUnsigned(unreplayed.peekFirst().lsn(), replayed) <= 0) {
+                    unreplayed.removeFirst();
+                    replayedAny = true;
+                }
+            }
+            // Of the positions older than the limit only the newest matters: while it is unreplayed the
+            // replica is over the limit. Keeps the queue at about max-lag / check interval entries.
+            while (unreplayed.size() > 1 && now - secondOldest().checkedAtMillis() > maxLagMillis) {
+                unreplayed.removeFirst();
+            }
+            long lag = unreplayed.isEmpty() ? 0 : now - unreplayed.peekFirst().checkedAtMillis();
+            boolean usable = replayedAny && lag <= maxLagMillis;
+            if (usable != replicaUsable) {
+                logger.info(usable ? "Read replica caught up (lag {}ms), routing read-only transactions to it"
+                                   : "Read replica lag {}ms exceeds the limit, routing read-only transactions to the primary", lag);
+            }
+            lastLagMillis = lag;
+            replicaUsable = usable;
+        } catch (Exception e) {
+            lagCheckFailures.incrementAndGet();
+            if (replicaUsable) {
+                logger.warn("Replica lag check failed, routing read-only transactions to the primary: {}", e.getMessage());
+            }
+            lastLagMillis = -1;
+            replicaUsable = false;
+        }
+    }
+
+    private WalPosition secondOldest() {
+        Iterator<WalPosition> positions = unreplayed.iterator();
+        positions.next();
+        return positions.next();
+    }
+
+    private static String queryString(HikariDataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+
+    // An LSN is printed as two hexadecimal 32-bit halves, e.g. "16/B374D848"
+    static long parseLsn(String lsn) {
+        int slash = lsn.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Not an LSN: " + lsn);
+        }
+        return (Long.parseLong(lsn.substring(0, slash), 16) << 32) | Long.parseLong(lsn.substring(slash + 1), 16);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "dataSourceRouting";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("replicaUsable", replicaUsable);
+        metrics.put("replicaLagMs", lastLagMillis);
+        metrics.put("maxLagMs", maxLagMillis);
+        metrics.put("primaryConnections", primaryConnections.get());
+        metrics.put("replicaConnections", replicaConnections.get());
+        metrics.put("lagFallbacks", lagFallbacks.get());
+        metrics.put("pinnedReads", pinnedReads.get());
+        metrics.put("lagCheckFailures", lagCheckFailures.get());
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        replica.close();
+        primary.close();
+    }
+}
@@ -1,5 +1,6 @@
 package com.cramer.config;
 
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -15,9 +16,22 @@ import static org.springframework.security.config.Customizer.withDefaults;
 public class SecurityConfig {
 
     private final JwtAuthFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
 
-    public SecurityConfig(JwtAuthFilter jwtAuthFilter) {
+    public SecurityConfig(JwtAuthFilter jwtAuthFilter, RateLimitFilter rateLimitFilter) {
         this.jwtAuthFilter = jwtAuthFilter;
+        this.rateLimitFilter = rateLimitFilter;
+    }
+
+    /**
+     * Keep the rate limit filter out of the servlet container's filter chain: it must only run
+     * inside the security chain, after the JWT filter has identified the user.
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
     }
 
     @Bean
@@ -34,6 +48,8 @@ public class SecurityConfig {
             .authorizeHttpRequests(authorize -> authorize
                 // Allow public access to auth and API docs
                 .requestMatchers("/api/auth/**", "/v3/api-docs/**", "/swagger-ui/**").permitAll()
+                // Internal counters (cache sizes, user and key counts) are for operators only
+                .requestMatchers("/api/metrics", "/api/metrics/**").hasRole("ADMIN")
                 // All other API requests must be authenticated
                 .requestMatchers("/api/**").authenticated()
                 // Any other request that doesn't start with /api can be permitted
@@ -41,7 +57,10 @@ public class SecurityConfig {
             )
             
             // 4. Add our custom JWT filter
-            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+
+            // 5. Rate limit per user (or per IP when anonymous) before any handler runs
+            .addFilterAfter(rateLimitFilter, JwtAuthFilter.class);
 
         return http.build();
     }
@@ -1,7 +1,7 @@
 package com.cramer.controller;
 
 import com.cramer.dto.CheckEmailRequest;
-import com.cramer.service.SupabaseAdminService;
+import com.cramer.service.AuthEmailIndex;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -11,10 +11,10 @@ import java.util.Map;
 @RequestMapping("/api/auth")
 public class AuthController {
 
-    private final SupabaseAdminService supabaseAdminService;
+    private final AuthEmailIndex authEmailIndex;
 
-    public AuthController(SupabaseAdminService supabaseAdminService) {
-        this.supabaseAdminService = supabaseAdminService;
+    public AuthController(AuthEmailIndex authEmailIndex) {
+        this.authEmailIndex = authEmailIndex;
     }
 
     @PostMapping("/check-email")
@@ -22,7 +22,7 @@ public class AuthController {
         if (request == null || request.getEmail() == null || request.getEmail().isBlank()) {
             return ResponseEntity.badRequest().build();
         }
-        boolean exists = supabaseAdminService.checkEmailExists(request.getEmail());
+        boolean exists = authEmailIndex.checkEmailExists(request.getEmail());
         return ResponseEntity.ok(Map.of("exists", exists));
     }
 }
@@ -1,7 +1,10 @@
 package com.cramer.controller;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -9,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.cramer.dto.AttemptHistoryDTO;
 import com.cramer.dto.DashboardSummaryDTO;
 import com.cramer.service.DashboardService;
 
@@ -29,8 +33,34 @@ public class DashboardController {
             @PathVariable UUID userId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "3") int size,
-            @RequestParam(required = false) String search
+            @RequestParam(required = false) String search,
+            Authentication authentication
     ) {
-        return ResponseEntity.ok(dashboardService.buildDashboardSummary(userId, page, size, search));
+        UUID callerId = requireCaller(userId, authentication);
+        return ResponseEntity.ok(dashboardService.buildDashboardSummary(callerId, page, size, search));
+    }
+
+    @GetMapping("/history/{userId}")
+    public ResponseEntity<List<AttemptHistoryDTO>> getTestHistory(
+            @PathVariable UUID userId,
+            @RequestParam String examSource,
+            @RequestParam Integer testNumber,
+            @RequestParam String skill,
+            Authentication authentication
+    ) {
+        UUID callerId = requireCaller(userId, authentication);
+        return ResponseEntity.ok(dashboardService.getTestHistory(callerId, examSource, testNumber, skill));
+    }
+
+    // The user ID stays in the path for the frontend, but it must be the caller's own
+    private static UUID requireCaller(UUID userId, Authentication authentication) {
+        if (authentication == null || authentication.getName() == null) {
+            throw new IllegalArgumentException("Authentication required");
+        }
+        UUID callerId = UUID.fromString(authentication.getName());
+        if (!callerId.equals(userId)) {
+            throw new AccessDeniedException("User does not have permission to view this dashboard.");
+        }
+        return callerId;
     }
 }
@@ -0,0 +1,45 @@
+package com.cramer.controller;
+
+import com.cramer.util.MetricsSource;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/api/metrics")
+@Tag(name = "Metrics API", description = "Runtime counters of caches and other internal components")
+public class MetricsController {
+
+    private final List<MetricsSource> metricsSources;
+
+    @Autowired
+    public MetricsController(List<MetricsSource> metricsSources) {
+        this.metricsSources = metricsSources;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Map<String, Object>>> getAllMetrics() {
+        Map<String, Map<String, Object>> metrics = new TreeMap<>();
+        for (MetricsSource source : metricsSources) {
+            metrics.put(source.getMetricsName(), source.getMetrics());
+        }
+        return ResponseEntity.ok(metrics);
+    }
+
+    @GetMapping("/{name}")
+    public ResponseEntity<Map<String, Object>> getMetrics(@PathVariable String name) {
+        return metricsSources.stream()
+                .filter(source -> source.getMetricsName().equals(name))
+                .findFirst()
+                .map(source -> ResponseEntity.ok(source.getMetrics()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
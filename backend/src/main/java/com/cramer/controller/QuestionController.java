@@ -8,6 +8,7 @@ import com.cramer.util.EntityMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -47,10 +48,12 @@ public class QuestionController {
     }
 
     @GetMapping("/section/{sectionId}")
-    public ResponseEntity<List<QuestionDTO>> getQuestionsBySectionId(@PathVariable Long sectionId) {
-        List<QuestionDTO> questions = questionService.getQuestionsBySectionId(sectionId)
-                .stream().map(EntityMapper::toDTO).collect(Collectors.toList());
-        return ResponseEntity.ok(questions);
+    public ResponseEntity<byte[]> getQuestionsBySectionId(
+            @PathVariable Long sectionId,
+            @RequestParam(defaultValue = "true") boolean includeAnswers,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return questionService.getQuestionsBySectionPayload(sectionId, includeAnswers).toResponse(ifNoneMatch, acceptEncoding);
     }
 
     @GetMapping("/uid/{questionUid}")
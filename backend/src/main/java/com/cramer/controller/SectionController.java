@@ -1,6 +1,5 @@
 package com.cramer.controller;
 
-import com.cramer.dto.FullSectionDTO;
 import com.cramer.dto.SectionDTO;
 import com.cramer.entity.Section;
 import com.cramer.exception.ResourceNotFoundException;
@@ -9,6 +8,7 @@ import com.cramer.util.EntityMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -49,14 +49,17 @@ public class SectionController {
     }
 
     /**
-     * Get a full section, including its questions.
-     * GET /api/sections/{id}/full
+     * Get a full section, including its questions, as pre-serialized JSON with an ETag.
+     * GET /api/sections/{id}/full?includeAnswers=true
      */
     @GetMapping("/{id}/full")
-    public ResponseEntity<FullSectionDTO> getFullSectionById(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getFullSectionById(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "true") boolean includeAnswers,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         logger.info("REST request to get full section by ID: {}", id);
-        FullSectionDTO fullSection = sectionService.getFullSectionById(id);
-        return ResponseEntity.ok(fullSection);
+        return sectionService.getFullSectionPayload(id, includeAnswers).toResponse(ifNoneMatch, acceptEncoding);
     }
 
     /**
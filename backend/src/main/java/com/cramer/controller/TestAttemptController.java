@@ -1,11 +1,17 @@
 package com.cramer.controller;
 
+import com.cramer.dto.AnswerEventBatchDTO;
+import com.cramer.dto.AnswerEventBatchResultDTO;
 import com.cramer.dto.AnswerSubmissionDTO;
+import com.cramer.dto.ProgressDeltaDTO;
+import com.cramer.dto.ProgressDeltaResultDTO;
+import com.cramer.dto.QuestionTimelineDTO;
 import com.cramer.dto.SaveProgressDTO;
 import com.cramer.dto.TestResultDTO;
 import com.cramer.dto.TestReviewDTO;
 import com.cramer.dto.UserAnswerDTO;
 import com.cramer.entity.TestAttempt;
+import com.cramer.service.AnswerEventService;
 import com.cramer.service.TestAttemptService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,10 +28,12 @@ import java.util.UUID;
 public class TestAttemptController {
 
     private final TestAttemptService testAttemptService;
+    private final AnswerEventService answerEventService;
 
     @Autowired
-    public TestAttemptController(TestAttemptService testAttemptService) {
+    public TestAttemptController(TestAttemptService testAttemptService, AnswerEventService answerEventService) {
         this.testAttemptService = testAttemptService;
+        this.answerEventService = answerEventService;
     }
 
     @PostMapping("/start")
@@ -105,6 +113,57 @@ public class TestAttemptController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/{id}/progress/delta")
+    public ResponseEntity<ProgressDeltaResultDTO> saveProgressDelta(
+            @PathVariable Long id,
+            @RequestBody ProgressDeltaDTO progressDeltaDTO,
+            Authentication authentication) {
+
+        org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestAttemptController.class);
+        logger.info("📥 POST /api/test-attempts/{}/progress/delta - sequence={}, changedCount={}, clearedCount={}",
+                    id, progressDeltaDTO.getSequence(),
+                    progressDeltaDTO.getChanged() != null ? progressDeltaDTO.getChanged().size() : 0,
+                    progressDeltaDTO.getCleared() != null ? progressDeltaDTO.getCleared().size() : 0);
+
+        if (authentication == null || authentication.getName() == null) {
+            throw new IllegalArgumentException("Authentication required");
+        }
+
+        UUID userId = UUID.fromString(authentication.getName());
+        return ResponseEntity.ok(testAttemptService.applyProgressDelta(id, progressDeltaDTO, userId));
+    }
+
+    @PostMapping("/{id}/events")
+    public ResponseEntity<AnswerEventBatchResultDTO> recordAnswerEvents(
+            @PathVariable Long id,
+            @RequestBody AnswerEventBatchDTO batchDTO,
+            Authentication authentication) {
+
+        org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestAttemptController.class);
+        logger.info("📥 POST /api/test-attempts/{}/events - eventCount={}",
+                    id, batchDTO.getEvents() != null ? batchDTO.getEvents().size() : 0);
+
+        if (authentication == null || authentication.getName() == null) {
+            throw new IllegalArgumentException("Authentication required");
+        }
+
+        UUID userId = UUID.fromString(authentication.getName());
+        return ResponseEntity.ok(answerEventService.recordEvents(id, batchDTO, userId));
+    }
+
+    @GetMapping("/{id}/timeline")
+    public ResponseEntity<List<QuestionTimelineDTO>> getAnswerTimeline(@PathVariable Long id, Authentication authentication) {
+        org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestAttemptController.class);
+        logger.info("📥 GET /api/test-attempts/{}/timeline - Received request", id);
+
+        if (authentication == null || authentication.getName() == null) {
+            throw new IllegalArgumentException("Authentication required");
+        }
+
+        UUID userId = UUID.fromString(authentication.getName());
+        return ResponseEntity.ok(answerEventService.getTimeline(id, userId));
+    }
+
     @PostMapping("/{id}/cancel")
     public ResponseEntity<Void> cancelAttempt(@PathVariable Long id, Authentication authentication) {
         org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestAttemptController.class);
@@ -2,16 +2,23 @@ package com.cramer.controller;
 
 import com.cramer.dto.FullSectionDTO;
 import com.cramer.service.TestService;
+import com.cramer.util.SerializedPayload;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/tests")
@@ -27,24 +34,28 @@ public class TestController {
 
     @GetMapping("/data")
     @Operation(summary = "Get full data for a test section (passages and questions)")
-    public ResponseEntity<List<FullSectionDTO>> getFullTest(
+    @ApiResponse(responseCode = "200", description = "Sections with their questions (answers stripped); supports If-None-Match",
+            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = FullSectionDTO.class))))
+    public ResponseEntity<byte[]> getFullTest(
             @RequestParam String source,
             @RequestParam Integer test,
-            @RequestParam String skill) {
+            @RequestParam String skill,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         
         org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestController.class);
         logger.info("📥 GET /api/tests/data - source={}, test={}, skill={}", source, test, skill);
         
         try {
-            List<FullSectionDTO> fullTest = testService.getFullTest(source, test, skill);
+            Optional<SerializedPayload> fullTest = testService.getFullTestPayload(source, test, skill);
             
-            if (fullTest == null || fullTest.isEmpty()) {
+            if (fullTest.isEmpty()) {
                 logger.warn("⚠️ No test data found for source={}, test={}, skill={}", source, test, skill);
                 return ResponseEntity.notFound().build();
             }
             
-            logger.info("✅ Returning {} sections", fullTest.size());
-            return ResponseEntity.ok(fullTest);
+            logger.info("✅ Returning test payload ({} bytes, etag={})", fullTest.get().size(), fullTest.get().getEtag());
+            return fullTest.get().toResponse(ifNoneMatch, acceptEncoding);
         } catch (IllegalArgumentException e) {
             logger.error("❌ Invalid parameters: {}", e.getMessage());
             throw e;
@@ -0,0 +1,25 @@
+package com.cramer.dto;
+
+import java.util.List;
+
+/**
+ * A batch of answer changes collected by the client since its previous upload.
+ */
+public class AnswerEventBatchDTO {
+    private List<AnswerEventDTO> events;
+
+    public AnswerEventBatchDTO() {
+    }
+
+    public AnswerEventBatchDTO(List<AnswerEventDTO> events) {
+        this.events = events;
+    }
+
+    public List<AnswerEventDTO> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<AnswerEventDTO> events) {
+        this.events = events;
+    }
+}
@@ -0,0 +1,31 @@
+package com.cramer.dto;
+
+public class AnswerEventBatchResultDTO {
+    private Long attemptId;
+    private int accepted; // number of events appended
+
+    public AnswerEventBatchResultDTO() {
+    }
+
+    public AnswerEventBatchResultDTO(Long attemptId, int accepted) {
+        this.attemptId = attemptId;
+        this.accepted = accepted;
+    }
+
+    // Getters and Setters
+    public Long getAttemptId() {
+        return attemptId;
+    }
+
+    public void setAttemptId(Long attemptId) {
+        this.attemptId = attemptId;
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(int accepted) {
+        this.accepted = accepted;
+    }
+}
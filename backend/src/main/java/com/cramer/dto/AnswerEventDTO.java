@@ -0,0 +1,44 @@
+package com.cramer.dto;
+
+/**
+ * One answer change reported by the client.
+ */
+public class AnswerEventDTO {
+    private Long questionId;
+    private String value; // new answer text, null if the answer was cleared
+    private Long clientTime; // epoch milliseconds on the client
+
+    public AnswerEventDTO() {
+    }
+
+    public AnswerEventDTO(Long questionId, String value, Long clientTime) {
+        this.questionId = questionId;
+        this.value = value;
+        this.clientTime = clientTime;
+    }
+
+    // Getters and Setters
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(Long questionId) {
+        this.questionId = questionId;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public Long getClientTime() {
+        return clientTime;
+    }
+
+    public void setClientTime(Long clientTime) {
+        this.clientTime = clientTime;
+    }
+}
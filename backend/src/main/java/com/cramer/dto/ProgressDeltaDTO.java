@@ -0,0 +1,69 @@
+package com.cramer.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An incremental autosave: only the answers that changed since the previous save.
+ * The sequence number counts up by one with every save sent for the attempt (full saves that
+ * carry a sequence use the same counter), so a delta must follow the last applied one directly.
+ */
+public class ProgressDeltaDTO {
+    private Long sequence;
+    private Integer timeLeft;
+    private Integer currentPart;
+    private Map<Long, String> changed; // Map of questionId to new answer text
+    private List<Long> cleared; // IDs of questions whose answer was removed
+
+    public ProgressDeltaDTO() {
+    }
+
+    public ProgressDeltaDTO(Long sequence, Integer timeLeft, Integer currentPart,
+                            Map<Long, String> changed, List<Long> cleared) {
+        this.sequence = sequence;
+        this.timeLeft = timeLeft;
+        this.currentPart = currentPart;
+        this.changed = changed;
+        this.cleared = cleared;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Integer getTimeLeft() {
+        return timeLeft;
+    }
+
+    public void setTimeLeft(Integer timeLeft) {
+        this.timeLeft = timeLeft;
+    }
+
+    public Integer getCurrentPart() {
+        return currentPart;
+    }
+
+    public void setCurrentPart(Integer currentPart) {
+        this.currentPart = currentPart;
+    }
+
+    public Map<Long, String> getChanged() {
+        return changed;
+    }
+
+    public void setChanged(Map<Long, String> changed) {
+        this.changed = changed;
+    }
+
+    public List<Long> getCleared() {
+        return cleared;
+    }
+
+    public void setCleared(List<Long> cleared) {
+        this.cleared = cleared;
+    }
+}
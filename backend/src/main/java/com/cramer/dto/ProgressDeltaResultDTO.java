@@ -0,0 +1,41 @@
+package com.cramer.dto;
+
+public class ProgressDeltaResultDTO {
+    private Long attemptId;
+    private long lastAppliedSequence;
+    private boolean duplicate; // true if the delta had already been applied
+
+    public ProgressDeltaResultDTO() {
+    }
+
+    public ProgressDeltaResultDTO(Long attemptId, long lastAppliedSequence, boolean duplicate) {
+        this.attemptId = attemptId;
+        this.lastAppliedSequence = lastAppliedSequence;
+        this.duplicate = duplicate;
+    }
+
+    // Getters and Setters
+    public Long getAttemptId() {
+        return attemptId;
+    }
+
+    public void setAttemptId(Long attemptId) {
+        this.attemptId = attemptId;
+    }
+
+    public long getLastAppliedSequence() {
+        return lastAppliedSequence;
+    }
+
+    public void setLastAppliedSequence(long lastAppliedSequence) {
+        this.lastAppliedSequence = lastAppliedSequence;
+    }
+
+    public boolean isDuplicate() {
+        return duplicate;
+    }
+
+    public void setDuplicate(boolean duplicate) {
+        this.duplicate = duplicate;
+    }
+}
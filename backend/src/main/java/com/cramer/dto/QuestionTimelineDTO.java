@@ -0,0 +1,87 @@
+package com.cramer.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * How a user worked on one question during an attempt, derived from the answer event log.
+ */
+public class QuestionTimelineDTO {
+    private Long questionId;
+    private long timeSpentMs;
+    private long changeCount; // how often the answer was changed after it was first given
+    private long eventCount;
+    private OffsetDateTime firstAnsweredAt;
+    private OffsetDateTime lastChangedAt;
+    private String finalValue;
+
+    public QuestionTimelineDTO() {
+    }
+
+    public QuestionTimelineDTO(Long questionId, long timeSpentMs, long changeCount, long eventCount,
+                               OffsetDateTime firstAnsweredAt, OffsetDateTime lastChangedAt, String finalValue) {
+        this.questionId = questionId;
+        this.timeSpentMs = timeSpentMs;
+        this.changeCount = changeCount;
+        this.eventCount = eventCount;
+        this.firstAnsweredAt = firstAnsweredAt;
+        this.lastChangedAt = lastChangedAt;
+        this.finalValue = finalValue;
+    }
+
+    // Getters and Setters
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(Long questionId) {
+        this.questionId = questionId;
+    }
+
+    public long getTimeSpentMs() {
+        return timeSpentMs;
+    }
+
+    public void setTimeSpentMs(long timeSpentMs) {
+        this.timeSpentMs = timeSpentMs;
+    }
+
+    public long getChangeCount() {
+        return changeCount;
+    }
+
+    public void setChangeCount(long changeCount) {
+        this.changeCount = changeCount;
+    }
+
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    public void setEventCount(long eventCount) {
+        this.eventCount = eventCount;
+    }
+
+    public OffsetDateTime getFirstAnsweredAt() {
+        return firstAnsweredAt;
+    }
+
+    public void setFirstAnsweredAt(OffsetDateTime firstAnsweredAt) {
+        this.firstAnsweredAt = firstAnsweredAt;
+    }
+
+    public OffsetDateTime getLastChangedAt() {
+        return lastChangedAt;
+    }
+
+    public void setLastChangedAt(OffsetDateTime lastChangedAt) {
+        this.lastChangedAt = lastChangedAt;
+    }
+
+    public String getFinalValue() {
+        return finalValue;
+    }
+
+    public void setFinalValue(String finalValue) {
+        this.finalValue = finalValue;
+    }
+}
@@ -6,6 +6,7 @@ public class SaveProgressDTO {
     private Integer timeLeft;
     private Integer currentPart;
     private Map<Long, String> answers; // Map of questionId to answer text
+    private Long sequence; // Optional, shares the attempt's counter with progress deltas
 
     public SaveProgressDTO() {
     }
@@ -39,4 +40,12 @@ public class SaveProgressDTO {
     public void setAnswers(Map<Long, String> answers) {
         this.answers = answers;
     }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
 }
@@ -6,7 +6,7 @@ import java.util.List;
 public class TestReviewDTO {
     private Long attemptId;
     private String examSource;
-    private String testNumber;
+    private Integer testNumber;
     private String skill;
     private Integer score;
     private Integer totalQuestions;
@@ -37,11 +37,11 @@ public class TestReviewDTO {
         this.examSource = examSource;
     }
 
-    public String getTestNumber() {
+    public Integer getTestNumber() {
         return testNumber;
     }
 
-    public void setTestNumber(String testNumber) {
+    public void setTestNumber(Integer testNumber) {
         this.testNumber = testNumber;
     }
 
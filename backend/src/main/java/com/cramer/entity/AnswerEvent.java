@@ -0,0 +1,34 @@
+package com.cramer.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+
+/**
+ * One change of an answer during an attempt, as reported by the client. The table is
+ * append-only and kept narrow (no user id, no JSON): rows are written in multi-row batches
+ * by {@code AnswerEventRepository#appendEvents} and only read by the timeline analytics.
+ */
+@Data
+@Entity
+@Table(name = "answer_events",
+       indexes = @Index(name = "idx_answer_events_attempt_client_at", columnList = "attempt_id, client_at"))
+public class AnswerEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "attempt_id", nullable = false)
+    private Long attemptId;
+
+    @Column(name = "question_id", nullable = false)
+    private Long questionId;
+
+    @Column(name = "answer_value")
+    private String answerValue; // null when the answer was cleared
+
+    @Column(name = "client_at", nullable = false)
+    private OffsetDateTime clientAt;
+}
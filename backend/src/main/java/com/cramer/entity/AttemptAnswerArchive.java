@@ -0,0 +1,46 @@
+package com.cramer.entity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * The answers of a completed attempt, compacted into one row once the attempt is old enough
+ * (see {@code AnswerArchiveService}). {@code answers} is a JSON array with one object per answer,
+ * holding the columns of its former {@code user_answers} row.
+ */
+@Data
+@Entity
+@Table(name = "attempt_answer_archives",
+       indexes = @Index(name = "idx_attempt_answer_archives_user_submitted",
+                        columnList = "user_id, last_submitted_at DESC"))
+public class AttemptAnswerArchive {
+
+    @Id
+    @Column(name = "attempt_id")
+    private Long attemptId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "answer_count", nullable = false)
+    private int answerCount;
+
+    @Column(name = "correct_count", nullable = false)
+    private int correctCount;
+
+    @Column(name = "last_submitted_at")
+    private OffsetDateTime lastSubmittedAt;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "answers", columnDefinition = "jsonb", nullable = false)
+    private JsonNode answers;
+
+    @Column(name = "archived_at", nullable = false)
+    private OffsetDateTime archivedAt;
+}
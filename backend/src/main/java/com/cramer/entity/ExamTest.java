@@ -0,0 +1,36 @@
+package com.cramer.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * One test of an exam source for one skill (e.g., cam17 test 1 reading), the unit that sections
+ * belong to and that attempts are made on. The question and part counts are derived from the
+ * test's sections and kept current by {@code ExamTestService}.
+ */
+@Data
+@Entity
+@Table(name = "tests",
+       uniqueConstraints = @UniqueConstraint(name = "uk_tests_exam_test_skill",
+                                             columnNames = {"exam_source", "test_number", "skill"}))
+public class ExamTest {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "exam_source", nullable = false)
+    private String examSource;
+
+    @Column(name = "test_number", nullable = false)
+    private Integer testNumber;
+
+    @Column(name = "skill", nullable = false)
+    private String skill;
+
+    @Column(name = "question_count", nullable = false)
+    private int questionCount;
+
+    @Column(name = "part_count", nullable = false)
+    private int partCount;
+}
@@ -13,7 +13,11 @@ import jakarta.persistence.JoinColumn;
  * Uses JSONB columns for flexible question content and answers.
  */
 @Entity
-@Table(name = "questions", schema = "public")
+@Table(name = "questions", schema = "public",
+       indexes = {
+               @Index(name = "idx_questions_section_number", columnList = "section_id, question_number"),
+               @Index(name = "idx_questions_question_uid", columnList = "question_uid")
+       })
 public class Question {
 
     @Id
@@ -5,12 +5,20 @@ import io.hypersistence.utils.hibernate.type.json.JsonType;
 import jakarta.persistence.*;
 import org.hibernate.annotations.Type;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Entity representing exam sections (e.g., Reading passages, Listening parts).
  * Each section contains multiple questions.
  */
 @Entity
-@Table(name = "sections", schema = "public")
+@Table(name = "sections", schema = "public",
+       indexes = {
+               @Index(name = "idx_sections_exam_test_skill_part",
+                      columnList = "exam_source, test_number, skill, part_number"),
+               @Index(name = "idx_sections_test_part", columnList = "test_id, part_number")
+       })
 public class Section {
 
     @Id
@@ -18,6 +26,9 @@ public class Section {
     @Column(name = "id", nullable = false)
     private Long id;
 
+    @Column(name = "test_id")
+    private Long testId; // Foreign key to tests table; set by ExamTestService from the three key columns below
+
     @Column(name = "exam_source", nullable = false)
     private String examSource; // e.g., "cam17", "cam18"
 
@@ -43,6 +54,12 @@ public class Section {
     @Column(name = "audio_url")
     private String audioUrl; // URL for listening audio files
 
+    // Read-only view of the section's questions; Question.section owns the relationship.
+    // Only populated in bulk via the JOIN FETCH queries in SectionRepository.
+    @OneToMany(mappedBy = "section", fetch = FetchType.LAZY)
+    @OrderBy("questionNumber ASC")
+    private List<Question> questions = new ArrayList<>();
+
     // Constructors
     public Section() {
     }
@@ -63,6 +80,14 @@ public class Section {
         this.id = id;
     }
 
+    public Long getTestId() {
+        return testId;
+    }
+
+    public void setTestId(Long testId) {
+        this.testId = testId;
+    }
+
     public String getExamSource() {
         return examSource;
     }
@@ -127,6 +152,10 @@ public class Section {
         this.audioUrl = audioUrl;
     }
 
+    public List<Question> getQuestions() {
+        return questions;
+    }
+
     @Override
     public String toString() {
         return "Section{" +
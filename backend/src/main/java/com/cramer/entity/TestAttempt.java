@@ -5,7 +5,9 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "test_attempts")
+@Table(name = "test_attempts",
+       indexes = @Index(name = "idx_test_attempts_user_test_started",
+                        columnList = "user_id, test_id, started_at DESC"))
 public class TestAttempt {
 
     @Id
@@ -15,11 +17,14 @@ public class TestAttempt {
     @Column(name = "user_id", nullable = false)
     private UUID userId;
 
+    @Column(name = "test_id", nullable = false)
+    private Long testId;
+
     @Column(name = "exam_source", nullable = false)
     private String examSource;
 
     @Column(name = "test_number", nullable = false)
-    private String testNumber;
+    private Integer testNumber;
 
     @Column(name = "skill", nullable = false)
     private String skill;
@@ -42,6 +47,12 @@ public class TestAttempt {
     @Column(name = "current_part")
     private Integer currentPart;
 
+    @Column(name = "progress_sequence")
+    private Long progressSequence; // Last applied progress delta sequence number
+
+    @Column(name = "answers_archived", nullable = false)
+    private boolean answersArchived; // Answers moved to attempt_answer_archives
+
     // Constructors
     public TestAttempt() {
         this.startedAt = OffsetDateTime.now();
@@ -65,6 +76,14 @@ public class TestAttempt {
         this.userId = userId;
     }
 
+    public Long getTestId() {
+        return testId;
+    }
+
+    public void setTestId(Long testId) {
+        this.testId = testId;
+    }
+
     public String getExamSource() {
         return examSource;
     }
@@ -73,11 +92,11 @@ public class TestAttempt {
         this.examSource = examSource;
     }
 
-    public String getTestNumber() {
+    public Integer getTestNumber() {
         return testNumber;
     }
 
-    public void setTestNumber(String testNumber) {
+    public void setTestNumber(Integer testNumber) {
         this.testNumber = testNumber;
     }
 
@@ -136,4 +155,20 @@ public class TestAttempt {
     public void setCurrentPart(Integer currentPart) {
         this.currentPart = currentPart;
     }
+
+    public Long getProgressSequence() {
+        return progressSequence;
+    }
+
+    public void setProgressSequence(Long progressSequence) {
+        this.progressSequence = progressSequence;
+    }
+
+    public boolean isAnswersArchived() {
+        return answersArchived;
+    }
+
+    public void setAnswersArchived(boolean answersArchived) {
+        this.answersArchived = answersArchived;
+    }
 }
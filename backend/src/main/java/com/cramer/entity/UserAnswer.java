@@ -9,7 +9,10 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "user_answers")
+@Table(name = "user_answers",
+       uniqueConstraints = @UniqueConstraint(name = "uk_user_answers_user_attempt_question",
+                                             columnNames = {"user_id", "attempt_id", "question_id"}),
+       indexes = @Index(name = "idx_user_answers_user_submitted", columnList = "user_id, submitted_at DESC"))
 public class UserAnswer {
 
     @Id
@@ -0,0 +1,46 @@
+package com.cramer.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Per-user answer counters broken down by skill and question type, maintained together
+ * with {@link UserStats}.
+ */
+@Data
+@Entity
+@Table(name = "user_skill_stats")
+@IdClass(UserSkillStats.Key.class)
+public class UserSkillStats {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Id
+    @Column(name = "skill", nullable = false)
+    private String skill;
+
+    @Id
+    @Column(name = "question_type", nullable = false)
+    private String questionType;
+
+    @Column(name = "questions_answered", nullable = false)
+    private long questionsAnswered;
+
+    @Column(name = "correct_answers", nullable = false)
+    private long correctAnswers;
+
+    /**
+     * Composite primary key (user_id, skill, question_type).
+     */
+    @Data
+    public static class Key implements Serializable {
+        private UUID userId;
+        private String skill;
+        private String questionType;
+    }
+}
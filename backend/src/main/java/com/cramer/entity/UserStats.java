@@ -0,0 +1,33 @@
+package com.cramer.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Per-user answer counters, maintained incrementally when attempts are submitted or deleted
+ * (see {@code UserStatsService}). Only submitted (completed) attempts are counted.
+ */
+@Data
+@Entity
+@Table(name = "user_stats")
+public class UserStats {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "questions_answered", nullable = false)
+    private long questionsAnswered;
+
+    @Column(name = "correct_answers", nullable = false)
+    private long correctAnswers;
+
+    @Column(name = "tests_completed", nullable = false)
+    private long testsCompleted;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
@@ -0,0 +1,11 @@
+package com.cramer.event;
+
+/**
+ * Published whenever exam content (sections or questions) is created, updated or deleted.
+ * Listeners use it to drop or rebuild anything derived from the content tables.
+ *
+ * @param entity the kind of content that changed (e.g., "Section", "Question")
+ * @param id     the ID of the changed row
+ */
+public record ContentChangedEvent(String entity, Long id) {
+}
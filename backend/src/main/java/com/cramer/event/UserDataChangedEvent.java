@@ -0,0 +1,22 @@
+package com.cramer.event;
+
+import java.util.UUID;
+
+/**
+ * Published whenever data shown on a user's dashboard changes.
+ * Listeners use it to drop anything they derived from that user's data.
+ *
+ * @param userId the user whose data changed
+ * @param kind   what changed
+ */
+public record UserDataChangedEvent(UUID userId, Kind kind) {
+
+    public enum Kind {
+        /** The profile was created, updated or deleted. */
+        PROFILE,
+        /** The target (goal scores, exam date) was created or updated. */
+        TARGET,
+        /** A test attempt was started, saved, submitted, cancelled, resumed or deleted. */
+        ATTEMPTS
+    }
+}
@@ -0,0 +1,12 @@
+package com.cramer.exception;
+
+/**
+ * Exception thrown when the lookups behind a request do not complete within the request's deadline
+ * (slow queries or a saturated connection budget).
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String operation, long deadlineMillis) {
+        super(String.format("%s did not complete within %dms", operation, deadlineMillis));
+    }
+}
@@ -0,0 +1,21 @@
+package com.cramer.exception;
+
+/**
+ * Exception thrown when progress arrives out of order: a full save whose sequence number is lower
+ * than the last one applied to the attempt (typically from another tab or device), or a delta
+ * that does not directly follow it (a delta in between is missing; send a full save).
+ */
+public class StaleProgressException extends RuntimeException {
+
+    private final long lastAppliedSequence;
+
+    public StaleProgressException(Long attemptId, long sequence, long lastAppliedSequence) {
+        super(String.format("Progress %d for attempt %d is out of order (last applied: %d)",
+                sequence, attemptId, lastAppliedSequence));
+        this.lastAppliedSequence = lastAppliedSequence;
+    }
+
+    public long getLastAppliedSequence() {
+        return lastAppliedSequence;
+    }
+}
@@ -0,0 +1,145 @@
+package com.cramer.grading;
+
+import com.cramer.entity.Question;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiled answer key for one test (exam source + test number + skill).
+ * <p>
+ * Holds a type-specific {@link QuestionScorer} per question, compiled once by the
+ * {@link GradingEngine}, so grading a submission is a hash lookup and a prepared comparison per
+ * question, and needs no question rows from the database. Instances are immutable and shared
+ * between requests.
+ * <p>
+ * The numbered questions of a "choose TWO letters" group ({@link ChoiceSetScorer}: same section,
+ * same set of correct letters) are also linked, so {@link #grade} can grade them together.
+ */
+public final class AnswerKey {
+
+    private final Map<Long, QuestionScorer> scorers;
+    private final Map<Long, List<Long>> choiceGroups;
+    private final int totalQuestions;
+
+    private AnswerKey(Map<Long, QuestionScorer> scorers, Map<Long, List<Long>> choiceGroups, int totalQuestions) {
+        this.scorers = scorers;
+        this.choiceGroups = choiceGroups;
+        this.totalQuestions = totalQuestions;
+    }
+
+    /**
+     * Compile the answer key for all questions of a test.
+     *
+     * @param questions every question of the test
+     * @return the compiled key
+     */
+    public static AnswerKey compile(Collection<Question> questions) {
+        Map<Long, QuestionScorer> scorers = new HashMap<>(questions.size() * 2);
+        Map<ChoiceGroup, List<Question>> groups = new HashMap<>();
+        for (Question question : questions) {
+            QuestionScorer scorer = GradingEngine.compile(question);
+            scorers.put(question.getId(), scorer);
+            if (scorer instanceof ChoiceSetScorer choiceSet) {
+                groups.computeIfAbsent(new ChoiceGroup(question.getSectionId(), choiceSet.accepted()), g -> new ArrayList<>())
+                        .add(question);
+            }
+        }
+        Map<Long, List<Long>> choiceGroups = new HashMap<>();
+        for (List<Question> group : groups.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            List<Long> ids = group.stream()
+                    .sorted(Comparator.comparing(Question::getQuestionNumber, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .map(Question::getId)
+                    .toList();
+            ids.forEach(id -> choiceGroups.put(id, ids));
+        }
+        return new AnswerKey(Map.copyOf(scorers), Map.copyOf(choiceGroups), questions.size());
+    }
+
+    /**
+     * @return true if the question belongs to this test
+     */
+    public boolean contains(Long questionId) {
+        return scorers.containsKey(questionId);
+    }
+
+    /**
+     * Grade a single answer on its own. Use {@link #grade} for a whole submission, so that
+     * "choose TWO letters" groups are graded together.
+     *
+     * @param questionId the question ID
+     * @param userAnswer the raw answer text submitted by the user
+     * @return true if the question's scorer accepts the answer
+     */
+    public boolean isCorrect(Long questionId, String userAnswer) {
+        if (userAnswer == null) {
+            return false;
+        }
+        QuestionScorer scorer = scorers.get(questionId);
+        return scorer != null && scorer.isCorrect(userAnswer);
+    }
+
+    /**
+     * Grade a submission. Questions are graded one by one, except for the questions of a
+     * "choose TWO letters" group: their answers form one unordered set of letters, and every
+     * correct letter earns at most one mark across the group. Questions are visited in question
+     * number order, and an answer whose letters were all credited to an earlier question of the
+     * group is wrong (choosing "C" twice for a C/D pair scores one mark, not two).
+     *
+     * @param answers the answers by question ID (blank answers and unknown questions are skipped)
+     * @return whether each graded answer is correct, by question ID
+     */
+    public Map<Long, Boolean> grade(Map<Long, String> answers) {
+        Map<Long, Boolean> grades = new LinkedHashMap<>(answers.size() * 2);
+        for (Map.Entry<Long, String> entry : answers.entrySet()) {
+            Long questionId = entry.getKey();
+            if (grades.containsKey(questionId) || isBlank(entry.getValue()) || !scorers.containsKey(questionId)) {
+                continue;
+            }
+            List<Long> group = choiceGroups.get(questionId);
+            if (group == null) {
+                grades.put(questionId, scorers.get(questionId).isCorrect(entry.getValue()));
+                continue;
+            }
+            Set<String> credited = new HashSet<>();
+            for (Long memberId : group) {
+                String answer = answers.get(memberId);
+                if (isBlank(answer)) {
+                    continue;
+                }
+                ChoiceSetScorer scorer = (ChoiceSetScorer) scorers.get(memberId);
+                Set<String> chosen = scorer.choices(answer);
+                boolean correct = scorer.isCorrect(chosen) && !credited.containsAll(chosen);
+                if (correct) {
+                    credited.addAll(chosen);
+                }
+                grades.put(memberId, correct);
+            }
+        }
+        return grades;
+    }
+
+    /**
+     * @return the number of questions in the test
+     */
+    public int getTotalQuestions() {
+        return totalQuestions;
+    }
+
+    private static boolean isBlank(String answer) {
+        return answer == null || answer.trim().isEmpty();
+    }
+
+    private record ChoiceGroup(Long sectionId, Set<String> accepted) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.cramer.grading;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Scorer for {@code MULTIPLE_CHOICE_MULTIPLE_ANSWERS}.
+ * <p>
+ * Each numbered question of a "choose TWO letters" group carries the whole set of correct
+ * letters and the letters may be given in any order, so the answer is compared as an unordered
+ * set: it is correct when it names at least one letter and every letter it names is correct.
+ * Letters may be separated by commas, spaces or slashes (e.g. "B", "B,E" or "E B").
+ * <p>
+ * On its own a scorer cannot see the other questions of its group; {@link AnswerKey#grade} grades
+ * the group as a whole so that a letter repeated across its questions only earns one mark.
+ */
+final class ChoiceSetScorer implements QuestionScorer {
+
+    private final Set<String> accepted;
+
+    ChoiceSetScorer(Set<String> accepted) {
+        this.accepted = Set.copyOf(accepted);
+    }
+
+    @Override
+    public boolean isCorrect(String userAnswer) {
+        return isCorrect(choices(userAnswer));
+    }
+
+    boolean isCorrect(Set<String> chosen) {
+        return !chosen.isEmpty() && chosen.size() <= accepted.size() && accepted.containsAll(chosen);
+    }
+
+    /**
+     * @return the distinct, normalized letters named by an answer
+     */
+    Set<String> choices(String userAnswer) {
+        Set<String> chosen = new HashSet<>();
+        for (String token : GradingEngine.normalize(userAnswer).split("[\\s,;/]+")) {
+            if (!token.isEmpty()) {
+                chosen.add(token);
+            }
+        }
+        return chosen;
+    }
+
+    Set<String> accepted() {
+        return accepted;
+    }
+}
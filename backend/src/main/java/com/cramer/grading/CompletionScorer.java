@@ -0,0 +1,66 @@
+package com.cramer.grading;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Scorer for completion questions ({@code FILL_IN_BLANK}, {@code SUMMARY_COMPLETION},
+ * {@code TABLE_COMPLETION}).
+ * <p>
+ * Answers are compared token by token: whitespace is collapsed, punctuation around words is
+ * dropped ("soil." matches "soil") and thousands separators are removed from numbers
+ * ("1,000" matches "1000"). An answer that exceeds the question's {@link WordLimit} is wrong,
+ * as in the real exam. The accepted answers are tokenized once at compile time.
+ */
+final class CompletionScorer implements QuestionScorer {
+
+    private static final Pattern NUMBER = Pattern.compile("\\d+([.:/]\\d+)*(st|nd|rd|th|%)?");
+    private static final Pattern EDGE_PUNCTUATION = Pattern.compile("^[\\p{Punct}&&[^$£€%]]+|[\\p{Punct}&&[^%]]+$");
+
+    private final Set<String> accepted;
+    private final WordLimit wordLimit;
+
+    CompletionScorer(Set<String> accepted, WordLimit wordLimit) {
+        Set<String> canonical = new HashSet<>();
+        for (String answer : accepted) {
+            canonical.add(String.join(" ", tokenize(answer)));
+        }
+        this.accepted = Set.copyOf(canonical);
+        this.wordLimit = wordLimit;
+    }
+
+    @Override
+    public boolean isCorrect(String userAnswer) {
+        List<String> tokens = tokenize(GradingEngine.normalize(userAnswer));
+        if (tokens.isEmpty()) {
+            return false;
+        }
+        int numbers = 0;
+        for (String token : tokens) {
+            if (NUMBER.matcher(token).matches()) {
+                numbers++;
+            }
+        }
+        if (!wordLimit.permits(tokens.size() - numbers, numbers)) {
+            return false;
+        }
+        return accepted.contains(String.join(" ", tokens));
+    }
+
+    private static List<String> tokenize(String normalized) {
+        List<String> tokens = new ArrayList<>();
+        for (String raw : normalized.split("\\s+")) {
+            String token = EDGE_PUNCTUATION.matcher(raw).replaceAll("");
+            if (!token.isEmpty() && Character.isDigit(token.charAt(0))) {
+                token = token.replaceAll("(?<=\\d),(?=\\d{3})", "");
+            }
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,46 @@
+package com.cramer.grading;
+
+import java.util.EnumSet;
+import java.util.Locale;
+
+/**
+ * Scorer for {@code TRUE_FALSE_NOT_GIVEN} and {@code YES_NO_NOT_GIVEN}.
+ * <p>
+ * Both the correct answers and the user's answer are parsed into a {@link Judgement}, so the
+ * stored "NOT GIVEN" matches the submitted "NOT_GIVEN" as well as the usual shorthands
+ * ("T", "F", "NG", "Y", "N"). Judgements from the other family never match (a "TRUE"
+ * submitted to a Yes/No/Not Given question is wrong).
+ */
+final class EnumChoiceScorer implements QuestionScorer {
+
+    enum Judgement {
+        TRUE, FALSE, YES, NO, NOT_GIVEN;
+
+        /**
+         * @return the judgement named by the text, or null if it names none
+         */
+        static Judgement parse(String raw) {
+            String value = raw.trim().toUpperCase(Locale.ROOT).replaceAll("[\\s_-]+", "_");
+            return switch (value) {
+                case "TRUE", "T" -> TRUE;
+                case "FALSE", "F" -> FALSE;
+                case "YES", "Y" -> YES;
+                case "NO", "N" -> NO;
+                case "NOT_GIVEN", "NG" -> NOT_GIVEN;
+                default -> null;
+            };
+        }
+    }
+
+    private final EnumSet<Judgement> accepted;
+
+    EnumChoiceScorer(EnumSet<Judgement> accepted) {
+        this.accepted = EnumSet.copyOf(accepted);
+    }
+
+    @Override
+    public boolean isCorrect(String userAnswer) {
+        Judgement judgement = Judgement.parse(userAnswer);
+        return judgement != null && accepted.contains(judgement);
+    }
+}
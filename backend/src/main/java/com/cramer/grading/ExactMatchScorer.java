@@ -0,0 +1,22 @@
+package com.cramer.grading;
+
+import java.util.Set;
+
+/**
+ * Accepts any of the correct answers after {@link GradingEngine#normalize(String) normalization}.
+ * Used for single-choice and matching questions, where the answer is an option letter or
+ * numeral, and as the fallback for unknown question types.
+ */
+final class ExactMatchScorer implements QuestionScorer {
+
+    private final Set<String> accepted;
+
+    ExactMatchScorer(Set<String> accepted) {
+        this.accepted = Set.copyOf(accepted);
+    }
+
+    @Override
+    public boolean isCorrect(String userAnswer) {
+        return accepted.contains(GradingEngine.normalize(userAnswer));
+    }
+}
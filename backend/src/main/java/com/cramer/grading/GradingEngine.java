@@ -0,0 +1,89 @@
+package com.cramer.grading;
+
+import com.cramer.entity.Question;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Compiles a {@link QuestionScorer} for each question based on its {@code questionType}.
+ * <p>
+ * New question types are supported by registering a scorer factory in {@link #SCORERS};
+ * types without one are graded by exact (normalized) match against the correct answers.
+ */
+public final class GradingEngine {
+
+    private static final Map<String, Function<Question, QuestionScorer>> SCORERS = Map.of(
+            "MULTIPLE_CHOICE_MULTIPLE_ANSWERS", q -> new ChoiceSetScorer(acceptedAnswers(q)),
+            "TRUE_FALSE_NOT_GIVEN", GradingEngine::judgementScorer,
+            "YES_NO_NOT_GIVEN", GradingEngine::judgementScorer,
+            "FILL_IN_BLANK", GradingEngine::completionScorer,
+            "SUMMARY_COMPLETION", GradingEngine::completionScorer,
+            "TABLE_COMPLETION", GradingEngine::completionScorer
+    );
+
+    private GradingEngine() {
+    }
+
+    /**
+     * Compile the scorer for a question.
+     *
+     * @param question the question, with its correct answer and word limit loaded
+     * @return the scorer matching the question's type
+     */
+    public static QuestionScorer compile(Question question) {
+        String type = question.getQuestionType() != null ? question.getQuestionType().toUpperCase(Locale.ROOT) : "";
+        Function<Question, QuestionScorer> factory = SCORERS.get(type);
+        return factory != null ? factory.apply(question) : new ExactMatchScorer(acceptedAnswers(question));
+    }
+
+    /**
+     * Normalize an answer for comparison: underscores become spaces, surrounding whitespace
+     * is trimmed and the text is lower-cased.
+     */
+    public static String normalize(String raw) {
+        return raw.replace('_', ' ').trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static QuestionScorer judgementScorer(Question question) {
+        EnumSet<EnumChoiceScorer.Judgement> accepted = EnumSet.noneOf(EnumChoiceScorer.Judgement.class);
+        for (String answer : acceptedAnswers(question)) {
+            EnumChoiceScorer.Judgement judgement = EnumChoiceScorer.Judgement.parse(answer);
+            if (judgement == null) {
+                // Unexpected content for this type, grade it like any other question
+                return new ExactMatchScorer(acceptedAnswers(question));
+            }
+            accepted.add(judgement);
+        }
+        return new EnumChoiceScorer(accepted);
+    }
+
+    private static QuestionScorer completionScorer(Question question) {
+        return new CompletionScorer(acceptedAnswers(question), WordLimit.parse(question.getWordLimit()));
+    }
+
+    /**
+     * @return the normalized correct answers. The correct answer is either a JSON array
+     *         (e.g., ["answer1", "answer2"]) or a single JSON string.
+     */
+    private static Set<String> acceptedAnswers(Question question) {
+        Set<String> normalized = new HashSet<>();
+        JsonNode correctAnswer = question.getCorrectAnswer();
+        if (correctAnswer == null || correctAnswer.isNull()) {
+            return normalized;
+        }
+        if (correctAnswer.isArray()) {
+            for (JsonNode correctNode : correctAnswer) {
+                normalized.add(normalize(correctNode.asText()));
+            }
+        } else {
+            normalized.add(normalize(correctAnswer.asText()));
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,17 @@
+package com.cramer.grading;
+
+/**
+ * Grades the answers to a single question.
+ * <p>
+ * Scorers are compiled once from a question's correct answer (see {@link GradingEngine}) and
+ * hold their matching logic in a ready-to-use form, so grading does not parse the answer JSON
+ * again. Implementations must be immutable, as they are shared between requests.
+ */
+public interface QuestionScorer {
+
+    /**
+     * @param userAnswer the raw answer text submitted by the user (never null)
+     * @return true if the answer is correct
+     */
+    boolean isCorrect(String userAnswer);
+}
@@ -0,0 +1,58 @@
+package com.cramer.grading;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parsed form of a completion question's {@code word_limit}, e.g. "ONE WORD ONLY",
+ * "NO MORE THAN TWO WORDS" or "ONE WORD AND/OR A NUMBER".
+ *
+ * @param maxWords      the maximum number of words (-1 if unlimited)
+ * @param allowedNumbers how many extra numeric tokens are allowed on top of the words
+ */
+record WordLimit(int maxWords, int allowedNumbers) {
+
+    static final WordLimit UNLIMITED = new WordLimit(-1, 0);
+
+    private static final Pattern WORD_COUNT = Pattern.compile("\\b(ONE|TWO|THREE|FOUR|FIVE|\\d+)\\s+WORDS?\\b");
+
+    /**
+     * @param raw the word limit text (may be null)
+     * @return the parsed limit, or {@link #UNLIMITED} if the text does not state a word count
+     */
+    static WordLimit parse(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return UNLIMITED;
+        }
+        String text = raw.toUpperCase(Locale.ROOT);
+        int numbers = text.contains("NUMBER") ? 1 : 0;
+        Matcher matcher = WORD_COUNT.matcher(text);
+        if (!matcher.find()) {
+            // "A NUMBER" on its own still limits the answer to one token
+            return numbers > 0 ? new WordLimit(0, numbers) : UNLIMITED;
+        }
+        int words = switch (matcher.group(1)) {
+            case "ONE" -> 1;
+            case "TWO" -> 2;
+            case "THREE" -> 3;
+            case "FOUR" -> 4;
+            case "FIVE" -> 5;
+            default -> Integer.parseInt(matcher.group(1));
+        };
+        return new WordLimit(words, numbers);
+    }
+
+    /**
+     * @param wordCount   the number of non-numeric tokens in the answer
+     * @param numberCount the number of numeric tokens in the answer
+     * @return true if the answer respects the limit (numbers may also be spent as words)
+     */
+    boolean permits(int wordCount, int numberCount) {
+        if (maxWords < 0) {
+            return true;
+        }
+        int excessNumbers = Math.max(0, numberCount - allowedNumbers);
+        return wordCount + excessNumbers <= maxWords;
+    }
+}
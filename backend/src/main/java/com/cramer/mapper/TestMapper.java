@@ -46,12 +46,16 @@ public class TestMapper {
     }
 
     public static FullSectionDTO toFullSectionDTO(Section section, List<Question> questions) {
+        return toFullSectionDTO(section, questions, false); // Ensure answers are NOT included
+    }
+
+    public static FullSectionDTO toFullSectionDTO(Section section, List<Question> questions, boolean includeAnswer) {
         if (section == null) {
             return null;
         }
         SectionDTO sectionDTO = toSectionDTO(section);
         List<QuestionDTO> questionDTOs = questions.stream()
-                .map(q -> toQuestionDTO(q, false)) // Ensure answers are NOT included
+                .map(q -> toQuestionDTO(q, includeAnswer))
                 .collect(Collectors.toList());
 
         return new FullSectionDTO(sectionDTO, questionDTOs);
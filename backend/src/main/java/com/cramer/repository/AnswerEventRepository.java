@@ -0,0 +1,73 @@
+package com.cramer.repository;
+
+import com.cramer.entity.AnswerEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface AnswerEventRepository extends JpaRepository<AnswerEvent, Long>, AnswerEventRepositoryCustom {
+
+    /**
+     * Per-question analytics of one attempt, as returned by {@link #findQuestionTimeline}.
+     */
+    interface QuestionTimeline {
+        Long getQuestionId();
+        long getTimeSpentMs();
+        long getChangeCount();
+        long getEventCount();
+        OffsetDateTime getFirstAnsweredAt();
+        OffsetDateTime getLastChangedAt();
+        String getFinalValue();
+    }
+
+    /**
+     * Deletes all answer events of an attempt.
+     * @param attemptId The ID of the test attempt.
+     */
+    @Modifying
+    @Query("DELETE FROM AnswerEvent e WHERE e.attemptId = :attemptId")
+    int deleteByAttemptId(@Param("attemptId") Long attemptId);
+
+    /**
+     * Counts the events of an attempt (served by the attempt / client time index).
+     * @param attemptId The ID of the test attempt.
+     */
+    long countByAttemptId(Long attemptId);
+
+    /**
+     * Builds the per-question timeline of an attempt from its answer events.
+     * <p>
+     * The time between two consecutive events of the attempt (LAG over client time) is credited
+     * to the question of the later event, capped at {@code idleCapMs} so that breaks do not count
+     * as time spent. The first event of the attempt has no predecessor and credits nothing. A change is an event whose value differs from the previous value of the same
+     * question; the first answer is not a change.
+     * @param attemptId The ID of the test attempt.
+     * @param idleCapMs The longest gap credited to a single event, in milliseconds.
+     * @return One row per question with events, ordered by question ID.
+     */
+    @Query(value = "WITH ordered AS (" +
+                   "  SELECT e.question_id, e.answer_value, e.client_at, " +
+                   "         LAG(e.client_at) OVER (ORDER BY e.client_at, e.id) AS prev_at, " +
+                   "         LAG(e.answer_value) OVER (PARTITION BY e.question_id ORDER BY e.client_at, e.id) AS prev_value, " +
+                   "         ROW_NUMBER() OVER (PARTITION BY e.question_id ORDER BY e.client_at, e.id) AS n, " +
+                   "         ROW_NUMBER() OVER (PARTITION BY e.question_id ORDER BY e.client_at DESC, e.id DESC) AS n_desc " +
+                   "  FROM answer_events e WHERE e.attempt_id = :attemptId" +
+                   ") " +
+                   "SELECT question_id AS questionId, " +
+                   "       CAST(COALESCE(SUM(CASE WHEN prev_at IS NULL THEN 0 " +
+                   "                              ELSE LEAST(EXTRACT(EPOCH FROM (client_at - prev_at)) * 1000, :idleCapMs) END), 0) AS bigint) AS timeSpentMs, " +
+                   "       count(*) FILTER (WHERE n > 1 AND answer_value IS DISTINCT FROM prev_value) AS changeCount, " +
+                   "       count(*) AS eventCount, " +
+                   "       min(client_at) AS firstAnsweredAt, " +
+                   "       max(client_at) AS lastChangedAt, " +
+                   "       max(answer_value) FILTER (WHERE n_desc = 1) AS finalValue " +
+                   "FROM ordered GROUP BY question_id ORDER BY question_id",
+           nativeQuery = true)
+    List<QuestionTimeline> findQuestionTimeline(@Param("attemptId") Long attemptId, @Param("idleCapMs") long idleCapMs);
+}
@@ -0,0 +1,29 @@
+package com.cramer.repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Bulk append of answer events that Spring Data cannot derive.
+ */
+public interface AnswerEventRepositoryCustom {
+
+    /**
+     * One answer change to append.
+     *
+     * @param questionId  the question ID
+     * @param answerValue the new answer text, or null if the answer was cleared
+     * @param clientAt    when the change happened on the client
+     */
+    record EventRow(Long questionId, String answerValue, OffsetDateTime clientAt) {
+    }
+
+    /**
+     * Append the events of an attempt with multi-row INSERT statements.
+     *
+     * @param attemptId the test attempt ID
+     * @param rows      the events to append
+     * @return the number of rows inserted
+     */
+    int appendEvents(Long attemptId, List<EventRow> rows);
+}
@@ -0,0 +1,48 @@
+package com.cramer.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link AnswerEventRepositoryCustom}, picked up by Spring Data as the
+ * fragment of {@link AnswerEventRepository}. Runs in the caller's JPA transaction.
+ */
+class AnswerEventRepositoryImpl implements AnswerEventRepositoryCustom {
+
+    // One statement carries this many rows (4 parameters each, well below the driver's limit)
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    AnswerEventRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int appendEvents(Long attemptId, List<EventRow> rows) {
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<EventRow> chunk = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO answer_events (attempt_id, question_id, answer_value, client_at) VALUES ");
+            Object[] args = new Object[chunk.size() * 4];
+            int[] argTypes = new int[chunk.size() * 4];
+            for (int i = 0; i < chunk.size(); i++) {
+                EventRow row = chunk.get(i);
+                sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+                int p = i * 4;
+                args[p] = attemptId;
+                args[p + 1] = row.questionId();
+                args[p + 2] = row.answerValue();
+                args[p + 3] = row.clientAt();
+                argTypes[p] = Types.BIGINT;
+                argTypes[p + 1] = Types.BIGINT;
+                argTypes[p + 2] = Types.VARCHAR;
+                argTypes[p + 3] = Types.TIMESTAMP_WITH_TIMEZONE;
+            }
+            inserted += jdbcTemplate.update(sql.toString(), args, argTypes);
+        }
+        return inserted;
+    }
+}
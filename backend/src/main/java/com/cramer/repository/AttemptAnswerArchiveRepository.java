@@ -0,0 +1,94 @@
+package com.cramer.repository;
+
+import com.cramer.entity.AttemptAnswerArchive;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface AttemptAnswerArchiveRepository extends JpaRepository<AttemptAnswerArchive, Long> {
+
+    /**
+     * Finds completed attempts whose answers are still in user_answers and that were completed
+     * before the cutoff, oldest first (a scan of the partial candidates index).
+     * @param cutoff Attempts completed after this stay in user_answers.
+     * @param limit The maximum number of attempts.
+     * @return The attempt ids.
+     */
+    @Query("SELECT ta.id FROM TestAttempt ta WHERE ta.status = 'COMPLETED' AND ta.answersArchived = false " +
+           "AND ta.completedAt < :cutoff ORDER BY ta.completedAt")
+    List<Long> findArchiveCandidates(@Param("cutoff") OffsetDateTime cutoff, Limit limit);
+
+    /**
+     * Copies the answers of one attempt into a single archive row, as a JSON array ordered by question.
+     * Writes nothing if the attempt has no answers.
+     * @param userId The UUID of the owner of the attempt.
+     * @param attemptId The ID of the attempt.
+     * @return The number of archive rows written (0 or 1).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO attempt_answer_archives " +
+                   "(attempt_id, user_id, answer_count, correct_count, last_submitted_at, answers, archived_at) " +
+                   "SELECT CAST(:attemptId AS bigint), CAST(:userId AS uuid), count(*), count(*) FILTER (WHERE ua.is_correct), " +
+                   "max(ua.submitted_at), jsonb_agg(jsonb_build_object(" +
+                   "'question_id', ua.question_id, 'user_answer', ua.user_answer, 'answer_content', ua.answer_content, " +
+                   "'is_correct', ua.is_correct, 'submitted_at', ua.submitted_at, 'created_at', ua.created_at" +
+                   ") ORDER BY ua.question_id), now() " +
+                   "FROM user_answers ua WHERE ua.user_id = :userId AND ua.attempt_id = :attemptId " +
+                   "HAVING count(*) > 0",
+           nativeQuery = true)
+    int archiveAttempt(@Param("userId") UUID userId, @Param("attemptId") Long attemptId);
+
+    /**
+     * Copies the archived answers of one attempt back into user_answers (the archive row is kept;
+     * delete it afterwards).
+     * @param userId The UUID of the owner of the attempt.
+     * @param attemptId The ID of the attempt.
+     * @return The number of answers restored.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_answers " +
+                   "(user_id, attempt_id, question_id, answer_content, user_answer, is_correct, submitted_at, created_at) " +
+                   "SELECT ar.user_id, ar.attempt_id, r.question_id, r.answer_content, r.user_answer, r.is_correct, " +
+                   "r.submitted_at, r.created_at " +
+                   "FROM attempt_answer_archives ar CROSS JOIN LATERAL jsonb_to_recordset(ar.answers) AS r(" +
+                   "question_id bigint, answer_content jsonb, user_answer text, is_correct boolean, " +
+                   "submitted_at timestamptz, created_at timestamptz) " +
+                   "WHERE ar.attempt_id = :attemptId AND ar.user_id = :userId " +
+                   "ON CONFLICT (user_id, attempt_id, question_id) DO NOTHING",
+           nativeQuery = true)
+    int restoreAttempt(@Param("userId") UUID userId, @Param("attemptId") Long attemptId);
+
+    /**
+     * Answered and correct counts of the given archived attempts of one user, as stored at archiving time.
+     * @param userId The UUID of the owner of the attempts.
+     * @param attemptIds The IDs of the attempts.
+     * @return One row per archived attempt.
+     */
+    @Query("SELECT a.attemptId AS attemptId, CAST(a.answerCount AS Long) AS answered, " +
+           "CAST(a.correctCount AS Long) AS correct " +
+           "FROM AttemptAnswerArchive a WHERE a.userId = :userId AND a.attemptId IN :attemptIds")
+    List<UserAnswerRepository.AttemptAnswerCounts> countAnswersByAttemptIds(@Param("userId") UUID userId,
+                                                                            @Param("attemptIds") Collection<Long> attemptIds);
+
+    /**
+     * Finds a user's archives holding answers submitted after the given time, newest answers first.
+     * @param userId The UUID of the user.
+     * @param after Only archives whose last answer was submitted after this time.
+     * @param limit The maximum number of archives.
+     * @return The archives.
+     */
+    @Query("SELECT a FROM AttemptAnswerArchive a WHERE a.userId = :userId AND a.lastSubmittedAt > :after " +
+           "ORDER BY a.lastSubmittedAt DESC")
+    List<AttemptAnswerArchive> findRecentArchives(@Param("userId") UUID userId,
+                                                  @Param("after") OffsetDateTime after,
+                                                  Limit limit);
+}
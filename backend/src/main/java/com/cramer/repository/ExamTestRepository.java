@@ -0,0 +1,70 @@
+package com.cramer.repository;
+
+import com.cramer.entity.ExamTest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ExamTestRepository extends JpaRepository<ExamTest, Long> {
+
+    Optional<ExamTest> findByExamSourceAndTestNumberAndSkill(String examSource, Integer testNumber, String skill);
+
+    /**
+     * Inserts the test of the given key unless it exists (with zero questions and parts until
+     * the next {@link #refreshCounts()}).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tests (exam_source, test_number, skill, question_count, part_count) " +
+                   "VALUES (:examSource, :testNumber, :skill, 0, 0) " +
+                   "ON CONFLICT (exam_source, test_number, skill) DO NOTHING",
+           nativeQuery = true)
+    void insertIfMissing(@Param("examSource") String examSource,
+                         @Param("testNumber") Integer testNumber,
+                         @Param("skill") String skill);
+
+    /**
+     * Creates a test for every (exam_source, test_number, skill) of the sections table that has
+     * none yet. Covers sections inserted directly via SQL.
+     * @return The number of tests created.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tests (exam_source, test_number, skill, question_count, part_count) " +
+                   "SELECT DISTINCT s.exam_source, s.test_number, s.skill, 0, 0 FROM sections s " +
+                   "ON CONFLICT (exam_source, test_number, skill) DO NOTHING",
+           nativeQuery = true)
+    int insertMissingFromSections();
+
+    /**
+     * Points every section at the test of its (exam_source, test_number, skill), fixing sections
+     * that have no test yet or whose key was edited.
+     * @return The number of sections updated.
+     */
+    @Modifying
+    @Query(value = "UPDATE sections s SET test_id = t.id FROM tests t " +
+                   "WHERE t.exam_source = s.exam_source AND t.test_number = s.test_number AND t.skill = s.skill " +
+                   "  AND s.test_id IS DISTINCT FROM t.id",
+           nativeQuery = true)
+    int linkSections();
+
+    /**
+     * Recomputes the question and part counts of every test from its sections, writing only
+     * the tests whose counts changed.
+     * @return The number of tests updated.
+     */
+    @Modifying
+    @Query(value = "UPDATE tests t SET question_count = c.question_count, part_count = c.part_count FROM (" +
+                   "  SELECT t2.id, count(DISTINCT s.id) AS part_count, count(q.id) AS question_count " +
+                   "  FROM tests t2 " +
+                   "  LEFT JOIN sections s ON s.test_id = t2.id " +
+                   "  LEFT JOIN questions q ON q.section_id = s.id " +
+                   "  GROUP BY t2.id" +
+                   ") c WHERE c.id = t.id " +
+                   "  AND (t.question_count <> c.question_count OR t.part_count <> c.part_count)",
+           nativeQuery = true)
+    int refreshCounts();
+}
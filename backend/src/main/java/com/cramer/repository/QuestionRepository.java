@@ -94,22 +94,10 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
     List<String> findAllDistinctQuestionTypes();
 
     /**
-     * Count total questions for a given test attempt's properties.
+     * Find all questions of a test.
      *
-     * @param examSource the source of the exam (e.g., "cam18")
-     * @param testNumber the test number (e.g., "1")
-     * @param skill the skill (e.g., "reading")
-     * @return number of questions matching the criteria
-     */
-    int countBySection_ExamSourceAndSection_TestNumberAndSection_Skill(String examSource, Integer testNumber, String skill);
-
-    /**
-     * Find all questions for a given test attempt's properties.
-     *
-     * @param examSource the source of the exam (e.g., "cam18")
-     * @param testNumber the test number (e.g., 1)
-     * @param skill the skill (e.g., "reading")
+     * @param testId the test ID
      * @return A list of all questions for that test.
      */
-    List<Question> findBySection_ExamSourceAndSection_TestNumberAndSection_Skill(String examSource, Integer testNumber, String skill);
+    List<Question> findBySection_TestId(Long testId);
 }
@@ -68,6 +68,50 @@ public interface SectionRepository extends JpaRepository<Section, Long> {
                                       @Param("testNumber") Integer testNumber,
                                       @Param("skill") String skill);
 
+    /**
+     * Find all sections for a specific test and skill together with their questions,
+     * in a single round trip.
+     * 
+     * @param examSource the exam source identifier
+     * @param testNumber the test number
+     * @param skill the skill type
+     * @return list of sections ordered by part number, each with its questions ordered by question number
+     */
+    @Query("SELECT DISTINCT s FROM Section s LEFT JOIN FETCH s.questions " +
+           "WHERE s.examSource = :examSource AND s.testNumber = :testNumber AND s.skill = :skill " +
+           "ORDER BY s.partNumber ASC")
+    List<Section> findSectionsWithQuestionsForTest(@Param("examSource") String examSource,
+                                                   @Param("testNumber") Integer testNumber,
+                                                   @Param("skill") String skill);
+
+    /**
+     * Find all sections of a test together with their questions, in a single round trip.
+     * 
+     * @param testId the test ID
+     * @return list of sections ordered by part number, each with its questions ordered by question number
+     */
+    @Query("SELECT DISTINCT s FROM Section s LEFT JOIN FETCH s.questions " +
+           "WHERE s.testId = :testId ORDER BY s.partNumber ASC")
+    List<Section> findSectionsWithQuestionsByTestId(@Param("testId") Long testId);
+
+    /**
+     * Find a section together with its questions in a single round trip.
+     * 
+     * @param id the section ID
+     * @return Optional containing the section (questions ordered by question number) if found
+     */
+    @Query("SELECT s FROM Section s LEFT JOIN FETCH s.questions WHERE s.id = :id")
+    Optional<Section> findWithQuestionsById(@Param("id") Long id);
+
+    /**
+     * Find every section together with its questions in a single round trip.
+     * Used to build the in-memory test catalog.
+     * 
+     * @return all sections, each with its questions ordered by question number
+     */
+    @Query("SELECT DISTINCT s FROM Section s LEFT JOIN FETCH s.questions")
+    List<Section> findAllWithQuestions();
+
     /**
      * Count sections by exam source.
      * 
@@ -3,32 +3,125 @@ package com.cramer.repository;
 import com.cramer.entity.TestAttempt;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import jakarta.persistence.LockModeType;
 
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface TestAttemptRepository extends JpaRepository<TestAttempt, Long> {
-    Optional<TestAttempt> findByUserIdAndExamSourceAndTestNumberAndSkill(
-            UUID userId, String examSource, String testNumber, String skill
-    );
+    List<TestAttempt> findByUserId(UUID userId);
 
+    /**
+     * Loads an attempt and locks its row until the end of the transaction, serializing
+     * concurrent writers of the same attempt (autosave flush, submit, cancel).
+     */
     @Lock(LockModeType.PESSIMISTIC_WRITE)
-    Optional<TestAttempt> findAndLockByUserIdAndExamSourceAndTestNumberAndSkill(
-            UUID userId, String examSource, String testNumber, String skill
-    );
+    Optional<TestAttempt> findAndLockById(Long id);
 
-    List<TestAttempt> findByUserId(UUID userId);
+    Optional<TestAttempt> findTopByUserIdAndTestIdOrderByStartedAtDesc(UUID userId, Long testId);
+
+    List<TestAttempt> findByUserIdAndTestIdOrderByStartedAtDesc(UUID userId, Long testId);
+
+    /**
+     * The latest attempt of each test a user attempted (by started_at), as returned by
+     * {@link #findLatestAttemptPerTest}.
+     */
+    interface LatestTestAttempt {
+        Long getId();
+        Long getTestId();
+        String getExamSource();
+        Integer getTestNumber();
+        String getSkill();
+        String getStatus();
+        OffsetDateTime getCompletedAt();
+    }
+
+    /**
+     * One entry of a test's attempt history with its answer counts, as returned by
+     * {@link #findRecentHistory}.
+     */
+    interface AttemptHistoryRow {
+        Long getLatestAttemptId();
+        Long getAttemptId();
+        String getSkill();
+        String getStatus();
+        Integer getScore();
+        OffsetDateTime getCompletedAt();
+        long getAnswered();
+        long getCorrect();
+    }
+
+    /**
+     * Fetches one page of the tests a user attempted, one row per test (its latest attempt by
+     * started_at), ordered by the completion time of that attempt (unfinished last). Grouping,
+     * filtering and paging all happen in the database, so the cost depends on the page size,
+     * not on the length of the user's history.
+     * @param userId The UUID of the user.
+     * @param pattern A lower-case LIKE pattern matched against exam source or skill ("%" for all).
+     * @param limit The page size.
+     * @param offset The number of tests to skip.
+     * @return The latest attempts of the tests on the page.
+     */
+    @Query(value = "SELECT id, testId, examSource, testNumber, skill, status, completedAt FROM (" +
+                   "  SELECT DISTINCT ON (a.test_id) a.id, a.test_id AS testId, a.exam_source AS examSource, " +
+                   "         a.test_number AS testNumber, a.skill, a.status, a.completed_at AS completedAt " +
+                   "  FROM test_attempts a " +
+                   "  WHERE a.user_id = :userId " +
+                   "    AND (lower(a.exam_source) LIKE :pattern ESCAPE '\\' OR lower(a.skill) LIKE :pattern ESCAPE '\\') " +
+                   "  ORDER BY a.test_id, a.started_at DESC, a.id DESC" +
+                   ") latest ORDER BY completedAt DESC NULLS LAST, id DESC LIMIT :limit OFFSET :offset",
+           nativeQuery = true)
+    List<LatestTestAttempt> findLatestAttemptPerTest(@Param("userId") UUID userId,
+                                                     @Param("pattern") String pattern,
+                                                     @Param("limit") int limit,
+                                                     @Param("offset") long offset);
 
-    Optional<TestAttempt> findTopByUserIdAndExamSourceAndTestNumberAndSkillOrderByStartedAtDesc(
-            UUID userId, String examSource, String testNumber, String skill
-    );
+    /**
+     * Counts the distinct tests a user attempted that match the pattern of {@link #findLatestAttemptPerTest}.
+     * @param userId The UUID of the user.
+     * @param pattern A lower-case LIKE pattern matched against exam source or skill ("%" for all).
+     * @return The number of tests.
+     */
+    @Query(value = "SELECT count(DISTINCT a.test_id) FROM test_attempts a " +
+                   "WHERE a.user_id = :userId " +
+                   "  AND (lower(a.exam_source) LIKE :pattern ESCAPE '\\' OR lower(a.skill) LIKE :pattern ESCAPE '\\')",
+           nativeQuery = true)
+    long countTestsAttempted(@Param("userId") UUID userId, @Param("pattern") String pattern);
 
-    List<TestAttempt> findByUserIdAndExamSourceAndTestNumberAndSkillOrderByStartedAtDesc(
-            UUID userId, String examSource, String testNumber, String skill
-    );
+    /**
+     * Loads the most recent attempts (newest first) of the tests of the given latest attempts,
+     * at most {@code historyLimit} per test, each with its answered and correct counts (from
+     * user_answers, or from the archive row of attempts whose answers were archived).
+     * @param latestAttemptIds The ids of the tests' latest attempts.
+     * @param historyLimit The maximum number of attempts per test.
+     * @return The history rows, grouped by latest attempt id.
+     */
+    @Query(value = "SELECT latest.id AS latestAttemptId, h.id AS attemptId, h.skill, h.status, h.score, " +
+                   "       h.completed_at AS completedAt, COALESCE(ar.answer_count, c.answered) AS answered, " +
+                   "       COALESCE(ar.correct_count, c.correct) AS correct " +
+                   "FROM test_attempts latest " +
+                   "JOIN LATERAL (" +
+                   "  SELECT a.id, a.skill, a.status, a.score, a.completed_at, a.started_at, a.answers_archived " +
+                   "  FROM test_attempts a " +
+                   "  WHERE a.user_id = latest.user_id AND a.test_id = latest.test_id " +
+                   "  ORDER BY a.started_at DESC, a.id DESC LIMIT :historyLimit" +
+                   ") h ON true " +
+                   "CROSS JOIN LATERAL (" +
+                   "  SELECT count(*) AS answered, count(*) FILTER (WHERE ua.is_correct) AS correct " +
+                   "  FROM user_answers ua WHERE ua.user_id = latest.user_id AND ua.attempt_id = h.id AND NOT h.answers_archived" +
+                   ") c " +
+                   "LEFT JOIN attempt_answer_archives ar ON ar.attempt_id = h.id AND h.answers_archived " +
+                   "WHERE latest.id IN (:latestAttemptIds) " +
+                   "ORDER BY latest.id, h.started_at DESC, h.id DESC",
+           nativeQuery = true)
+    List<AttemptHistoryRow> findRecentHistory(@Param("latestAttemptIds") Collection<Long> latestAttemptIds,
+                                              @Param("historyLimit") int historyLimit);
 }
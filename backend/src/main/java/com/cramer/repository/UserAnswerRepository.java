@@ -1,42 +1,132 @@
 package com.cramer.repository;
 
 import com.cramer.entity.UserAnswer;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface UserAnswerRepository extends JpaRepository<UserAnswer, Long> {
+public interface UserAnswerRepository extends JpaRepository<UserAnswer, Long>, UserAnswerRepositoryCustom {
+
+    // user_answers is hash-partitioned by user_id: every query filters on the user so that
+    // PostgreSQL only reads the partition holding that user's answers.
 
     /**
-     * Finds all answers submitted by a specific user by joining through the TestAttempt entity.
+     * Finds all answers submitted by a specific user.
      * @param userId The UUID of the user.
      * @return A list of all UserAnswer entities for that user.
      */
-    List<UserAnswer> findByAttempt_UserId(UUID userId);
+    List<UserAnswer> findByUserId(UUID userId);
 
     /**
      * Finds all answers for a specific test attempt.
+     * @param userId The UUID of the owner of the attempt.
      * @param testAttemptId The ID of the test attempt.
      * @return A list of UserAnswer entities for that attempt.
      */
-    List<UserAnswer> findByAttemptId(Long testAttemptId);
+    List<UserAnswer> findByUserIdAndAttemptId(UUID userId, Long testAttemptId);
 
     /**
      * Deletes all answers associated with a specific test attempt.
      * This is useful for allowing users to re-submit a test.
+     * @param userId The UUID of the owner of the attempt.
      * @param testAttemptId The ID of the test attempt whose answers should be deleted.
+     * @return The number of deleted answers.
      */
     @Modifying
-    void deleteByAttemptId(Long testAttemptId);
+    @Query("DELETE FROM UserAnswer ua WHERE ua.userId = :userId AND ua.attempt.id = :attemptId")
+    int deleteByUserIdAndAttemptId(@Param("userId") UUID userId, @Param("attemptId") Long testAttemptId);
+
+    /**
+     * Deletes the answers to the given questions within a test attempt (answers the user cleared),
+     * in a single statement.
+     * @param userId The UUID of the owner of the attempt.
+     * @param testAttemptId The ID of the test attempt.
+     * @param questionIds The IDs of the questions whose answers should be deleted.
+     * @return The number of deleted answers.
+     */
+    @Modifying
+    @Query("DELETE FROM UserAnswer ua WHERE ua.userId = :userId AND ua.attempt.id = :attemptId " +
+           "AND ua.question.id IN :questionIds")
+    int deleteByAttemptIdAndQuestionIds(@Param("userId") UUID userId,
+                                        @Param("attemptId") Long testAttemptId,
+                                        @Param("questionIds") Collection<Long> questionIds);
 
     /**
      * Finds the 5 most recent answers for a specific user.
      * @param userId The UUID of the user.
      * @return A list of the 5 most recent UserAnswer entities.
      */
-    List<UserAnswer> findTop5ByAttempt_UserIdOrderBySubmittedAtDesc(UUID userId);
+    List<UserAnswer> findTop5ByUserIdOrderBySubmittedAtDesc(UUID userId);
+
+    /**
+     * Answer counts of an attempt for one skill and question type.
+     */
+    interface TypeAnswerCounts {
+        String getSkill();
+        String getQuestionType();
+        long getTotal();
+        long getCorrect();
+    }
+
+    /**
+     * Answer counts of a single attempt.
+     */
+    interface AttemptAnswerCounts {
+        Long getAttemptId();
+        long getAnswered();
+        long getCorrect();
+    }
+
+    /**
+     * The fields of an answer shown in the recent activity feed.
+     */
+    interface RecentAnswer {
+        Long getQuestionId();
+        OffsetDateTime getSubmittedAt();
+        Boolean getCorrect();
+    }
+
+    /**
+     * Counts the answers of one attempt per skill and question type (the attempt's contribution to the user's statistics).
+     * @param userId The UUID of the owner of the attempt.
+     * @param testAttemptId The ID of the test attempt.
+     * @return One row per skill and question type.
+     */
+    @Query("SELECT COALESCE(s.skill, 'unknown') AS skill, q.questionType AS questionType, COUNT(ua) AS total, " +
+           "COALESCE(SUM(CASE WHEN ua.isCorrect = true THEN 1 ELSE 0 END), 0) AS correct " +
+           "FROM UserAnswer ua JOIN ua.question q LEFT JOIN q.section s " +
+           "WHERE ua.userId = :userId AND ua.attempt.id = :attemptId GROUP BY COALESCE(s.skill, 'unknown'), q.questionType")
+    List<TypeAnswerCounts> countAttemptAnswersByType(@Param("userId") UUID userId, @Param("attemptId") Long testAttemptId);
+
+    /**
+     * Counts answered and correct questions of the given attempts of one user.
+     * @param userId The UUID of the owner of the attempts.
+     * @param attemptIds The IDs of the attempts.
+     * @return One row per attempt that has answers.
+     */
+    @Query("SELECT ua.attempt.id AS attemptId, COUNT(ua) AS answered, " +
+           "COALESCE(SUM(CASE WHEN ua.isCorrect = true THEN 1 ELSE 0 END), 0) AS correct " +
+           "FROM UserAnswer ua WHERE ua.userId = :userId AND ua.attempt.id IN :attemptIds GROUP BY ua.attempt.id")
+    List<AttemptAnswerCounts> countAnswersByAttemptIds(@Param("userId") UUID userId,
+                                                       @Param("attemptIds") Collection<Long> attemptIds);
+
+    /**
+     * Finds a user's most recently submitted answers, newest first.
+     * @param userId The UUID of the user.
+     * @param limit The maximum number of answers.
+     * @return The most recent answers.
+     */
+    @Query("SELECT ua.question.id AS questionId, ua.submittedAt AS submittedAt, ua.isCorrect AS correct " +
+           "FROM UserAnswer ua WHERE ua.userId = :userId AND ua.submittedAt IS NOT NULL " +
+           "ORDER BY ua.submittedAt DESC")
+    List<RecentAnswer> findRecentAnswers(@Param("userId") UUID userId, Limit limit);
 }
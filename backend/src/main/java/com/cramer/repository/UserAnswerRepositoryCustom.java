@@ -0,0 +1,33 @@
+package com.cramer.repository;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Bulk write operations on user answers that Spring Data cannot derive.
+ */
+public interface UserAnswerRepositoryCustom {
+
+    /**
+     * The desired state of one answer within an attempt.
+     *
+     * @param questionId    the question ID
+     * @param userAnswer    the plain answer text
+     * @param answerContent the answer as a JSON document (stored in the jsonb column)
+     * @param correct       the grading result, or null for an ungraded (in-progress) answer
+     */
+    record AnswerRow(Long questionId, String userAnswer, String answerContent, Boolean correct) {
+    }
+
+    /**
+     * Insert or update the given answers of an attempt in one batch.
+     * Relies on the unique (user_id, attempt_id, question_id) constraint: existing rows are only
+     * rewritten when their answer text or grading result actually changed.
+     *
+     * @param attemptId the test attempt ID
+     * @param userId    the owner of the attempt
+     * @param rows      the answers to write
+     * @return the number of rows inserted or updated
+     */
+    int upsertAnswers(Long attemptId, UUID userId, Collection<AnswerRow> rows);
+}
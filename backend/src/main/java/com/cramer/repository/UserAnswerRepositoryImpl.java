@@ -0,0 +1,50 @@
+package com.cramer.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JDBC implementation of {@link UserAnswerRepositoryCustom}, picked up by Spring Data as the
+ * fragment of {@link UserAnswerRepository}. Runs in the caller's JPA transaction.
+ */
+class UserAnswerRepositoryImpl implements UserAnswerRepositoryCustom {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO user_answers (user_id, attempt_id, question_id, answer_content, user_answer, is_correct, submitted_at, created_at) " +
+            "VALUES (?, ?, ?, CAST(? AS jsonb), ?, ?, now(), now()) " +
+            "ON CONFLICT (user_id, attempt_id, question_id) DO UPDATE SET " +
+            "answer_content = EXCLUDED.answer_content, user_answer = EXCLUDED.user_answer, " +
+            "is_correct = EXCLUDED.is_correct, submitted_at = EXCLUDED.submitted_at " +
+            // Skip the write (and the new row version) when nothing changed
+            "WHERE user_answers.user_answer IS DISTINCT FROM EXCLUDED.user_answer " +
+            "OR user_answers.is_correct IS DISTINCT FROM EXCLUDED.is_correct";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    UserAnswerRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int upsertAnswers(Long attemptId, UUID userId, Collection<AnswerRow> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> batchArgs = new ArrayList<>(rows.size());
+        for (AnswerRow row : rows) {
+            batchArgs.add(new Object[]{userId, attemptId, row.questionId(), row.answerContent(), row.userAnswer(), row.correct()});
+        }
+        int[] argTypes = {Types.OTHER, Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN};
+        int written = 0;
+        for (int count : jdbcTemplate.batchUpdate(UPSERT_SQL, batchArgs, argTypes)) {
+            // The driver may report SUCCESS_NO_INFO (-2) for batched statements
+            written += Math.max(count, 0);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,66 @@
+package com.cramer.repository;
+
+import com.cramer.entity.UserSkillStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface UserSkillStatsRepository extends JpaRepository<UserSkillStats, UserSkillStats.Key> {
+
+    /**
+     * Finds all skill / question type counters of a user (a primary key prefix scan).
+     */
+    List<UserSkillStats> findByUserId(UUID userId);
+
+    /**
+     * Atomically adds to one skill / question type counter (negative values subtract). Creates the row if missing.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_skill_stats (user_id, skill, question_type, questions_answered, correct_answers) " +
+                   "VALUES (:userId, :skill, :questionType, :answered, :correct) " +
+                   "ON CONFLICT (user_id, skill, question_type) DO UPDATE SET " +
+                   "questions_answered = user_skill_stats.questions_answered + EXCLUDED.questions_answered, " +
+                   "correct_answers = user_skill_stats.correct_answers + EXCLUDED.correct_answers",
+           nativeQuery = true)
+    void addToCounters(@Param("userId") UUID userId,
+                       @Param("skill") String skill,
+                       @Param("questionType") String questionType,
+                       @Param("answered") long answered,
+                       @Param("correct") long correct);
+
+    @Modifying
+    @Query("DELETE FROM UserSkillStats s WHERE s.userId = :userId")
+    void deleteByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Recomputes a user's counters from the answers of their completed attempts, live and archived.
+     * Run after {@link #deleteByUserId(UUID)}; counters that exist anyway are overwritten, so the
+     * statement never fails on the primary key.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_skill_stats (user_id, skill, question_type, questions_answered, correct_answers) " +
+                   "SELECT CAST(:userId AS uuid), COALESCE(s.skill, 'unknown'), q.question_type, " +
+                   "COUNT(*), COUNT(*) FILTER (WHERE ua.is_correct) " +
+                   "FROM (" +
+                   "  SELECT ua.question_id, ua.is_correct FROM user_answers ua " +
+                   "  JOIN test_attempts ta ON ta.id = ua.attempt_id " +
+                   "  WHERE ua.user_id = :userId AND ta.status = 'COMPLETED' " +
+                   "  UNION ALL " +
+                   "  SELECT r.question_id, r.is_correct FROM attempt_answer_archives ar " +
+                   "  CROSS JOIN LATERAL jsonb_to_recordset(ar.answers) AS r(question_id bigint, is_correct boolean) " +
+                   "  WHERE ar.user_id = :userId" +
+                   ") ua " +
+                   "JOIN questions q ON q.id = ua.question_id " +
+                   "LEFT JOIN sections s ON s.id = q.section_id " +
+                   "GROUP BY COALESCE(s.skill, 'unknown'), q.question_type " +
+                   "ON CONFLICT (user_id, skill, question_type) DO UPDATE SET " +
+                   "questions_answered = EXCLUDED.questions_answered, correct_answers = EXCLUDED.correct_answers",
+           nativeQuery = true)
+    void rebuildForUser(@Param("userId") UUID userId);
+}
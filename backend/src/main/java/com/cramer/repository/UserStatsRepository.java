@@ -0,0 +1,63 @@
+package com.cramer.repository;
+
+import com.cramer.entity.UserStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface UserStatsRepository extends JpaRepository<UserStats, UUID> {
+
+    /**
+     * Atomically adds to a user's counters (negative values subtract). Creates the row if missing.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_stats (user_id, questions_answered, correct_answers, tests_completed, updated_at) " +
+                   "VALUES (:userId, :answered, :correct, :testsCompleted, now()) " +
+                   "ON CONFLICT (user_id) DO UPDATE SET " +
+                   "questions_answered = user_stats.questions_answered + EXCLUDED.questions_answered, " +
+                   "correct_answers = user_stats.correct_answers + EXCLUDED.correct_answers, " +
+                   "tests_completed = user_stats.tests_completed + EXCLUDED.tests_completed, " +
+                   "updated_at = now()",
+           nativeQuery = true)
+    void addToCounters(@Param("userId") UUID userId,
+                       @Param("answered") long answered,
+                       @Param("correct") long correct,
+                       @Param("testsCompleted") long testsCompleted);
+
+    /**
+     * Recomputes a user's counters from their skill counters and completed attempts.
+     * Run after {@link UserSkillStatsRepository#rebuildForUser(UUID)}.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_stats (user_id, questions_answered, correct_answers, tests_completed, updated_at) " +
+                   "SELECT CAST(:userId AS uuid), " +
+                   "(SELECT COALESCE(SUM(questions_answered), 0) FROM user_skill_stats WHERE user_id = :userId), " +
+                   "(SELECT COALESCE(SUM(correct_answers), 0) FROM user_skill_stats WHERE user_id = :userId), " +
+                   "(SELECT COUNT(*) FROM test_attempts WHERE user_id = :userId AND status = 'COMPLETED'), " +
+                   "now() " +
+                   "ON CONFLICT (user_id) DO UPDATE SET " +
+                   "questions_answered = EXCLUDED.questions_answered, correct_answers = EXCLUDED.correct_answers, " +
+                   "tests_completed = EXCLUDED.tests_completed, updated_at = now()",
+           nativeQuery = true)
+    void rebuildForUser(@Param("userId") UUID userId);
+
+    /**
+     * Serializes rebuilds of one user's counters: takes a transaction-scoped advisory lock keyed on
+     * the user, held until commit or rollback.
+     */
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(hashtextextended('user_stats:' || CAST(:userId AS text), 0))) l",
+           nativeQuery = true)
+    Integer lockForRebuild(@Param("userId") UUID userId);
+
+    /**
+     * @return every user that has at least one test attempt (the backfill work list)
+     */
+    @Query("SELECT DISTINCT ta.userId FROM TestAttempt ta")
+    List<UUID> findUserIdsWithAttempts();
+}
@@ -0,0 +1,295 @@
+package com.cramer.service;
+
+import com.cramer.entity.AttemptAnswerArchive;
+import com.cramer.entity.Question;
+import com.cramer.entity.TestAttempt;
+import com.cramer.entity.UserAnswer;
+import com.cramer.repository.AttemptAnswerArchiveRepository;
+import com.cramer.repository.TestAttemptRepository;
+import com.cramer.repository.UserAnswerRepository;
+import com.cramer.util.MetricsSource;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cold storage for the answers of old completed attempts.
+ * <p>
+ * A completed attempt's answers no longer change, so once it was completed more than
+ * {@code cramer.answer-archive.min-age-days} ago its {@code user_answers} rows are compacted into one
+ * {@link AttemptAnswerArchive} row (a jsonb array, compressed by PostgreSQL) and deleted, and the
+ * attempt is flagged {@code answersArchived}. That keeps the hot table limited to recent attempts.
+ * Readers go through {@link #loadAnswers}, {@link #countAnswers} and {@link #findRecentAnswers},
+ * which read whichever side holds an attempt's answers. Writers call {@link #restore} first, which
+ * moves the answers back into {@code user_answers} (re-submission, deletion).
+ */
+@Service
+public class AnswerArchiveService implements MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnswerArchiveService.class);
+    private static final OffsetDateTime EPOCH = OffsetDateTime.ofInstant(Instant.EPOCH, ZoneOffset.UTC);
+
+    private final AttemptAnswerArchiveRepository archiveRepository;
+    private final UserAnswerRepository userAnswerRepository;
+    private final TestAttemptRepository testAttemptRepository;
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final Duration minAge;
+    private final int batchSize;
+    private final AtomicLong archivedAttempts = new AtomicLong();
+    private final AtomicLong archivedAnswers = new AtomicLong();
+    private final AtomicLong restoredAttempts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private volatile OffsetDateTime lastRunAt;
+
+    public AnswerArchiveService(AttemptAnswerArchiveRepository archiveRepository,
+                                UserAnswerRepository userAnswerRepository,
+                                TestAttemptRepository testAttemptRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${cramer.answer-archive.enabled:true}") boolean enabled,
+                                @Value("${cramer.answer-archive.min-age-days:30}") long minAgeDays,
+                                @Value("${cramer.answer-archive.batch-size:200}") int batchSize) {
+        this.archiveRepository = archiveRepository;
+        this.userAnswerRepository = userAnswerRepository;
+        this.testAttemptRepository = testAttemptRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.minAge = Duration.ofDays(minAgeDays);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${cramer.answer-archive.interval-ms:3600000}",
+               fixedDelayString = "${cramer.answer-archive.interval-ms:3600000}")
+    public void scheduledCompaction() {
+        if (enabled) {
+            compact();
+        }
+    }
+
+    /**
+     * Archive every completed attempt older than the minimum age, one transaction per attempt.
+     *
+     * @return the number of attempts archived
+     */
+    public synchronized int compact() {
+        OffsetDateTime cutoff = OffsetDateTime.now().minus(minAge);
+        long start = System.currentTimeMillis();
+        int archived = 0;
+        int failed = 0;
+        while (true) {
+            List<Long> batch = archiveRepository.findArchiveCandidates(cutoff, Limit.of(batchSize));
+            int batchArchived = 0;
+            for (Long attemptId : batch) {
+                try {
+                    if (Boolean.TRUE.equals(transaction.execute(status -> archive(attemptId, cutoff)))) {
+                        batchArchived++;
+                    }
+                } catch (Exception e) {
+                    failed++;
+                    failures.incrementAndGet();
+                    logger.error("Failed to archive the answers of attempt {}: {}", attemptId, e.getMessage());
+                }
+            }
+            archived += batchArchived;
+            // Failed or skipped attempts are still candidates; leave them for the next run
+            if (batch.size() < batchSize || batchArchived < batch.size()) {
+                break;
+            }
+        }
+        lastRunAt = OffsetDateTime.now();
+        if (archived > 0 || failed > 0) {
+            logger.info("Archived the answers of {} attempts completed before {} in {}ms ({} failed)",
+                    archived, cutoff, System.currentTimeMillis() - start, failed);
+        }
+        return archived;
+    }
+
+    private boolean archive(Long attemptId, OffsetDateTime cutoff) {
+        // Locked like every other writer of the attempt (submit, delete), so none of them sees a half-moved state
+        TestAttempt attempt = testAttemptRepository.findAndLockById(attemptId).orElse(null);
+        if (attempt == null || attempt.isAnswersArchived() || !"COMPLETED".equals(attempt.getStatus())
+                || attempt.getCompletedAt() == null || !attempt.getCompletedAt().isBefore(cutoff)) {
+            return false;
+        }
+        if (archiveRepository.archiveAttempt(attempt.getUserId(), attemptId) > 0) {
+            archivedAnswers.addAndGet(userAnswerRepository.deleteByUserIdAndAttemptId(attempt.getUserId(), attemptId));
+        }
+        attempt.setAnswersArchived(true);
+        testAttemptRepository.save(attempt);
+        archivedAttempts.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Move an archived attempt's answers back into {@code user_answers}. Call with the attempt
+     * locked before changing or deleting its answers; does nothing if the attempt is not archived.
+     */
+    @Transactional
+    public void restore(TestAttempt attempt) {
+        if (!attempt.isAnswersArchived()) {
+            return;
+        }
+        int restored = archiveRepository.restoreAttempt(attempt.getUserId(), attempt.getId());
+        archiveRepository.deleteById(attempt.getId());
+        attempt.setAnswersArchived(false);
+        testAttemptRepository.save(attempt);
+        restoredAttempts.incrementAndGet();
+        logger.info("Restored {} archived answers of attempt {}", restored, attempt.getId());
+    }
+
+    /**
+     * Load the answers of an attempt from wherever they are stored. Archived answers are returned
+     * as detached entities without an id; their question only carries its id.
+     */
+    @Transactional(readOnly = true)
+    public List<UserAnswer> loadAnswers(TestAttempt attempt) {
+        if (!attempt.isAnswersArchived()) {
+            List<UserAnswer> answers = userAnswerRepository.findByUserIdAndAttemptId(attempt.getUserId(), attempt.getId());
+            // No rows for a completed attempt: it may have been archived after it was read
+            if (!answers.isEmpty() || !"COMPLETED".equals(attempt.getStatus())) {
+                return answers;
+            }
+        }
+        return archiveRepository.findById(attempt.getId())
+                .map(archive -> decode(attempt, archive))
+                .orElse(List.of());
+    }
+
+    /**
+     * Answered and correct counts of the given attempts of one user, by attempt id (attempts
+     * without answers are absent).
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, UserAnswerRepository.AttemptAnswerCounts> countAnswers(UUID userId, List<TestAttempt> attempts) {
+        List<Long> hotIds = new ArrayList<>();
+        List<Long> archivedIds = new ArrayList<>();
+        for (TestAttempt attempt : attempts) {
+            (attempt.isAnswersArchived() ? archivedIds : hotIds).add(attempt.getId());
+        }
+        Map<Long, UserAnswerRepository.AttemptAnswerCounts> counts = new HashMap<>();
+        if (!hotIds.isEmpty()) {
+            userAnswerRepository.countAnswersByAttemptIds(userId, hotIds)
+                    .forEach(row -> counts.put(row.getAttemptId(), row));
+        }
+        if (!archivedIds.isEmpty()) {
+            archiveRepository.countAnswersByAttemptIds(userId, archivedIds)
+                    .forEach(row -> counts.put(row.getAttemptId(), row));
+        }
+        return counts;
+    }
+
+    /**
+     * A user's most recently submitted answers, newest first, across live and archived attempts.
+     */
+    @Transactional(readOnly = true)
+    public List<UserAnswerRepository.RecentAnswer> findRecentAnswers(UUID userId, int limit) {
+        List<UserAnswerRepository.RecentAnswer> recent = userAnswerRepository.findRecentAnswers(userId, Limit.of(limit));
+        // Only archives with answers newer than the oldest answer kept can change the result
+        OffsetDateTime after = recent.size() < limit ? EPOCH : recent.get(limit - 1).getSubmittedAt();
+        List<AttemptAnswerArchive> archives = archiveRepository.findRecentArchives(userId, after, Limit.of(limit));
+        if (archives.isEmpty()) {
+            return recent;
+        }
+        List<UserAnswerRepository.RecentAnswer> merged = new ArrayList<>(recent);
+        for (AttemptAnswerArchive archive : archives) {
+            for (JsonNode node : archive.getAnswers()) {
+                OffsetDateTime submittedAt = parseTime(node.get("submitted_at"));
+                if (submittedAt != null) {
+                    merged.add(new ArchivedRecentAnswer(node.path("question_id").asLong(), submittedAt, booleanOrNull(node.get("is_correct"))));
+                }
+            }
+        }
+        return merged.stream()
+                .sorted(Comparator.comparing(UserAnswerRepository.RecentAnswer::getSubmittedAt).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "answerArchive";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("minAgeDays", minAge.toDays());
+        metrics.put("archivedAttempts", archivedAttempts.get());
+        metrics.put("archivedAnswers", archivedAnswers.get());
+        metrics.put("restoredAttempts", restoredAttempts.get());
+        metrics.put("failures", failures.get());
+        metrics.put("lastRunAt", lastRunAt != null ? lastRunAt.toString() : null);
+        return metrics;
+    }
+
+    private static List<UserAnswer> decode(TestAttempt attempt, AttemptAnswerArchive archive) {
+        List<UserAnswer> answers = new ArrayList<>();
+        for (JsonNode node : archive.getAnswers()) {
+            Question question = new Question();
+            question.setId(node.path("question_id").asLong());
+            UserAnswer answer = new UserAnswer();
+            answer.setUserId(archive.getUserId());
+            answer.setAttempt(attempt);
+            answer.setQuestion(question);
+            answer.setAnswerContent(node.get("answer_content"));
+            answer.setUserAnswer(node.hasNonNull("user_answer") ? node.get("user_answer").asText() : null);
+            answer.setCorrect(booleanOrNull(node.get("is_correct")));
+            answer.setSubmittedAt(parseTime(node.get("submitted_at")));
+            answer.setCreatedAt(parseTime(node.get("created_at")));
+            answers.add(answer);
+        }
+        return answers;
+    }
+
+    private static Boolean booleanOrNull(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asBoolean();
+    }
+
+    private static OffsetDateTime parseTime(JsonNode node) {
+        return node == null || node.isNull() ? null : OffsetDateTime.parse(node.asText());
+    }
+
+    /**
+     * An archived answer in the recent activity feed.
+     */
+    private record ArchivedRecentAnswer(Long questionId, OffsetDateTime submittedAt, Boolean correct)
+            implements UserAnswerRepository.RecentAnswer {
+
+        @Override
+        public Long getQuestionId() {
+            return questionId;
+        }
+
+        @Override
+        public OffsetDateTime getSubmittedAt() {
+            return submittedAt;
+        }
+
+        @Override
+        public Boolean getCorrect() {
+            return correct;
+        }
+    }
+}
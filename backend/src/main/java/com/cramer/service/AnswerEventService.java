@@ -0,0 +1,166 @@
+package com.cramer.service;
+
+import com.cramer.dto.AnswerEventBatchDTO;
+import com.cramer.dto.AnswerEventBatchResultDTO;
+import com.cramer.dto.AnswerEventDTO;
+import com.cramer.dto.QuestionTimelineDTO;
+import com.cramer.entity.TestAttempt;
+import com.cramer.exception.ResourceNotFoundException;
+import com.cramer.grading.AnswerKey;
+import com.cramer.repository.AnswerEventRepository;
+import com.cramer.repository.AnswerEventRepositoryCustom;
+import com.cramer.repository.TestAttemptRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Service for the answer-change event log of test attempts and the per-question timeline
+ * analytics built from it (time spent per question, how often an answer was changed).
+ * <p>
+ * Events are only ever appended, so ingesting a batch is a single multi-row INSERT and never
+ * touches the answers table; the current state of each answer stays in {@code user_answers}.
+ */
+@Service
+public class AnswerEventService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnswerEventService.class);
+    private static final int MAX_VALUE_LENGTH = 1000;
+    // Client clocks may run ahead of the server's a little; anything beyond this is rejected
+    private static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(5);
+
+    private final AnswerEventRepository answerEventRepository;
+    private final TestAttemptRepository testAttemptRepository;
+    private final TestCatalogService testCatalogService;
+    private final int maxBatchSize;
+    private final long maxEventsPerAttempt;
+    private final Duration submitGrace;
+    private final long idleCapMillis;
+
+    public AnswerEventService(AnswerEventRepository answerEventRepository,
+                              TestAttemptRepository testAttemptRepository,
+                              TestCatalogService testCatalogService,
+                              @Value("${cramer.answer-events.max-batch-size:500}") int maxBatchSize,
+                              @Value("${cramer.answer-events.max-per-attempt:5000}") long maxEventsPerAttempt,
+                              @Value("${cramer.answer-events.submit-grace-ms:300000}") long submitGraceMillis,
+                              @Value("${cramer.answer-events.idle-cap-ms:300000}") long idleCapMillis) {
+        this.answerEventRepository = answerEventRepository;
+        this.testAttemptRepository = testAttemptRepository;
+        this.testCatalogService = testCatalogService;
+        this.maxBatchSize = maxBatchSize;
+        this.maxEventsPerAttempt = maxEventsPerAttempt;
+        this.submitGrace = Duration.ofMillis(submitGraceMillis);
+        this.idleCapMillis = idleCapMillis;
+    }
+
+    /**
+     * Append a batch of answer changes to an attempt's event log.
+     * Accepted while the attempt is in progress, and for a short grace period after submission so
+     * that the client's final upload can race the submit. An attempt's log is capped at
+     * {@code cramer.answer-events.max-per-attempt} events (concurrent uploads may overshoot the
+     * cap by one batch).
+     */
+    @Transactional
+    public AnswerEventBatchResultDTO recordEvents(Long attemptId, AnswerEventBatchDTO batch, UUID userId) {
+        List<AnswerEventDTO> events = batch != null && batch.getEvents() != null ? batch.getEvents() : List.of();
+        if (events.size() > maxBatchSize) {
+            throw new IllegalArgumentException("A batch may contain at most " + maxBatchSize + " events");
+        }
+
+        TestAttempt attempt = testAttemptRepository.findById(attemptId)
+                .orElseThrow(() -> new ResourceNotFoundException("TestAttempt not found with id: " + attemptId));
+
+        if (!attempt.getUserId().equals(userId)) {
+            throw new AccessDeniedException("User does not have permission to update this attempt.");
+        }
+
+        if ("CANCELLED".equals(attempt.getStatus())) {
+            throw new IllegalStateException("Cannot record answer events for a cancelled test.");
+        }
+
+        if ("COMPLETED".equals(attempt.getStatus()) && attempt.getCompletedAt() != null
+                && attempt.getCompletedAt().plus(submitGrace).isBefore(OffsetDateTime.now())) {
+            throw new IllegalStateException("Cannot record answer events for a test submitted more than "
+                    + submitGrace.toMinutes() + " minutes ago.");
+        }
+
+        if (events.isEmpty()) {
+            return new AnswerEventBatchResultDTO(attemptId, 0);
+        }
+
+        long recorded = answerEventRepository.countByAttemptId(attemptId);
+        if (recorded + events.size() > maxEventsPerAttempt) {
+            throw new IllegalStateException("An attempt may record at most " + maxEventsPerAttempt
+                    + " answer events (" + recorded + " recorded)");
+        }
+
+        AnswerKey answerKey = testCatalogService.getAnswerKey(attempt.getTestId(), events.stream()
+                .map(AnswerEventDTO::getQuestionId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        Instant latestAllowed = Instant.now().plus(MAX_CLOCK_SKEW);
+        List<AnswerEventRepositoryCustom.EventRow> rows = new ArrayList<>(events.size());
+        for (AnswerEventDTO event : events) {
+            if (event.getQuestionId() == null || !answerKey.contains(event.getQuestionId())) {
+                throw new IllegalArgumentException("Question " + event.getQuestionId() + " does not belong to this test");
+            }
+            if (event.getClientTime() == null) {
+                throw new IllegalArgumentException("clientTime is required");
+            }
+            Instant clientTime = Instant.ofEpochMilli(event.getClientTime());
+            if (clientTime.isAfter(latestAllowed)) {
+                throw new IllegalArgumentException("clientTime lies in the future");
+            }
+            if (event.getValue() != null && event.getValue().length() > MAX_VALUE_LENGTH) {
+                throw new IllegalArgumentException("Answer value exceeds " + MAX_VALUE_LENGTH + " characters");
+            }
+            rows.add(new AnswerEventRepositoryCustom.EventRow(
+                    event.getQuestionId(), event.getValue(), OffsetDateTime.ofInstant(clientTime, ZoneOffset.UTC)));
+        }
+        // Keep the log roughly in client order; the analytics order by client time anyway
+        rows.sort(Comparator.comparing(AnswerEventRepositoryCustom.EventRow::clientAt));
+
+        int appended = answerEventRepository.appendEvents(attemptId, rows);
+        logger.info("📝 Appended {} answer events for attemptId={}", appended, attemptId);
+        return new AnswerEventBatchResultDTO(attemptId, appended);
+    }
+
+    /**
+     * Get the per-question timeline of an attempt, ordered by question ID.
+     * Questions without events are not included.
+     */
+    @Transactional(readOnly = true)
+    public List<QuestionTimelineDTO> getTimeline(Long attemptId, UUID userId) {
+        TestAttempt attempt = testAttemptRepository.findById(attemptId)
+                .orElseThrow(() -> new ResourceNotFoundException("TestAttempt not found with id: " + attemptId));
+
+        if (!attempt.getUserId().equals(userId)) {
+            throw new AccessDeniedException("User does not have permission to view this attempt.");
+        }
+
+        return answerEventRepository.findQuestionTimeline(attemptId, idleCapMillis).stream()
+                .map(row -> new QuestionTimelineDTO(
+                        row.getQuestionId(),
+                        row.getTimeSpentMs(),
+                        row.getChangeCount(),
+                        row.getEventCount(),
+                        row.getFirstAnsweredAt(),
+                        row.getLastChangedAt(),
+                        row.getFinalValue()))
+                .collect(Collectors.toList());
+    }
+}
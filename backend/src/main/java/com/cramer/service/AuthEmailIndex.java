@@ -0,0 +1,236 @@
+package com.cramer.service;
+
+import com.cramer.util.BloomFilter;
+import com.cramer.util.MetricsSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local mirror of the e-mail addresses of all Supabase Auth users, used to answer
+ * "is this e-mail already registered?" without calling the admin API.
+ * <p>
+ * Lookups go through a Bloom filter (most addresses typed into a signup form are new, and the filter
+ * rejects them without touching the set) in front of an exact hash set, so answers are exact.
+ * The index is built by paging through {@code /auth/v1/admin/users} at startup and rebuilt
+ * every {@code cramer.auth.email-index.rebuild-interval-ms} (picking up deleted users and changed
+ * addresses). In between, an incremental refresh reads the newest users page by page until it
+ * reaches a user it already knows. Until the first build completes, lookups page through the
+ * admin API directly.
+ */
+@Service
+public class AuthEmailIndex implements MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthEmailIndex.class);
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final SupabaseAdminService supabaseAdminService;
+    private final int pageSize;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong bloomRejections = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    private volatile Index index;
+
+    public AuthEmailIndex(SupabaseAdminService supabaseAdminService,
+                          @Value("${cramer.auth.email-index.page-size:500}") int pageSize) {
+        this.supabaseAdminService = supabaseAdminService;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @return true if a Supabase Auth user with this e-mail address exists (case-insensitive)
+     */
+    public boolean checkEmailExists(String email) {
+        if (email == null || email.isBlank()) {
+            return false;
+        }
+        String normalized = normalize(email);
+        Index current = index;
+        if (current == null) {
+            return scanAdminApi(normalized);
+        }
+        lookups.incrementAndGet();
+        if (!current.bloom().mightContain(normalized)) {
+            bloomRejections.incrementAndGet();
+            return false;
+        }
+        return current.emails().contains(normalized);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${cramer.auth.email-index.rebuild-interval-ms:3600000}",
+               fixedDelayString = "${cramer.auth.email-index.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${cramer.auth.email-index.refresh-interval-ms:60000}",
+               fixedDelayString = "${cramer.auth.email-index.refresh-interval-ms:60000}")
+    public void scheduledRefresh() {
+        Index current = index;
+        if (current == null) {
+            return;
+        }
+        if (current.userIds().size() >= current.capacity()) {
+            // The Bloom filter is full; keep its false-positive rate down by sizing a new one
+            rebuild();
+            return;
+        }
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int added = 0;
+            for (int page = 1; ; page++) {
+                AtomicBoolean reachedKnownUser = new AtomicBoolean();
+                int[] pageAdded = {0};
+                int count = supabaseAdminService.forEachAuthUser(page, pageSize, user -> {
+                    if (user.id() != null && current.userIds().contains(user.id())) {
+                        reachedKnownUser.set(true);
+                    } else if (current.add(user)) {
+                        pageAdded[0]++;
+                    }
+                });
+                added += pageAdded[0];
+                // Users are listed newest first, so the rest of the list is already indexed
+                if (reachedKnownUser.get() || count < pageSize) {
+                    break;
+                }
+            }
+            if (added > 0) {
+                logger.info("Auth e-mail index: added {} new users ({} total)", added, current.userIds().size());
+            }
+        } catch (IOException e) {
+            refreshFailures.incrementAndGet();
+            logger.warn("Auth e-mail index refresh failed: {}", e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Page through all auth users and swap in a freshly sized index. Failures keep the previous index.
+     */
+    public synchronized void rebuild() {
+        if (!supabaseAdminService.isConfigured()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            Index rebuilt = new Index(Math.max(1024, (int) ((index != null ? index.userIds().size() : 0) * 1.5)));
+            for (int page = 1; ; page++) {
+                int count = supabaseAdminService.forEachAuthUser(page, pageSize, rebuilt::add);
+                if (count < pageSize) {
+                    break;
+                }
+            }
+            if (rebuilt.userIds().size() > rebuilt.capacity()) {
+                // More users than the estimate: copy into a filter sized for the real count
+                Index resized = new Index((int) (rebuilt.userIds().size() * 1.5));
+                rebuilt.users().forEach((id, email) -> resized.add(new SupabaseAdminService.AuthUser(id, email)));
+                rebuilt = resized;
+            }
+            index = rebuilt;
+            logger.info("Auth e-mail index built: {} users in {}ms", rebuilt.userIds().size(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            refreshFailures.incrementAndGet();
+            logger.warn("Auth e-mail index build failed, keeping previous index: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "authEmailIndex";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Index current = index;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("loaded", current != null);
+        metrics.put("users", current != null ? current.userIds().size() : 0);
+        metrics.put("bloomBits", current != null ? current.bloom().bitSize() : 0);
+        metrics.put("builtAt", current != null ? current.builtAt().toString() : null);
+        metrics.put("lookups", lookups.get());
+        metrics.put("bloomRejections", bloomRejections.get());
+        metrics.put("refreshFailures", refreshFailures.get());
+        return metrics;
+    }
+
+    // Before the first build: page through the admin API, stopping at the first match
+    private boolean scanAdminApi(String normalizedEmail) {
+        try {
+            AtomicBoolean found = new AtomicBoolean();
+            for (int page = 1; !found.get(); page++) {
+                int count = supabaseAdminService.forEachAuthUser(page, pageSize, user -> {
+                    if (user.email() != null && normalize(user.email()).equals(normalizedEmail)) {
+                        found.set(true);
+                    }
+                });
+                if (count < pageSize) {
+                    break;
+                }
+            }
+            return found.get();
+        } catch (IOException e) {
+            logger.warn("Auth e-mail lookup failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One generation of the index. Additions are thread-safe; removals only happen by rebuilding.
+     */
+    private record Index(BloomFilter bloom, Set<String> emails, Map<String, String> users,
+                         int capacity, Instant builtAt) {
+
+        Index(int capacity) {
+            this(BloomFilter.create(capacity, FALSE_POSITIVE_RATE), ConcurrentHashMap.newKeySet(),
+                    new ConcurrentHashMap<>(), capacity, Instant.now());
+        }
+
+        Set<String> userIds() {
+            return users.keySet();
+        }
+
+        /**
+         * @return true if the user was not indexed yet
+         */
+        boolean add(SupabaseAdminService.AuthUser user) {
+            if (user.id() == null || users.putIfAbsent(user.id(), user.email() != null ? user.email() : "") != null) {
+                return false;
+            }
+            if (user.email() != null && !user.email().isBlank()) {
+                String normalized = normalize(user.email());
+                // Set membership first, then the filter: a concurrent lookup that passes the filter must find the e-mail
+                emails.add(normalized);
+                bloom.put(normalized);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.cramer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind buffer for autosave ({@code saveProgress}) payloads.
+ * <p>
+ * Only the latest state of each attempt is kept: a newer autosave replaces the buffered answers
+ * map and overrides the time left / current part it carries, so a burst of autosaves costs a
+ * single database write when the {@link AutosaveFlusher} drains the buffer. Readers that must
+ * not see stale data (submit, answers, resume) consult the buffer before the database.
+ * <p>
+ * Drained progress stays visible as in-flight until the flusher reports that its transaction
+ * committed ({@link #complete}), so there is no window in which an autosave is neither in the
+ * buffer nor in the database. {@link #peek} and {@link #take} return the queued progress merged
+ * over the in-flight one. An in-flight entry removed by {@link #take} is superseded: the flusher
+ * checks {@link #isInFlight} under the attempt's row lock and drops it.
+ * <p>
+ * The buffer is local to this instance, so a crash loses at most one flush interval of autosaves.
+ */
+@Component
+public class AutosaveBuffer {
+
+    /**
+     * The buffered progress of one attempt.
+     *
+     * @param attemptId   the test attempt ID
+     * @param userId      the owner of the attempt
+     * @param timeLeft    the remaining time, or null if not reported
+     * @param currentPart the current part, or null if not reported
+     * @param answers     the complete answers map (questionId -> answer text), or null if not reported
+     * @param sequence    the progress sequence number sent by the client, or null if not reported
+     * @param savedAt     when the latest autosave merged into this progress was received
+     */
+    public record PendingProgress(Long attemptId, UUID userId, Integer timeLeft, Integer currentPart,
+                                  Map<Long, String> answers, Long sequence, OffsetDateTime savedAt) {
+
+        public PendingProgress(Long attemptId, UUID userId, Integer timeLeft, Integer currentPart,
+                               Map<Long, String> answers, Long sequence) {
+            this(attemptId, userId, timeLeft, currentPart, answers, sequence, OffsetDateTime.now());
+        }
+
+        public PendingProgress(Long attemptId, UUID userId, Integer timeLeft, Integer currentPart, Map<Long, String> answers) {
+            this(attemptId, userId, timeLeft, currentPart, answers, null);
+        }
+
+        PendingProgress mergeInto(PendingProgress older) {
+            if (older == null) {
+                return this;
+            }
+            return new PendingProgress(attemptId, userId,
+                    timeLeft != null ? timeLeft : older.timeLeft(),
+                    currentPart != null ? currentPart : older.currentPart(),
+                    answers != null ? answers : older.answers(),
+                    sequence != null ? sequence : older.sequence(),
+                    savedAt);
+        }
+    }
+
+    /**
+     * The progress of one attempt: queued for the next flush and/or being flushed right now.
+     */
+    private record Slot(PendingProgress queued, PendingProgress inFlight) {
+
+        PendingProgress merged() {
+            return queued != null ? queued.mergeInto(inFlight) : inFlight;
+        }
+    }
+
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final int capacity;
+    private volatile Runnable highWaterListener = () -> { };
+
+    public AutosaveBuffer(@Value("${cramer.autosave.buffer-capacity:2000}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Buffer the latest progress of an attempt, merging it with any state not flushed yet.
+     * Progress with a sequence number that is not higher than the one already buffered is
+     * rejected. Notifies the high-water listener once the buffer holds {@code capacity} attempts.
+     *
+     * @return false if the progress was rejected as out of order
+     */
+    public boolean put(PendingProgress progress) {
+        Map<Long, String> answers = progress.answers() != null
+                ? Collections.unmodifiableMap(new LinkedHashMap<>(progress.answers()))
+                : null;
+        PendingProgress snapshot = new PendingProgress(progress.attemptId(), progress.userId(),
+                progress.timeLeft(), progress.currentPart(), answers, progress.sequence(), progress.savedAt());
+        boolean[] accepted = {true};
+        slots.compute(progress.attemptId(), (attemptId, slot) -> {
+            Long bufferedSequence = slot != null ? slot.merged().sequence() : null;
+            if (snapshot.sequence() != null && bufferedSequence != null && snapshot.sequence() <= bufferedSequence) {
+                accepted[0] = false;
+                return slot;
+            }
+            if (slot == null || slot.queued() == null) {
+                queuedCount.incrementAndGet();
+                return new Slot(snapshot, slot != null ? slot.inFlight() : null);
+            }
+            return new Slot(snapshot.mergeInto(slot.queued()), slot.inFlight());
+        });
+        if (queuedCount.get() >= capacity) {
+            highWaterListener.run();
+        }
+        return accepted[0];
+    }
+
+    /**
+     * @return the buffered progress of an attempt (queued and in-flight), left in the buffer
+     */
+    public Optional<PendingProgress> peek(Long attemptId) {
+        Slot slot = slots.get(attemptId);
+        return Optional.ofNullable(slot != null ? slot.merged() : null);
+    }
+
+    /**
+     * Remove and return the buffered progress of an attempt, including progress being flushed,
+     * e.g. to apply it right away, or because the attempt was submitted, cancelled or deleted.
+     * Call with the attempt's row locked, so an in-flight flush either committed already or drops
+     * its copy once it gets the lock.
+     */
+    public Optional<PendingProgress> take(Long attemptId) {
+        Slot slot = slots.remove(attemptId);
+        if (slot == null) {
+            return Optional.empty();
+        }
+        if (slot.queued() != null) {
+            queuedCount.decrementAndGet();
+        }
+        return Optional.of(slot.merged());
+    }
+
+    /**
+     * @return true if this exact progress is still the in-flight progress of its attempt
+     *         (false once it was taken by a request that applied it or superseded it)
+     */
+    public boolean isInFlight(PendingProgress progress) {
+        Slot slot = slots.get(progress.attemptId());
+        return slot != null && slot.inFlight() == progress;
+    }
+
+    /**
+     * Forget flushed progress once the flush transaction committed.
+     */
+    public void complete(PendingProgress progress) {
+        slots.computeIfPresent(progress.attemptId(), (attemptId, slot) -> {
+            if (slot.inFlight() != progress) {
+                return slot;
+            }
+            return slot.queued() != null ? new Slot(slot.queued(), null) : null;
+        });
+    }
+
+    /**
+     * Queue progress that could not be flushed again, merged under any newer autosave that
+     * arrived meanwhile. Does nothing if the progress was taken in the meantime.
+     */
+    public void restore(PendingProgress progress) {
+        slots.computeIfPresent(progress.attemptId(), (attemptId, slot) -> {
+            if (slot.inFlight() != progress) {
+                return slot;
+            }
+            if (slot.queued() == null) {
+                queuedCount.incrementAndGet();
+            }
+            return new Slot(slot.queued() != null ? slot.queued().mergeInto(progress) : progress, null);
+        });
+    }
+
+    /**
+     * Move up to {@code max} queued attempts to in-flight and return them. Each must be passed to
+     * {@link #complete} or {@link #restore} once its flush has finished.
+     */
+    public List<PendingProgress> drain(int max) {
+        List<PendingProgress> batch = new ArrayList<>(Math.min(max, queuedCount.get()));
+        Iterator<Long> attemptIds = slots.keySet().iterator();
+        while (batch.size() < max && attemptIds.hasNext()) {
+            slots.computeIfPresent(attemptIds.next(), (attemptId, slot) -> {
+                if (slot.queued() == null) {
+                    return slot;
+                }
+                queuedCount.decrementAndGet();
+                PendingProgress inFlight = slot.merged();
+                batch.add(inFlight);
+                return new Slot(null, inFlight);
+            });
+        }
+        return batch;
+    }
+
+    /**
+     * @return the number of attempts queued for the next flush (in-flight progress is not counted)
+     */
+    public int size() {
+        return queuedCount.get();
+    }
+
+    public boolean isEmpty() {
+        return slots.isEmpty();
+    }
+
+    void setHighWaterListener(Runnable listener) {
+        this.highWaterListener = listener;
+    }
+}
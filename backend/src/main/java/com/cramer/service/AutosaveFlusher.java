@@ -0,0 +1,114 @@
+package com.cramer.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drains the {@link AutosaveBuffer} to the database in batches: periodically, as soon as the
+ * buffer reaches its capacity, and completely on graceful shutdown.
+ * <p>
+ * Each attempt is written in its own transaction, so one failing attempt does not hold back
+ * the rest of the batch; failed attempts are put back and retried on the next flush.
+ */
+@Component
+public class AutosaveFlusher {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutosaveFlusher.class);
+
+    private final AutosaveBuffer autosaveBuffer;
+    private final TestAttemptService testAttemptService;
+    private final int batchSize;
+    private final ExecutorService highWaterExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "autosave-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean highWaterFlushQueued = new AtomicBoolean();
+
+    public AutosaveFlusher(AutosaveBuffer autosaveBuffer,
+                           TestAttemptService testAttemptService,
+                           @Value("${cramer.autosave.batch-size:200}") int batchSize) {
+        this.autosaveBuffer = autosaveBuffer;
+        this.testAttemptService = testAttemptService;
+        this.batchSize = batchSize;
+        autosaveBuffer.setHighWaterListener(this::requestFlush);
+    }
+
+    @Scheduled(fixedDelayString = "${cramer.autosave.flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * Flush everything buffered so far, one batch at a time.
+     *
+     * @return the number of attempts written
+     */
+    public synchronized int flush() {
+        int flushed = 0;
+        int failed = 0;
+        long start = System.currentTimeMillis();
+        // Bound the work to what is buffered now, so a steady stream of autosaves cannot keep us here
+        int remaining = autosaveBuffer.size();
+        while (remaining > 0) {
+            List<AutosaveBuffer.PendingProgress> batch = autosaveBuffer.drain(Math.min(batchSize, remaining));
+            if (batch.isEmpty()) {
+                break;
+            }
+            remaining -= batch.size();
+            for (AutosaveBuffer.PendingProgress progress : batch) {
+                try {
+                    testAttemptService.applyProgress(progress);
+                    // Committed: the rows are visible now, so the in-flight copy can go
+                    autosaveBuffer.complete(progress);
+                    flushed++;
+                } catch (Exception e) {
+                    failed++;
+                    logger.error("❌ Failed to flush autosave for attempt {}: {}", progress.attemptId(), e.getMessage());
+                    autosaveBuffer.restore(progress);
+                }
+            }
+        }
+        if (flushed > 0 || failed > 0) {
+            logger.info("💾 Flushed {} buffered autosaves in {}ms ({} failed, {} still buffered)",
+                    flushed, System.currentTimeMillis() - start, failed, autosaveBuffer.size());
+        }
+        return flushed;
+    }
+
+    @PreDestroy
+    public void drainOnShutdown() {
+        highWaterExecutor.shutdown();
+        try {
+            highWaterExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("🛑 Draining {} buffered autosaves before shutdown", autosaveBuffer.size());
+        flush();
+    }
+
+    private void requestFlush() {
+        if (highWaterFlushQueued.compareAndSet(false, true)) {
+            try {
+                highWaterExecutor.execute(() -> {
+                    highWaterFlushQueued.set(false);
+                    flush();
+                });
+            } catch (Exception e) {
+                // Shutting down; the final drain takes care of the buffer
+                highWaterFlushQueued.set(false);
+            }
+        }
+    }
+}
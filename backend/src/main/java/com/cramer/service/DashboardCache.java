@@ -0,0 +1,191 @@
+package com.cramer.service;
+
+import com.cramer.config.ReplicaRoutingDataSource;
+import com.cramer.event.UserDataChangedEvent;
+import com.cramer.util.MetricsSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, per-user cache of the computed parts of the dashboard summary.
+ * <p>
+ * Each part is cached separately (course progress once per page, size and search) and evicted when a {@link UserDataChangedEvent} reports that
+ * its underlying data changed, after the changing transaction commits. Every part also carries
+ * a generation number: a value computed while an eviction happened is not stored, so a slow
+ * build cannot put pre-change data back into the cache. Least recently used users are dropped
+ * once {@code cramer.dashboard.cache.max-users} is reached, and entries expire after
+ * {@code cramer.dashboard.cache.ttl-ms} to pick up changes made outside the application.
+ * Loaders read from the primary: a value loaded from a lagging read replica right after a change
+ * would stay stale for the whole TTL.
+ */
+@Component
+public class DashboardCache implements MetricsSource {
+
+    public enum Part {
+        PROFILE, TARGET, SKILLS, STATS, RECENT_ACTIVITY, COURSE_PROGRESS
+    }
+
+    // Bounds the variants kept per part (e.g. course progress pages and searches) of one user
+    private static final int MAX_VARIANTS_PER_PART = 16;
+
+    private static final Map<UserDataChangedEvent.Kind, Set<Part>> AFFECTED_PARTS = Map.of(
+            UserDataChangedEvent.Kind.PROFILE, EnumSet.of(Part.PROFILE),
+            UserDataChangedEvent.Kind.TARGET, EnumSet.of(Part.TARGET),
+            UserDataChangedEvent.Kind.ATTEMPTS, EnumSet.of(Part.SKILLS, Part.STATS, Part.RECENT_ACTIVITY, Part.COURSE_PROGRESS)
+    );
+
+    private final Map<UUID, UserEntry> entries;
+    private final long ttlMillis;
+    private final AtomicLongArray hits = new AtomicLongArray(Part.values().length);
+    private final AtomicLongArray misses = new AtomicLongArray(Part.values().length);
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong evictedUsers = new AtomicLong();
+
+    public DashboardCache(@Value("${cramer.dashboard.cache.max-users:10000}") int maxUsers,
+                          @Value("${cramer.dashboard.cache.ttl-ms:600000}") long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, UserEntry> eldest) {
+                if (size() > maxUsers) {
+                    evictedUsers.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get a part of a user's dashboard, computing it with the loader on a miss.
+     * Null values are cached too (e.g., a user without a target).
+     */
+    public <T> T get(UUID userId, Part part, Supplier<T> loader) {
+        return get(userId, part, null, loader);
+    }
+
+    /**
+     * Get one variant of a part of a user's dashboard (e.g. one page of course progress), computing
+     * it with the loader on a miss. All variants of a part are evicted together.
+     *
+     * @param variant identifies the value within the part; must implement {@code equals} and {@code hashCode}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(UUID userId, Part part, Object variant, Supplier<T> loader) {
+        UserEntry entry = entryFor(userId);
+        ValueKey key = new ValueKey(part, variant);
+        CachedValue cached = entry.values.get(key);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.loadedAt() < ttlMillis) {
+            hits.incrementAndGet(part.ordinal());
+            return (T) cached.value().orElse(null);
+        }
+        misses.incrementAndGet(part.ordinal());
+        long generation = entry.generations.get(part.ordinal());
+        T value = ReplicaRoutingDataSource.onPrimary(loader);
+        entry.store(key, generation, new CachedValue(Optional.<Object>ofNullable(value), now));
+        return value;
+    }
+
+    /**
+     * Drop the given parts of a user's dashboard.
+     */
+    public void evict(UUID userId, Set<Part> parts) {
+        UserEntry entry;
+        synchronized (entries) {
+            entry = entries.get(userId);
+        }
+        if (entry == null) {
+            return;
+        }
+        for (Part part : parts) {
+            entry.invalidate(part);
+        }
+        invalidations.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserDataChanged(UserDataChangedEvent event) {
+        evict(event.userId(), AFFECTED_PARTS.get(event.kind()));
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "dashboardCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long totalHits = 0;
+        long totalMisses = 0;
+        for (Part part : Part.values()) {
+            totalHits += hits.get(part.ordinal());
+            totalMisses += misses.get(part.ordinal());
+        }
+        metrics.put("hits", totalHits);
+        metrics.put("misses", totalMisses);
+        metrics.put("hitRatio", totalHits + totalMisses > 0 ? (double) totalHits / (totalHits + totalMisses) : 0.0);
+        metrics.put("invalidations", invalidations.get());
+        metrics.put("evictedUsers", evictedUsers.get());
+        synchronized (entries) {
+            metrics.put("users", entries.size());
+        }
+        Map<String, Object> byPart = new LinkedHashMap<>();
+        for (Part part : Part.values()) {
+            byPart.put(part.name(), Map.of("hits", hits.get(part.ordinal()), "misses", misses.get(part.ordinal())));
+        }
+        metrics.put("parts", byPart);
+        return metrics;
+    }
+
+    private UserEntry entryFor(UUID userId) {
+        synchronized (entries) {
+            return entries.computeIfAbsent(userId, id -> new UserEntry());
+        }
+    }
+
+    private record ValueKey(Part part, Object variant) {
+    }
+
+    private record CachedValue(Optional<Object> value, long loadedAt) {
+    }
+
+    private static final class UserEntry {
+        private final Map<ValueKey, CachedValue> values = new ConcurrentHashMap<>();
+        private final AtomicLongArray generations = new AtomicLongArray(Part.values().length);
+
+        synchronized void store(ValueKey key, long generation, CachedValue value) {
+            if (generations.get(key.part().ordinal()) != generation) {
+                return;
+            }
+            if (key.variant() != null && !values.containsKey(key)
+                    && values.keySet().stream().filter(k -> k.part() == key.part()).count() >= MAX_VARIANTS_PER_PART) {
+                // Too many pages or searches cached: start over for this part rather than grow without bound
+                removePart(key.part());
+            }
+            values.put(key, value);
+        }
+
+        synchronized void invalidate(Part part) {
+            generations.incrementAndGet(part.ordinal());
+            removePart(part);
+        }
+
+        private void removePart(Part part) {
+            values.keySet().removeIf(key -> key.part() == part);
+        }
+    }
+}
@@ -1,19 +1,20 @@
 package com.cramer.service;
 
 import com.cramer.dto.*;
-import com.cramer.entity.Question;
-import com.cramer.entity.Section;
+import com.cramer.entity.ExamTest;
 import com.cramer.entity.TestAttempt;
-import com.cramer.entity.UserAnswer;
 import com.cramer.exception.ResourceNotFoundException;
 import com.cramer.repository.*;
 import com.cramer.util.EntityMapper;
 import com.cramer.util.IeltsScoreConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.*;
-import java.util.function.Function;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,212 +23,226 @@ public class DashboardService {
     private final ProfileRepository profileRepository;
     private final TargetRepository targetRepository;
     private final TestAttemptRepository testAttemptRepository;
-    private final UserAnswerRepository userAnswerRepository;
-    private final QuestionRepository questionRepository;
-    private final SectionRepository sectionRepository;
+    private final AnswerArchiveService answerArchiveService;
+    private final ExamTestService examTestService;
+    private final UserStatsService userStatsService;
+    private final DashboardCache dashboardCache;
+    private final ParallelLookups parallelLookups;
+    private final int historyLimit;
 
     public DashboardService(ProfileRepository profileRepository,
                             TargetRepository targetRepository,
                             TestAttemptRepository testAttemptRepository,
-                            UserAnswerRepository userAnswerRepository,
-                            QuestionRepository questionRepository,
-                            SectionRepository sectionRepository) {
+                            AnswerArchiveService answerArchiveService,
+                            ExamTestService examTestService,
+                            UserStatsService userStatsService,
+                            DashboardCache dashboardCache,
+                            ParallelLookups parallelLookups,
+                            @Value("${cramer.dashboard.history-limit:5}") int historyLimit) {
         this.profileRepository = profileRepository;
         this.targetRepository = targetRepository;
         this.testAttemptRepository = testAttemptRepository;
-        this.userAnswerRepository = userAnswerRepository;
-        this.questionRepository = questionRepository;
-        this.sectionRepository = sectionRepository;
+        this.answerArchiveService = answerArchiveService;
+        this.examTestService = examTestService;
+        this.userStatsService = userStatsService;
+        this.dashboardCache = dashboardCache;
+        this.parallelLookups = parallelLookups;
+        this.historyLimit = historyLimit;
     }
 
     public DashboardSummaryDTO buildDashboardSummary(UUID userId, int page, int size, String search) {
         Objects.requireNonNull(userId, "userId must not be null");
 
-        // 1. Fetch primary entities
-        ProfileDTO profile = profileRepository.findById(userId)
-                .map(EntityMapper::toDTO)
-                .orElseThrow(() -> new ResourceNotFoundException("Profile", "id", userId));
-
-        TargetDTO target = targetRepository.findByUserId(userId)
-                .map(EntityMapper::toDTO)
-                .orElse(null);
-
-        List<TestAttempt> attempts = testAttemptRepository.findByUserId(userId);
-        List<UserAnswer> allAnswers = userAnswerRepository.findByAttempt_UserId(userId);
+        // 1. Fetch every part concurrently (each part is served from the per-user cache when possible,
+        //    otherwise its lookup runs on its own virtual thread under the shared connection budget)
+        Supplier<ProfileDTO> profileTask;
+        Supplier<TargetDTO> targetTask;
+        Supplier<PageDTO<CourseProgressDTO>> courseProgressTask;
+        Supplier<List<SkillSummaryDTO>> skillSummariesTask;
+        Supplier<UserStatsDTO> statsTask;
+        Supplier<List<RecentActivityDTO>> recentActivitiesTask;
+        try (ParallelLookups.Scope scope = parallelLookups.open("Dashboard summary")) {
+            profileTask = scope.fork(() -> dashboardCache.get(userId, DashboardCache.Part.PROFILE, () ->
+                    lookup(scope, () -> profileRepository.findById(userId)
+                            .map(EntityMapper::toDTO)
+                            .orElseThrow(() -> new ResourceNotFoundException("Profile", "id", userId)))));
+            targetTask = scope.fork(() -> dashboardCache.get(userId, DashboardCache.Part.TARGET, () ->
+                    lookup(scope, () -> targetRepository.findByUserId(userId)
+                            .map(EntityMapper::toDTO)
+                            .orElse(null))));
+            // 2. Aggregate data (answers are counted by the database, only aggregate rows are loaded)
+            //    Course progress is paged and searched in the database and cached per page, size and search
+            courseProgressTask = scope.fork(() -> dashboardCache.get(userId, DashboardCache.Part.COURSE_PROGRESS,
+                    List.of(page, size, toLikePattern(search)),
+                    () -> unchecked(() -> loadCourseProgress(scope, userId, page, size, search))));
+            skillSummariesTask = scope.fork(() -> dashboardCache.get(userId, DashboardCache.Part.SKILLS,
+                    () -> List.copyOf(lookup(scope, () -> userStatsService.getSkillSummaries(userId)))));
+            statsTask = scope.fork(() -> dashboardCache.get(userId, DashboardCache.Part.STATS,
+                    () -> lookup(scope, () -> userStatsService.getUserStats(userId))));
+            recentActivitiesTask = scope.fork(() -> dashboardCache.get(userId, DashboardCache.Part.RECENT_ACTIVITY,
+                    () -> List.copyOf(lookup(scope, () -> getRecentActivities(userId)))));
+            scope.join();
+        }
 
-        // 2. Aggregate data
-        PageDTO<CourseProgressDTO> courseProgress = aggregateCourseProgress(attempts, allAnswers, page, size, search);
-        List<SkillSummaryDTO> skillSummaries = aggregateSkillSummaries(allAnswers);
-        UserStatsDTO stats = calculateUserStats(allAnswers);
-        List<RecentActivityDTO> recentActivities = getRecentActivities(allAnswers);
+        TargetDTO target = targetTask.get();
+        PageDTO<CourseProgressDTO> courseProgress = courseProgressTask.get();
 
         // 3. Build final DTO
         DashboardSummaryDTO dto = new DashboardSummaryDTO();
-        dto.setProfile(profile);
+        dto.setProfile(profileTask.get());
         dto.setTarget(target);
         dto.setCourseProgress(courseProgress);
-        dto.setSkillSummary(skillSummaries);
-        dto.setStats(stats);
-        dto.setRecentAttempts(recentActivities);
+        dto.setSkillSummary(skillSummariesTask.get());
+        dto.setStats(statsTask.get());
+        dto.setRecentAttempts(recentActivitiesTask.get());
         dto.setGoals(buildGoalsFromTarget(target));
 
         return dto;
     }
 
-    private PageDTO<CourseProgressDTO> aggregateCourseProgress(List<TestAttempt> attempts, List<UserAnswer> allAnswers, int page, int size, String search) {
-        if (attempts == null || attempts.isEmpty()) {
-            return new PageDTO<>(List.of(), page, size, 0, 0);
+    /**
+     * Load one page of the user's course progress. The page of tests and the total count are
+     * queried concurrently, then the recent history of just the tests on the page.
+     */
+    private PageDTO<CourseProgressDTO> loadCourseProgress(ParallelLookups.Scope parent, UUID userId,
+                                                          int page, int size, String search) throws Exception {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be greater than 0");
+        }
+        String pattern = toLikePattern(search);
+
+        List<TestAttemptRepository.LatestTestAttempt> latestAttempts;
+        long totalElements;
+        try (ParallelLookups.Scope scope = parent.child()) {
+            Supplier<List<TestAttemptRepository.LatestTestAttempt>> pageTask = scope.fork(() -> scope.withConnection(() ->
+                    testAttemptRepository.findLatestAttemptPerTest(userId, pattern, size, (long) page * size)));
+            Supplier<Long> countTask = scope.fork(() -> scope.withConnection(() ->
+                    testAttemptRepository.countTestsAttempted(userId, pattern)));
+            scope.join();
+            latestAttempts = pageTask.get();
+            totalElements = countTask.get();
+        }
+        int totalPages = (int) Math.ceil((double) totalElements / size);
+        if (latestAttempts.isEmpty()) {
+            return new PageDTO<>(List.of(), page, size, totalElements, totalPages);
         }
 
-        // 1. Group attempts by TestKey (Source + TestNum + Skill)
-        Map<TestKey, List<TestAttempt>> attemptsByTest = attempts.stream()
-                .collect(Collectors.groupingBy(a -> new TestKey(a.getExamSource(), parseTestNumber(a.getTestNumber()), a.getSkill())));
-
-        // 2. Convert groups to CourseProgressDTO (with history)
-        Map<Long, List<UserAnswer>> answersByAttemptId = allAnswers == null ?
-                Collections.emptyMap() :
-                allAnswers.stream().collect(Collectors.groupingBy(a -> a.getAttempt().getId()));
-        Map<TestKey, Integer> totalQuestionsCache = new HashMap<>();
-
-        List<CourseProgressDTO> courseProgressList = new ArrayList<>();
-
-        for (Map.Entry<TestKey, List<TestAttempt>> entry : attemptsByTest.entrySet()) {
-            TestKey key = entry.getKey();
-            List<TestAttempt> testAttempts = entry.getValue();
-
-            // Sort attempts by startedAt desc (latest first)
-            testAttempts.sort(Comparator.comparing(TestAttempt::getStartedAt, Comparator.nullsLast(Comparator.reverseOrder())));
-
-            TestAttempt latestAttempt = testAttempts.get(0);
-
-            // Filter by search if needed
-            if (search != null && !search.trim().isEmpty()) {
-                String lowerSearch = search.toLowerCase().trim();
-                boolean matches = (latestAttempt.getExamSource() != null && latestAttempt.getExamSource().toLowerCase().contains(lowerSearch)) ||
-                                  (latestAttempt.getSkill() != null && latestAttempt.getSkill().toLowerCase().contains(lowerSearch));
-                if (!matches) continue;
-            }
+        List<Long> latestIds = latestAttempts.stream().map(TestAttemptRepository.LatestTestAttempt::getId).toList();
+        Map<Long, List<TestAttemptRepository.AttemptHistoryRow>> historyByTest = parent.withConnection(() ->
+                        testAttemptRepository.findRecentHistory(latestIds, historyLimit)).stream()
+                .collect(Collectors.groupingBy(TestAttemptRepository.AttemptHistoryRow::getLatestAttemptId));
+
+        List<CourseProgressDTO> content = new ArrayList<>();
+        for (TestAttemptRepository.LatestTestAttempt latest : latestAttempts) {
+            List<TestAttemptRepository.AttemptHistoryRow> rows = historyByTest.getOrDefault(latest.getId(), List.of());
+            // The first history row is the latest attempt itself
+            TestAttemptRepository.AttemptHistoryRow latestRow = rows.isEmpty() ? null : rows.get(0);
+            int answersAttempted = latestRow != null ? (int) latestRow.getAnswered() : 0;
+            int correctCount = latestRow != null ? (int) latestRow.getCorrect() : 0;
+            int totalQuestions = examTestService.getQuestionCount(latest.getTestId());
+            double completionRate = totalQuestions > 0 ? (double) answersAttempted / totalQuestions : 0.0;
 
-            // Build History
-            List<AttemptHistoryDTO> history = testAttempts.stream()
-                    .map(a -> {
-                        int correct = (int) answersByAttemptId.getOrDefault(a.getId(), Collections.emptyList()).stream()
-                                .filter(ans -> Boolean.TRUE.equals(ans.getCorrect()))
-                                .count();
-                        Double band = null;
-                         if ("COMPLETED".equals(a.getStatus()) && ("reading".equalsIgnoreCase(a.getSkill()) || "listening".equalsIgnoreCase(a.getSkill()))) {
-                            band = IeltsScoreConverter.convertToBand(a.getScore() != null ? a.getScore() : correct);
-                        }
-                        return new AttemptHistoryDTO(a.getId(), a.getCompletedAt(), a.getScore(), a.getStatus(), band);
-                    })
+            List<AttemptHistoryDTO> history = rows.stream()
+                    .map(row -> toHistoryDTO(row.getAttemptId(), row.getCompletedAt(), row.getScore(), row.getStatus(),
+                            row.getSkill(), (int) row.getCorrect()))
                     .collect(Collectors.toList());
 
-            // Build Main DTO from Latest Attempt
-            int totalQuestions = resolveTotalQuestions(latestAttempt, totalQuestionsCache);
-            List<UserAnswer> attemptAnswers = answersByAttemptId.getOrDefault(latestAttempt.getId(), Collections.emptyList());
-            int answersAttempted = attemptAnswers.size();
-            int correctCount = (int) attemptAnswers.stream().filter(a -> Boolean.TRUE.equals(a.getCorrect())).count();
-            double score = IeltsScoreConverter.convertToBand(correctCount);
-            double completionRate = totalQuestions > 0 ? (double) answersAttempted / totalQuestions : 0.0;
-
-            courseProgressList.add(new CourseProgressDTO(
-                    latestAttempt.getId(),
-                    latestAttempt.getExamSource(),
-                    parseTestNumber(latestAttempt.getTestNumber()),
-                    latestAttempt.getSkill(),
+            content.add(new CourseProgressDTO(
+                    latest.getId(),
+                    latest.getExamSource(),
+                    latest.getTestNumber(),
+                    latest.getSkill(),
                     totalQuestions,
                     answersAttempted,
                     correctCount,
-                    latestAttempt.getCompletedAt(), // Or startedAt if completedAt is null?
+                    latest.getCompletedAt(),
                     completionRate,
-                    latestAttempt.getStatus(), // Use actual status
-                    score,
+                    latest.getStatus(),
+                    IeltsScoreConverter.convertToBand(correctCount),
                     history
             ));
         }
-
-        // 3. Sort by latest attempt time
-        courseProgressList.sort(Comparator.comparing(CourseProgressDTO::getLastAttempt, Comparator.nullsLast(Comparator.reverseOrder())));
-
-        // 4. Pagination
-        int totalElements = courseProgressList.size();
-        int totalPages = (int) Math.ceil((double) totalElements / size);
-        int start = page * size;
-        int end = Math.min(start + size, totalElements);
-
-        if (start >= totalElements) {
-             return new PageDTO<>(List.of(), page, size, totalElements, totalPages);
-        }
-
-        List<CourseProgressDTO> pageContent = courseProgressList.subList(start, end);
-
-        return new PageDTO<>(pageContent, page, size, totalElements, totalPages);
+        return new PageDTO<>(content, page, size, totalElements, totalPages);
     }
 
-    private List<SkillSummaryDTO> aggregateSkillSummaries(List<UserAnswer> answers) {
-        if (answers == null || answers.isEmpty()) {
+    /**
+     * Get the full attempt history of one test, newest first (the dashboard only embeds the
+     * most recent {@code cramer.dashboard.history-limit} attempts per test).
+     */
+    public List<AttemptHistoryDTO> getTestHistory(UUID userId, String examSource, Integer testNumber, String skill) {
+        Objects.requireNonNull(userId, "userId must not be null");
+        if (examSource == null || examSource.isBlank() || testNumber == null || skill == null || skill.isBlank()) {
+            throw new IllegalArgumentException("examSource, testNumber and skill are required");
+        }
+        Optional<ExamTest> test = examTestService.findTest(examSource, testNumber, skill);
+        if (test.isEmpty()) {
             return List.of();
         }
-
-        // Create a map of Question ID -> Skill
-        Set<Long> questionIds = answers.stream().map(a -> a.getQuestion().getId()).collect(Collectors.toSet());
-        List<Question> questions = questionRepository.findAllById(questionIds);
-        
-        Set<Long> sectionIds = questions.stream().map(Question::getSectionId).collect(Collectors.toSet());
-        List<Section> sections = sectionRepository.findAllById(sectionIds);
-
-        Map<Long, String> questionIdToSkillMap = new HashMap<>();
-        Map<Long, Section> sectionMap = sections.stream().collect(Collectors.toMap(Section::getId, Function.identity()));
-
-        for (Question q : questions) {
-            Section s = sectionMap.get(q.getSectionId());
-            if (s != null) {
-                questionIdToSkillMap.put(q.getId(), s.getSkill());
-            }
+        List<TestAttempt> attempts = testAttemptRepository.findByUserIdAndTestIdOrderByStartedAtDesc(userId, test.get().getId());
+        if (attempts.isEmpty()) {
+            return List.of();
         }
-
-        // Aggregate stats per skill
-        Map<String, long[]> skillStats = answers.stream()
-                .collect(Collectors.groupingBy(
-                        answer -> questionIdToSkillMap.getOrDefault(answer.getQuestion().getId(), "unknown"),
-                        Collectors.collectingAndThen(Collectors.toList(), list -> {
-                            long total = list.size();
-                            long correct = list.stream().filter(a -> a.getCorrect() != null && a.getCorrect()).count();
-                            return new long[]{total, correct};
-                        })
-                ));
-
-        return skillStats.entrySet().stream()
-                .map(entry -> {
-                    String skill = entry.getKey();
-                    long total = entry.getValue()[0];
-                    long correct = entry.getValue()[1];
-                    long incorrect = total - correct;
-                    double accuracy = total > 0 ? (double) correct * 100.0 / total : 0.0;
-                    return new SkillSummaryDTO(skill, total, correct, incorrect, accuracy);
+        Map<Long, UserAnswerRepository.AttemptAnswerCounts> countsByAttemptId = answerArchiveService.countAnswers(userId, attempts);
+        return attempts.stream()
+                .map(a -> {
+                    UserAnswerRepository.AttemptAnswerCounts counts = countsByAttemptId.get(a.getId());
+                    int correct = counts != null ? (int) counts.getCorrect() : 0;
+                    return toHistoryDTO(a.getId(), a.getCompletedAt(), a.getScore(), a.getStatus(), a.getSkill(), correct);
                 })
                 .collect(Collectors.toList());
     }
 
-    private UserStatsDTO calculateUserStats(List<UserAnswer> answers) {
-        List<UserAnswer> safeAnswers = answers == null ? List.of() : answers;
-        long testsCompleted = safeAnswers.stream().map(a -> a.getAttempt().getId()).distinct().count();
-        long questionsAnswered = safeAnswers.size();
-        long correctAnswers = safeAnswers.stream().filter(a -> a.getCorrect() != null && a.getCorrect()).count();
-        double accuracy = questionsAnswered > 0 ? (double) correctAnswers * 100.0 / questionsAnswered : 0.0;
-        return new UserStatsDTO(testsCompleted, questionsAnswered, correctAnswers, accuracy);
+    private AttemptHistoryDTO toHistoryDTO(Long attemptId, OffsetDateTime completedAt, Integer score, String status,
+                                           String skill, int correct) {
+        Double band = null;
+        if ("COMPLETED".equals(status) && ("reading".equalsIgnoreCase(skill) || "listening".equalsIgnoreCase(skill))) {
+            band = IeltsScoreConverter.convertToBand(score != null ? score : correct);
+        }
+        return new AttemptHistoryDTO(attemptId, completedAt, score, status, band);
     }
 
-    public List<RecentActivityDTO> getRecentActivities(List<UserAnswer> answers) {
-        if (answers == null || answers.isEmpty()) {
-            return List.of();
+    /**
+     * Run a cache loader's lookup under the scope's connection budget.
+     */
+    private static <T> T lookup(ParallelLookups.Scope scope, Callable<T> lookup) {
+        return unchecked(() -> scope.withConnection(lookup));
+    }
+
+    /**
+     * Run a cache loader that throws checked exceptions.
+     */
+    private static <T> T unchecked(Callable<T> loader) {
+        try {
+            return loader.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Turn the search text into a case-insensitive LIKE pattern, escaping LIKE wildcards so the
+     * text is matched literally.
+     */
+    private static String toLikePattern(String search) {
+        if (search == null || search.trim().isEmpty()) {
+            return "%";
         }
-        return answers.stream()
-                .filter(answer -> answer.getSubmittedAt() != null)
-                .sorted(Comparator.comparing(UserAnswer::getSubmittedAt, Comparator.reverseOrder()))
-                .limit(10)
+        String escaped = search.trim().toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    public List<RecentActivityDTO> getRecentActivities(UUID userId) {
+        return answerArchiveService.findRecentAnswers(userId, 10).stream()
                 .map(answer -> new RecentActivityDTO(
-                        answer.getQuestion().getId(),
+                        answer.getQuestionId(),
                         answer.getSubmittedAt(),
                         answer.getCorrect()
                 ))
@@ -246,39 +261,4 @@ public class DashboardService {
         if (targetDto.getSpeaking() != null) goals.add(new DashboardGoalDTO("Speaking", String.valueOf(targetDto.getSpeaking()), examDate));
         return goals;
     }
-
-    private int resolveTotalQuestions(TestAttempt attempt, Map<TestKey, Integer> cache) {
-        Integer parsedTestNumber = parseTestNumber(attempt.getTestNumber());
-        if (parsedTestNumber == null) {
-            return 0;
-        }
-
-        TestKey key = new TestKey(
-                attempt.getExamSource(),
-                parsedTestNumber,
-                attempt.getSkill()
-        );
-
-        return cache.computeIfAbsent(key, k ->
-                questionRepository.countBySection_ExamSourceAndSection_TestNumberAndSection_Skill(
-                        k.examSource(),
-                        k.testNumber(),
-                        k.skill()
-                )
-        );
-    }
-
-    private Integer parseTestNumber(String rawTestNumber) {
-        if (rawTestNumber == null) {
-            return null;
-        }
-        try {
-            return Integer.parseInt(rawTestNumber);
-        } catch (NumberFormatException ex) {
-            return null;
-        }
-    }
-
-    private record TestKey(String examSource, Integer testNumber, String skill) {
-    }
 }
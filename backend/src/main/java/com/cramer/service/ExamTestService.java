@@ -0,0 +1,118 @@
+package com.cramer.service;
+
+import com.cramer.entity.ExamTest;
+import com.cramer.repository.ExamTestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Registry of the canonical tests ({@code tests} table): resolves the natural key
+ * (examSource, testNumber, skill) to the test id that sections and attempts reference, and
+ * serves each test's question and part count.
+ * <p>
+ * All tests are held in memory (there are a few hundred at most) and reloaded by
+ * {@link #synchronize()}, which the test catalog runs before every rebuild: at startup, after
+ * committed content changes and periodically, so sections ingested directly via SQL are picked
+ * up as well. Lookups that miss the snapshot fall back to the database. The returned entities
+ * are shared and must be treated as read-only.
+ */
+@Service
+public class ExamTestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExamTestService.class);
+
+    private final ExamTestRepository examTestRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of());
+
+    public ExamTestService(ExamTestRepository examTestRepository) {
+        this.examTestRepository = examTestRepository;
+    }
+
+    /**
+     * Find the test of a natural key.
+     *
+     * @return the test, or empty if no section or attempt ever referenced it
+     */
+    public Optional<ExamTest> findTest(String examSource, Integer testNumber, String skill) {
+        if (examSource == null || testNumber == null || skill == null) {
+            return Optional.empty();
+        }
+        ExamTest test = snapshot.byKey().get(new TestKey(examSource, testNumber, skill));
+        if (test != null) {
+            return Optional.of(test);
+        }
+        return examTestRepository.findByExamSourceAndTestNumberAndSkill(examSource, testNumber, skill);
+    }
+
+    public Optional<ExamTest> findById(Long testId) {
+        if (testId == null) {
+            return Optional.empty();
+        }
+        ExamTest test = snapshot.byId().get(testId);
+        return test != null ? Optional.of(test) : examTestRepository.findById(testId);
+    }
+
+    /**
+     * @return the number of questions of the test (0 if the test is unknown)
+     */
+    public int getQuestionCount(Long testId) {
+        return findById(testId).map(ExamTest::getQuestionCount).orElse(0);
+    }
+
+    /**
+     * Find the test of a natural key, creating it (without questions) if it does not exist yet.
+     * Used when a section is created or moved to another test.
+     */
+    @Transactional
+    public ExamTest getOrCreate(String examSource, Integer testNumber, String skill) {
+        Optional<ExamTest> existing = findTest(examSource, testNumber, skill);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        examTestRepository.insertIfMissing(examSource, testNumber, skill);
+        return examTestRepository.findByExamSourceAndTestNumberAndSkill(examSource, testNumber, skill)
+                .orElseThrow(() -> new IllegalStateException("Test " + examSource + "-T" + testNumber + "-" + skill + " was not created"));
+    }
+
+    /**
+     * Bring the tests table in line with the sections: create tests for new (examSource,
+     * testNumber, skill) keys, link every section to its test and recompute the counts. Then
+     * reload the in-memory snapshot. Runs in its own transaction, as it is also called from
+     * after-commit listeners.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void synchronize() {
+        int created = examTestRepository.insertMissingFromSections();
+        int linked = examTestRepository.linkSections();
+        int recounted = examTestRepository.refreshCounts();
+        if (created > 0 || linked > 0 || recounted > 0) {
+            logger.info("Tests synchronized: {} created, {} sections linked, {} recounted", created, linked, recounted);
+        }
+        reload(examTestRepository.findAll());
+    }
+
+    private void reload(List<ExamTest> tests) {
+        Map<TestKey, ExamTest> byKey = new HashMap<>();
+        Map<Long, ExamTest> byId = new HashMap<>();
+        for (ExamTest test : tests) {
+            byKey.put(new TestKey(test.getExamSource(), test.getTestNumber(), test.getSkill()), test);
+            byId.put(test.getId(), test);
+        }
+        snapshot = new Snapshot(Map.copyOf(byKey), Map.copyOf(byId));
+    }
+
+    private record TestKey(String examSource, Integer testNumber, String skill) {
+    }
+
+    private record Snapshot(Map<TestKey, ExamTest> byKey, Map<Long, ExamTest> byId) {
+    }
+}
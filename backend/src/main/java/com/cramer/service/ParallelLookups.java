@@ -0,0 +1,189 @@
+package com.cramer.service;
+
+import com.cramer.exception.DeadlineExceededException;
+import com.cramer.util.MetricsSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent read-only lookups of a request concurrently on virtual threads.
+ * <p>
+ * A {@link Scope} follows the shape of structured concurrency (fork, join, close): all subtasks
+ * share one deadline, the first failure cancels the remaining ones, and closing the scope cancels
+ * anything still running. Database work wrapped in {@link Scope#withConnection} draws from a shared
+ * budget of {@code cramer.lookups.max-connections} permits, so concurrent dashboards cannot take
+ * more than that share of the connection pool.
+ */
+@Component
+public class ParallelLookups implements MetricsSource {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore connectionBudget;
+    private final int maxConnections;
+    private final long deadlineMillis;
+    private final AtomicLong scopes = new AtomicLong();
+    private final AtomicLong subtasks = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong deadlinesExceeded = new AtomicLong();
+
+    public ParallelLookups(@Value("${cramer.lookups.max-connections:4}") int maxConnections,
+                           @Value("${cramer.lookups.deadline-ms:5000}") long deadlineMillis) {
+        this.maxConnections = maxConnections;
+        this.connectionBudget = new Semaphore(maxConnections, true);
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * Open a scope whose deadline starts now.
+     *
+     * @param operation a name for error messages and logs (e.g., "Dashboard summary")
+     */
+    public Scope open(String operation) {
+        scopes.incrementAndGet();
+        return new Scope(operation, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "parallelLookups";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("scopes", scopes.get());
+        metrics.put("subtasks", subtasks.get());
+        metrics.put("failures", failures.get());
+        metrics.put("deadlinesExceeded", deadlinesExceeded.get());
+        metrics.put("maxConnections", maxConnections);
+        metrics.put("connectionsInUse", maxConnections - connectionBudget.availablePermits());
+        metrics.put("waitingForConnection", connectionBudget.getQueueLength());
+        return metrics;
+    }
+
+    /**
+     * A group of subtasks forked by one thread and joined together. Not thread-safe: fork and join
+     * from the owning thread only (a subtask may open a {@link #child()} scope for its own fan-out).
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final String operation;
+        private final long deadlineNanos;
+        private final CompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+        private final List<Future<Object>> futures = new ArrayList<>();
+
+        private Scope(String operation, long deadlineNanos) {
+            this.operation = operation;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Start a subtask. Its result is available from the returned supplier after {@link #join()}.
+         */
+        @SuppressWarnings("unchecked")
+        public <T> Supplier<T> fork(Callable<T> task) {
+            subtasks.incrementAndGet();
+            Future<Object> future = completion.submit((Callable<Object>) task);
+            futures.add(future);
+            return () -> (T) future.resultNow();
+        }
+
+        /**
+         * Wait for all subtasks. Cancels the others and rethrows as soon as one fails.
+         *
+         * @throws DeadlineExceededException if the deadline passes first
+         */
+        public void join() {
+            try {
+                for (int remaining = futures.size(); remaining > 0; remaining--) {
+                    Future<Object> done = completion.poll(remainingNanos(), TimeUnit.NANOSECONDS);
+                    if (done == null) {
+                        deadlinesExceeded.incrementAndGet();
+                        throw new DeadlineExceededException(operation, deadlineMillis);
+                    }
+                    done.get();
+                }
+            } catch (ExecutionException e) {
+                failures.incrementAndGet();
+                cancelAll();
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(operation + " failed: " + cause.getMessage(), cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelAll();
+                throw new IllegalStateException(operation + " was interrupted", e);
+            } catch (RuntimeException e) {
+                cancelAll();
+                throw e;
+            }
+        }
+
+        /**
+         * Run a database lookup under the shared connection budget, waiting for a permit no
+         * longer than the scope's deadline.
+         */
+        public <T> T withConnection(Callable<T> lookup) throws Exception {
+            if (!connectionBudget.tryAcquire(remainingNanos(), TimeUnit.NANOSECONDS)) {
+                deadlinesExceeded.incrementAndGet();
+                throw new DeadlineExceededException(operation, deadlineMillis);
+            }
+            try {
+                return lookup.call();
+            } finally {
+                connectionBudget.release();
+            }
+        }
+
+        /**
+         * Open a nested scope sharing this scope's deadline.
+         */
+        public Scope child() {
+            return new Scope(operation, deadlineNanos);
+        }
+
+        @Override
+        public void close() {
+            cancelAll();
+        }
+
+        private long remainingNanos() {
+            return Math.max(0, deadlineNanos - System.nanoTime());
+        }
+
+        private void cancelAll() {
+            // Running subtasks are not interrupted: interrupting a thread inside a JDBC call closes
+            // the connection's socket. They finish on their own and their results are dropped.
+            for (Future<Object> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+}
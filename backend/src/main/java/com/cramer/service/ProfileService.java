@@ -1,10 +1,12 @@
 package com.cramer.service;
 
 import com.cramer.entity.Profile;
+import com.cramer.event.UserDataChangedEvent;
 import com.cramer.repository.ProfileRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,10 +25,12 @@ public class ProfileService {
     private static final Logger logger = LoggerFactory.getLogger(ProfileService.class);
 
     private final ProfileRepository profileRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public ProfileService(ProfileRepository profileRepository) {
+    public ProfileService(ProfileRepository profileRepository, ApplicationEventPublisher eventPublisher) {
         this.profileRepository = profileRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -101,6 +105,7 @@ public class ProfileService {
         }
         
         Profile savedProfile = profileRepository.save(profile);
+        eventPublisher.publishEvent(new UserDataChangedEvent(savedProfile.getId(), UserDataChangedEvent.Kind.PROFILE));
         logger.info("Profile created successfully with ID: {}", savedProfile.getId());
         return savedProfile;
     }
@@ -132,6 +137,7 @@ public class ProfileService {
         existingProfile.setUsername(updatedProfile.getUsername());
         
         Profile savedProfile = profileRepository.save(existingProfile);
+        eventPublisher.publishEvent(new UserDataChangedEvent(id, UserDataChangedEvent.Kind.PROFILE));
         logger.info("Profile updated successfully: {}", id);
         return savedProfile;
     }
@@ -151,6 +157,7 @@ public class ProfileService {
         }
         
         profileRepository.deleteById(id);
+        eventPublisher.publishEvent(new UserDataChangedEvent(id, UserDataChangedEvent.Kind.PROFILE));
         logger.info("Profile deleted successfully: {}", id);
     }
 
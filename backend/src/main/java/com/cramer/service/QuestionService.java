@@ -1,11 +1,18 @@
 package com.cramer.service;
 
+import com.cramer.dto.QuestionDTO;
 import com.cramer.entity.Question;
+import com.cramer.event.ContentChangedEvent;
+import com.cramer.mapper.TestMapper;
 import com.cramer.repository.QuestionRepository;
+import com.cramer.util.SerializedPayload;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -22,10 +29,17 @@ public class QuestionService {
     private static final Logger logger = LoggerFactory.getLogger(QuestionService.class);
 
     private final QuestionRepository questionRepository;
+    private final TestCatalogService testCatalogService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public QuestionService(QuestionRepository questionRepository) {
+    public QuestionService(QuestionRepository questionRepository, TestCatalogService testCatalogService,
+                           ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher) {
         this.questionRepository = questionRepository;
+        this.testCatalogService = testCatalogService;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -63,6 +77,24 @@ public class QuestionService {
         return questionRepository.findBySectionId(sectionId);
     }
 
+    /**
+     * Get the serialized JSON body of a section's questions, served from the test catalog when loaded.
+     * 
+     * @param sectionId the section ID
+     * @param includeAnswers whether questions carry their correct answers
+     * @return the payload (an empty JSON array for unknown sections)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // catalog hits must not check out a connection
+    public SerializedPayload getQuestionsBySectionPayload(Long sectionId, boolean includeAnswers) {
+        if (testCatalogService.isLoaded()) {
+            return testCatalogService.findSectionQuestionsPayload(sectionId, includeAnswers).orElseThrow();
+        }
+        List<QuestionDTO> questions = questionRepository.findBySectionId(sectionId).stream()
+                .map(q -> TestMapper.toQuestionDTO(q, includeAnswers))
+                .toList();
+        return SerializedPayload.forRequest(objectMapper, questions);
+    }
+
     /**
      * Get question by unique identifier.
      * 
@@ -140,6 +172,7 @@ public class QuestionService {
         }
         
         Question savedQuestion = questionRepository.save(question);
+        eventPublisher.publishEvent(new ContentChangedEvent("Question", savedQuestion.getId()));
         logger.info("Question created successfully with ID: {}", savedQuestion.getId());
         return savedQuestion;
     }
@@ -176,6 +209,7 @@ public class QuestionService {
         existingQuestion.setCorrectAnswer(updatedQuestion.getCorrectAnswer());
         
         Question savedQuestion = questionRepository.save(existingQuestion);
+        eventPublisher.publishEvent(new ContentChangedEvent("Question", id));
         logger.info("Question updated successfully: {}", id);
         return savedQuestion;
     }
@@ -195,6 +229,7 @@ public class QuestionService {
         }
         
         questionRepository.deleteById(id);
+        eventPublisher.publishEvent(new ContentChangedEvent("Question", id));
         logger.info("Question deleted successfully: {}", id);
     }
 
@@ -207,6 +242,7 @@ public class QuestionService {
         logger.info("Deleting all questions in section: {}", sectionId);
         long count = questionRepository.countBySectionId(sectionId);
         questionRepository.deleteBySectionId(sectionId);
+        eventPublisher.publishEvent(new ContentChangedEvent("Section", sectionId));
         logger.info("Deleted {} questions from section {}", count, sectionId);
     }
 
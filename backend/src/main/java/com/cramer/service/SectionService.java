@@ -3,13 +3,18 @@ package com.cramer.service;
 import com.cramer.dto.FullSectionDTO;
 import com.cramer.dto.QuestionDTO;
 import com.cramer.entity.Section;
+import com.cramer.event.ContentChangedEvent;
 import com.cramer.exception.ResourceNotFoundException;
 import com.cramer.repository.SectionRepository;
 import com.cramer.util.EntityMapper;
+import com.cramer.util.SerializedPayload;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -27,12 +32,20 @@ public class SectionService {
     private static final Logger logger = LoggerFactory.getLogger(SectionService.class);
 
     private final SectionRepository sectionRepository;
-    private final QuestionService questionService;
+    private final TestCatalogService testCatalogService;
+    private final ExamTestService examTestService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public SectionService(SectionRepository sectionRepository, QuestionService questionService) {
+    public SectionService(SectionRepository sectionRepository, TestCatalogService testCatalogService,
+                          ExamTestService examTestService, ObjectMapper objectMapper,
+                          ApplicationEventPublisher eventPublisher) {
         this.sectionRepository = sectionRepository;
-        this.questionService = questionService;
+        this.testCatalogService = testCatalogService;
+        this.examTestService = examTestService;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -46,12 +59,12 @@ public class SectionService {
     public FullSectionDTO getFullSectionById(Long id) {
         logger.info("Fetching full section by ID: {}", id);
 
-        // 1. Fetch the section entity
-        Section section = sectionRepository.findById(id)
+        // 1. Fetch the section entity together with its questions (single round trip)
+        Section section = sectionRepository.findWithQuestionsById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Section", "id", id));
 
-        // 2. Fetch the associated questions
-        List<QuestionDTO> questions = questionService.getQuestionsBySectionId(id)
+        // 2. Map the associated questions
+        List<QuestionDTO> questions = section.getQuestions()
                 .stream()
                 .map(EntityMapper::toDTO)
                 .collect(Collectors.toList());
@@ -62,6 +75,27 @@ public class SectionService {
         return fullSectionDTO;
     }
 
+    /**
+     * Get the serialized JSON body of a full section, served from the test catalog when loaded.
+     *
+     * @param id the section ID
+     * @param includeAnswers whether questions carry their correct answers
+     * @return the payload
+     * @throws ResourceNotFoundException if section not found
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // catalog hits must not check out a connection
+    public SerializedPayload getFullSectionPayload(Long id, boolean includeAnswers) {
+        if (testCatalogService.isLoaded()) {
+            return testCatalogService.findFullSectionPayload(id, includeAnswers)
+                    .orElseThrow(() -> new ResourceNotFoundException("Section", "id", id));
+        }
+        FullSectionDTO fullSection = getFullSectionById(id);
+        if (!includeAnswers) {
+            fullSection.getQuestions().forEach(q -> q.setCorrectAnswer(null));
+        }
+        return SerializedPayload.forRequest(objectMapper, fullSection);
+    }
+
     /**
      * Get all sections.
      * 
@@ -172,7 +206,10 @@ public class SectionService {
             throw new IllegalArgumentException("Section already exists with these parameters");
         }
         
+        section.setTestId(examTestService.getOrCreate(
+                section.getExamSource(), section.getTestNumber(), section.getSkill()).getId());
         Section savedSection = sectionRepository.save(section);
+        eventPublisher.publishEvent(new ContentChangedEvent("Section", savedSection.getId()));
         logger.info("Section created successfully with ID: {}", savedSection.getId());
         return savedSection;
     }
@@ -198,10 +235,13 @@ public class SectionService {
         existingSection.setTestNumber(updatedSection.getTestNumber());
         existingSection.setSkill(updatedSection.getSkill());
         existingSection.setPartNumber(updatedSection.getPartNumber());
+        existingSection.setTestId(examTestService.getOrCreate(
+                existingSection.getExamSource(), existingSection.getTestNumber(), existingSection.getSkill()).getId());
         existingSection.setDisplayContentUrl(updatedSection.getDisplayContentUrl());
         existingSection.setPassageText(updatedSection.getPassageText());
         
         Section savedSection = sectionRepository.save(existingSection);
+        eventPublisher.publishEvent(new ContentChangedEvent("Section", id));
         logger.info("Section updated successfully: {}", id);
         return savedSection;
     }
@@ -221,6 +261,7 @@ public class SectionService {
         }
         
         sectionRepository.deleteById(id);
+        eventPublisher.publishEvent(new ContentChangedEvent("Section", id));
         logger.info("Section deleted successfully: {}", id);
     }
 
@@ -1,183 +1,185 @@
 package com.cramer.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 @Service
 public class SupabaseAdminService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SupabaseAdminService.class);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
     private final String baseUrl;
     private final String serviceRoleKey;
-    private final HttpClient httpClient;
+    private final Duration listTimeout;
+    private final SupabaseHttpGateway gateway;
 
     public SupabaseAdminService(@Value("${supabase.url:}") String supabaseUrl,
-                               @Value("${supabase.service-role-key:}") String serviceRoleKey) {
+                               @Value("${supabase.service-role-key:}") String serviceRoleKey,
+                               @Value("${cramer.supabase.http.admin-list-timeout-ms:30000}") long listTimeoutMillis,
+                               SupabaseHttpGateway gateway) {
         this.baseUrl = supabaseUrl == null ? "" : supabaseUrl.trim().replaceAll("/+$", "");
         this.serviceRoleKey = serviceRoleKey == null ? "" : serviceRoleKey.trim();
-        String insecure = System.getenv("SUPABASE_INSECURE_TLS");
-        if (insecure != null && insecure.equalsIgnoreCase("true")) {
-            this.httpClient = createInsecureHttpClient();
-        } else {
-            this.httpClient = HttpClient.newBuilder()
-                    .connectTimeout(Duration.ofSeconds(10))
-                    .build();
-        }
+        this.listTimeout = Duration.ofMillis(listTimeoutMillis);
+        this.gateway = gateway;
     }
 
-    private HttpClient createInsecureHttpClient() {
-        try {
-            javax.net.ssl.TrustManager[] trustAll = new javax.net.ssl.TrustManager[] {
-                    new javax.net.ssl.X509TrustManager() {
-                        public java.security.cert.X509Certificate[] getAcceptedIssuers() { return new java.security.cert.X509Certificate[0]; }
-                        public void checkClientTrusted(java.security.cert.X509Certificate[] certs, String authType) {}
-                        public void checkServerTrusted(java.security.cert.X509Certificate[] certs, String authType) {}
+    /**
+     * GET rows of a table with the service role key, through the gateway's coalescing cache.
+     *
+     * @return the response body, or null if Supabase answered with an error status
+     */
+    public CompletableFuture<String> getTableAsync(String table, String queryString) {
+        URI uri = URI.create(baseUrl + "/" + table + (queryString == null ? "" : queryString));
+        return gateway.getCached("admin.rest.get", uri, serviceHeaders(Map.of("Accept", "application/json")))
+                .thenApply(resp -> {
+                    if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
+                        return resp.body();
                     }
-            };
-            javax.net.ssl.SSLContext sslContext = javax.net.ssl.SSLContext.getInstance("TLS");
-            sslContext.init(null, trustAll, new java.security.SecureRandom());
-            javax.net.ssl.SSLParameters params = sslContext.getDefaultSSLParameters();
-            params.setEndpointIdentificationAlgorithm(null);
-            return HttpClient.newBuilder()
-                    .sslContext(sslContext)
-                    .sslParameters(params)
-                    .connectTimeout(Duration.ofSeconds(10))
-                    .build();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to create insecure HTTP client", e);
-        }
+                    logger.warn("Supabase Admin GET {} failed with status {}: {}", table, resp.statusCode(), resp.body());
+                    return null;
+                });
+    }
+
+    public CompletableFuture<String> postTableAsync(String table, String json) {
+        HttpRequest req = gateway.newRequest(URI.create(baseUrl + "/" + table))
+                .header("apikey", serviceRoleKey)
+                .header("Authorization", "Bearer " + serviceRoleKey)
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return gateway.send("admin.rest.post", req, HttpResponse.BodyHandlers.ofString()).thenApply(HttpResponse::body);
     }
 
     public String getTable(String table, String queryString) {
         try {
-            String path = baseUrl + "/" + table + (queryString == null ? "" : queryString);
-            HttpRequest req = HttpRequest.newBuilder()
-                    .uri(URI.create(path))
-                    .timeout(Duration.ofSeconds(10))
-                    .header("apikey", serviceRoleKey)
-                    .header("Authorization", "Bearer " + serviceRoleKey)
-                    .header("Accept", "application/json")
-                    .GET()
-                    .build();
-
-            HttpResponse<String> resp = httpClient.send(req, HttpResponse.BodyHandlers.ofString());
-            
-            if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
-                return resp.body();
-            } else {
-                System.err.println("Supabase Admin GET request failed with status " + resp.statusCode() + ": " + resp.body());
-                return null;
-            }
-        } catch (IOException | InterruptedException e) {
-            // We should log the exception before re-throwing or wrapping it
-            System.err.println("Exception during Supabase Admin GET request: " + e.getMessage());
-            // Wrapping in a RuntimeException is one option, but returning null might be safer
-            // depending on the desired contract of this method. Let's stick to returning null
-            // to indicate failure, which is consistent with the status code check.
+            return getTableAsync(table, queryString).join();
+        } catch (CompletionException e) {
+            // Returning null signals failure, consistent with the status code check
+            logger.warn("Supabase Admin GET {} failed: {}", table, e.getCause().getMessage());
             return null;
         }
     }
 
     public String postTable(String table, String json) {
         try {
-            String path = baseUrl + "/" + table;
-            HttpRequest req = HttpRequest.newBuilder()
-                    .uri(URI.create(path))
-                    .timeout(Duration.ofSeconds(10))
-                    .header("apikey", serviceRoleKey)
-                    .header("Authorization", "Bearer " + serviceRoleKey)
-                    .header("Accept", "application/json")
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(json))
-                    .build();
-
-            HttpResponse<String> resp = httpClient.send(req, HttpResponse.BodyHandlers.ofString());
-            return resp.body();
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException("Supabase Admin POST failed: " + e.getMessage(), e);
+            return postTableAsync(table, json).join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("Supabase Admin POST failed: " + e.getCause().getMessage(), e.getCause());
         }
     }
 
-    private String callAuthAdminApi(String method, String path, String body) {
-        try {
-            String fullPath = this.baseUrl + "/auth/v1/" + path;
-            HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(URI.create(fullPath))
-                    .timeout(Duration.ofSeconds(10))
-                    .header("apikey", this.serviceRoleKey)
-                    .header("Authorization", "Bearer " + this.serviceRoleKey);
-
-            if ("GET".equalsIgnoreCase(method)) {
-                requestBuilder.GET();
-            } else if ("POST".equalsIgnoreCase(method)) {
-                requestBuilder.header("Content-Type", "application/json");
-                requestBuilder.POST(HttpRequest.BodyPublishers.ofString(body == null ? "" : body));
-            }
+    private Map<String, String> serviceHeaders(Map<String, String> extra) {
+        Map<String, String> headers = new HashMap<>(extra);
+        headers.put("apikey", serviceRoleKey);
+        headers.put("Authorization", "Bearer " + serviceRoleKey);
+        return headers;
+    }
 
-            HttpResponse<String> resp = this.httpClient.send(requestBuilder.build(), HttpResponse.BodyHandlers.ofString());
+    /**
+     * @return true if the Supabase URL and service role key are configured
+     */
+    public boolean isConfigured() {
+        return !baseUrl.isEmpty() && !serviceRoleKey.isEmpty();
+    }
 
-            if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
-                return resp.body();
-            } else {
-                System.err.println("Supabase Auth Admin API request failed with status " + resp.statusCode() + ": " + resp.body());
-                return null;
-            }
-        } catch (Exception e) {
-            System.err.println("Exception during Supabase Auth Admin API request: " + e.getMessage());
-            return null;
-        }
+    /**
+     * A user of Supabase Auth as listed by the admin API (only the fields the backend needs).
+     */
+    public record AuthUser(String id, String email) {
     }
 
-    public boolean checkEmailExists(String email) {
-        if (email == null || email.isBlank()) {
-            return false;
+    /**
+     * Fetch one page of Supabase Auth users ({@code GET /auth/v1/admin/users}) and hand each user
+     * to the consumer. The response is parsed as a stream, so a large page is never held in memory
+     * as a tree; fields other than {@code id} and {@code email} are skipped.
+     *
+     * @param page    the 1-based page number
+     * @param perPage the page size
+     * @return the number of users on the page (fewer than {@code perPage} means it was the last page)
+     * @throws IOException if the request fails or the response cannot be parsed
+     */
+    public int forEachAuthUser(int page, int perPage, Consumer<AuthUser> consumer) throws IOException {
+        if (!isConfigured()) {
+            throw new IOException("Supabase URL or service role key is not configured");
         }
-
-        // WARNING: This is not a scalable solution!
-        // The Supabase Admin API does not support server-side filtering of users by email.
-        // This code fetches all users (up to the default page limit of 50) and checks them in memory.
-        // This will be slow and will fail for user bases larger than 50.
-        // The recommended solution is to create a PostgreSQL RPC function to perform this check in the database.
-        String responseBody = callAuthAdminApi("GET", "admin/users", null);
-
-        if (responseBody == null) {
-            return false; // Error occurred during the HTTP request
+        HttpRequest request = gateway.newRequest(URI.create(this.baseUrl + "/auth/v1/admin/users?page=" + page + "&per_page=" + perPage))
+                .timeout(listTimeout)
+                .header("apikey", this.serviceRoleKey)
+                .header("Authorization", "Bearer " + this.serviceRoleKey)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        HttpResponse<InputStream> response;
+        try {
+            response = gateway.send("auth.admin.users", request, HttpResponse.BodyHandlers.ofInputStream()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while listing auth users", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Listing auth users failed: " + e.getCause().getMessage(), e.getCause());
         }
 
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            // The response is an object like {"users": [...]}
-            JsonNode root = mapper.readTree(responseBody);
-            JsonNode usersNode = root.path("users");
-            
-            if (usersNode.isMissingNode() || !usersNode.isArray()) {
-                return false;
+        try (InputStream body = response.body()) {
+            if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                throw new IOException("Supabase Auth Admin API answered HTTP " + response.statusCode());
             }
+            return parseUsers(body, consumer);
+        }
+    }
 
-            for (JsonNode userNode : usersNode) {
-                JsonNode emailNode = userNode.path("email");
-                if (!emailNode.isMissingNode() && email.equalsIgnoreCase(emailNode.asText())) {
-                    return true; // Found a matching user
+    // Reads {"users": [{"id": ..., "email": ..., ...}, ...], ...} token by token
+    private static int parseUsers(InputStream body, Consumer<AuthUser> consumer) throws IOException {
+        int count = 0;
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected auth users response: expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!"users".equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    String id = null;
+                    String email = null;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String userField = parser.currentName();
+                        JsonToken userValue = parser.nextToken();
+                        if ("id".equals(userField) && userValue == JsonToken.VALUE_STRING) {
+                            id = parser.getText();
+                        } else if ("email".equals(userField) && userValue == JsonToken.VALUE_STRING) {
+                            email = parser.getText();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    consumer.accept(new AuthUser(id, email));
+                    count++;
                 }
             }
-
-            // TODO: Handle pagination if total users > page limit.
-            // The response includes "total", "page", "per_page" fields which can be used to fetch all pages.
-
-            return false; // No user found on the first page
-        } catch (Exception e) {
-            System.err.println("Failed to parse Supabase admin users response: " + responseBody);
-            return false;
         }
+        return count;
     }
 }
@@ -2,9 +2,11 @@ package com.cramer.service;
 
 import com.cramer.dto.TargetDTO;
 import com.cramer.entity.Target;
+import com.cramer.event.UserDataChangedEvent;
 import com.cramer.repository.TargetRepository;
 import com.cramer.util.EntityMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,6 +18,7 @@ import java.util.UUID;
 public class TargetService {
 
     private final TargetRepository targetRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public Optional<TargetDTO> getTargetByUserId(UUID userId) {
@@ -39,6 +42,7 @@ public class TargetService {
                 });
 
         Target savedTarget = targetRepository.save(target);
+        eventPublisher.publishEvent(new UserDataChangedEvent(userId, UserDataChangedEvent.Kind.TARGET));
         return EntityMapper.toDTO(savedTarget);
     }
 }
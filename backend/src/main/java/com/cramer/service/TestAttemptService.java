@@ -1,36 +1,47 @@
 package com.cramer.service;
 
 import com.cramer.dto.AnswerSubmissionDTO;
+import com.cramer.dto.ProgressDeltaDTO;
+import com.cramer.dto.ProgressDeltaResultDTO;
 import com.cramer.dto.SaveProgressDTO;
 import com.cramer.dto.TestResultDTO;
 import com.cramer.dto.TestReviewDTO;
 import com.cramer.dto.UserAnswerDTO;
 import com.cramer.dto.QuestionReviewDTO;
+import com.cramer.entity.ExamTest;
 import com.cramer.entity.Question;
 import com.cramer.entity.TestAttempt;
 import com.cramer.entity.UserAnswer;
+import com.cramer.event.UserDataChangedEvent;
+import com.cramer.grading.AnswerKey;
+import com.cramer.repository.AnswerEventRepository;
 import com.cramer.repository.QuestionRepository;
 import com.cramer.util.IeltsScoreConverter;
 import com.cramer.util.EntityMapper;
 import com.cramer.repository.TestAttemptRepository;
 import com.cramer.repository.UserAnswerRepository;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.cramer.repository.UserAnswerRepositoryCustom;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.cramer.exception.ResourceNotFoundException;
+import com.cramer.exception.StaleProgressException;
 
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -40,20 +51,41 @@ public class TestAttemptService {
     private final TestAttemptRepository testAttemptRepository;
     private final UserAnswerRepository userAnswerRepository;
     private final QuestionRepository questionRepository;
+    private final TestCatalogService testCatalogService;
+    private final ExamTestService examTestService;
+    private final AutosaveBuffer autosaveBuffer;
+    private final UserStatsService userStatsService;
+    private final AnswerArchiveService answerArchiveService;
+    private final AnswerEventRepository answerEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
     private final ObjectMapper objectMapper;
-    
-    @PersistenceContext
-    private EntityManager entityManager;
+    private final boolean autosaveWriteBehind;
 
     @Autowired
     public TestAttemptService(TestAttemptRepository testAttemptRepository,
                               UserAnswerRepository userAnswerRepository,
                               QuestionRepository questionRepository,
-                              ObjectMapper objectMapper) {
+                              TestCatalogService testCatalogService,
+                              ExamTestService examTestService,
+                              AutosaveBuffer autosaveBuffer,
+                              UserStatsService userStatsService,
+                              AnswerArchiveService answerArchiveService,
+                              AnswerEventRepository answerEventRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              ObjectMapper objectMapper,
+                              @Value("${cramer.autosave.write-behind:true}") boolean autosaveWriteBehind) {
         this.testAttemptRepository = testAttemptRepository;
         this.userAnswerRepository = userAnswerRepository;
         this.questionRepository = questionRepository;
+        this.testCatalogService = testCatalogService;
+        this.examTestService = examTestService;
+        this.autosaveBuffer = autosaveBuffer;
+        this.userStatsService = userStatsService;
+        this.answerArchiveService = answerArchiveService;
+        this.answerEventRepository = answerEventRepository;
+        this.eventPublisher = eventPublisher;
         this.objectMapper = objectMapper;
+        this.autosaveWriteBehind = autosaveWriteBehind;
     }
 
     @Transactional
@@ -74,10 +106,18 @@ public class TestAttemptService {
             if (trimmedSource == null || trimmedSource.isEmpty()) throw new IllegalArgumentException("Source cannot be null or empty");
             if (trimmedTestNum == null || trimmedTestNum.isEmpty()) throw new IllegalArgumentException("Test number cannot be null or empty");
             if (trimmedSkill == null || trimmedSkill.isEmpty()) throw new IllegalArgumentException("Skill cannot be null or empty");
+            Integer testNumber;
+            try {
+                testNumber = Integer.valueOf(trimmedTestNum);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Test number must be an integer");
+            }
+            ExamTest test = examTestService.findTest(trimmedSource, testNumber, trimmedSkill)
+                    .orElseThrow(() -> new ResourceNotFoundException("Test not found: " + trimmedSource + "-T" + testNumber + "-" + trimmedSkill));
             
-            logger.info("🎯 [2] Finding latest attempt with: source={}, testNum={}, skill={}", trimmedSource, trimmedTestNum, trimmedSkill);
+            logger.info("🎯 [2] Finding latest attempt with: testId={} ({}-T{}-{})", test.getId(), trimmedSource, testNumber, trimmedSkill);
             Optional<TestAttempt> latestAttemptOpt = testAttemptRepository
-                    .findTopByUserIdAndExamSourceAndTestNumberAndSkillOrderByStartedAtDesc(userId, trimmedSource, trimmedTestNum, trimmedSkill);
+                    .findTopByUserIdAndTestIdOrderByStartedAtDesc(userId, test.getId());
 
             if (latestAttemptOpt.isPresent()) {
                 TestAttempt latestAttempt = latestAttemptOpt.get();
@@ -85,7 +125,7 @@ public class TestAttemptService {
 
                 if ("COMPLETED".equals(latestAttempt.getStatus()) || "CANCELLED".equals(latestAttempt.getStatus())) {
                     logger.info("   -> Status is '{}'. Proceeding to create a new attempt.", latestAttempt.getStatus());
-                    return createNewAttempt(userId, trimmedSource, trimmedTestNum, trimmedSkill, logger);
+                    return createNewAttempt(userId, test, logger);
                 }
                 
                 logger.info("   -> Status is 'IN_PROGRESS'. Resuming this attempt.");
@@ -93,6 +133,7 @@ public class TestAttemptService {
                 TestAttempt detachedAttempt = new TestAttempt();
                 detachedAttempt.setId(latestAttempt.getId());
                 detachedAttempt.setUserId(latestAttempt.getUserId());
+                detachedAttempt.setTestId(latestAttempt.getTestId());
                 detachedAttempt.setExamSource(latestAttempt.getExamSource());
                 detachedAttempt.setTestNumber(latestAttempt.getTestNumber());
                 detachedAttempt.setSkill(latestAttempt.getSkill());
@@ -102,11 +143,17 @@ public class TestAttemptService {
                 detachedAttempt.setCompletedAt(latestAttempt.getCompletedAt());
                 detachedAttempt.setTimeLeft(latestAttempt.getTimeLeft());
                 detachedAttempt.setCurrentPart(latestAttempt.getCurrentPart());
+                detachedAttempt.setProgressSequence(latestAttempt.getProgressSequence());
+                // Autosaves that have not been flushed yet are newer than the row
+                autosaveBuffer.peek(latestAttempt.getId()).ifPresent(pending -> {
+                    if (pending.timeLeft() != null) detachedAttempt.setTimeLeft(pending.timeLeft());
+                    if (pending.currentPart() != null) detachedAttempt.setCurrentPart(pending.currentPart());
+                });
                 logger.info("🎯 [4A] Returning detached copy of attempt ID: {}", detachedAttempt.getId());
                 return detachedAttempt;
             } else {
                 logger.info("🎯 [3B] No existing attempt found. Proceeding to create a new attempt.");
-                return createNewAttempt(userId, trimmedSource, trimmedTestNum, trimmedSkill, logger);
+                return createNewAttempt(userId, test, logger);
             }
         } catch (Exception e) {
             logger.error("❌ [ERROR] Unhandled exception in startOrGetAttempt: userId={}, source={}, testNum={}, skill={}", 
@@ -115,13 +162,14 @@ public class TestAttemptService {
         }
     }
 
-    private TestAttempt createNewAttempt(UUID userId, String source, String testNum, String skill, org.slf4j.Logger logger) {
+    private TestAttempt createNewAttempt(UUID userId, ExamTest test, org.slf4j.Logger logger) {
         logger.info("   -> [Sub-Process] Inside createNewAttempt");
         TestAttempt newAttempt = new TestAttempt();
         newAttempt.setUserId(userId);
-        newAttempt.setExamSource(source);
-        newAttempt.setTestNumber(testNum);
-        newAttempt.setSkill(skill);
+        newAttempt.setTestId(test.getId());
+        newAttempt.setExamSource(test.getExamSource());
+        newAttempt.setTestNumber(test.getTestNumber());
+        newAttempt.setSkill(test.getSkill());
         
         logger.info("   -> Attempt object to be saved: userId={}, source={}, testNum={}, skill={}, status={}", 
             newAttempt.getUserId(), newAttempt.getExamSource(), newAttempt.getTestNumber(), newAttempt.getSkill(), newAttempt.getStatus());
@@ -129,6 +177,7 @@ public class TestAttemptService {
         try {
             TestAttempt savedAttempt = testAttemptRepository.save(newAttempt);
             logger.info("   -> [SUCCESS] Successfully saved new attempt with ID: {}", savedAttempt.getId());
+            publishAttemptsChanged(userId);
             return savedAttempt;
         } catch (Exception e) {
             logger.error("   -> [FATAL] FAILED to save new TestAttempt in repository. Error: {}", e.getMessage(), e);
@@ -136,18 +185,23 @@ public class TestAttemptService {
         }
     }
 
-    private TestAttempt createNewAttempt(UUID userId, String source, String testNum, String skill) {
-        final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestAttemptService.class);
-        return createNewAttempt(userId, source, testNum, skill, logger);
-    }
-
+    /**
+     * Save the full progress of an attempt (buffered when write-behind is enabled).
+     * <p>
+     * A save may carry a sequence number from the same per-attempt counter as the deltas: a save
+     * whose sequence was already applied or buffered is acknowledged without changes, and an older
+     * one is rejected, so a stale full answers map cannot overwrite newer progress.
+     */
     @Transactional
     public void saveProgress(Long attemptId, SaveProgressDTO saveProgressDTO, UUID userId) {
         final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestAttemptService.class);
         logger.info("🔄 Saving progress for attempt: attemptId={}, userId={}", attemptId, userId);
 
-        TestAttempt attempt = testAttemptRepository.findById(attemptId)
-                .orElseThrow(() -> new ResourceNotFoundException("TestAttempt not found"));
+        // Buffered saves are ordered by the buffer; a direct write locks the row like every other writer
+        Optional<TestAttempt> found = autosaveWriteBehind
+                ? testAttemptRepository.findById(attemptId)
+                : testAttemptRepository.findAndLockById(attemptId);
+        TestAttempt attempt = found.orElseThrow(() -> new ResourceNotFoundException("TestAttempt not found"));
         
         if (!attempt.getUserId().equals(userId)) {
             throw new AccessDeniedException("User does not have permission to update this attempt.");
@@ -157,50 +211,186 @@ public class TestAttemptService {
             throw new IllegalStateException("Cannot save progress for completed or cancelled test.");
         }
 
+        Long sequence = saveProgressDTO.getSequence();
+        if (sequence != null) {
+            if (sequence < 1) {
+                throw new IllegalArgumentException("Sequence must be greater than 0");
+            }
+            long lastApplied = attempt.getProgressSequence() != null ? attempt.getProgressSequence() : 0L;
+            if (sequence == lastApplied) {
+                logger.info("   -> Progress {} already applied, nothing to do.", sequence);
+                return;
+            }
+            if (sequence < lastApplied) {
+                throw new StaleProgressException(attemptId, sequence, lastApplied);
+            }
+        }
+
+        AutosaveBuffer.PendingProgress progress = new AutosaveBuffer.PendingProgress(
+                attemptId, userId, saveProgressDTO.getTimeLeft(), saveProgressDTO.getCurrentPart(),
+                saveProgressDTO.getAnswers() != null && !saveProgressDTO.getAnswers().isEmpty() ? saveProgressDTO.getAnswers() : null,
+                sequence);
+
+        if (progress.answers() != null) {
+            // Reject unknown questions now rather than when the buffer is flushed
+            AnswerKey answerKey = answerKeyFor(attempt, progress.answers().keySet());
+            for (Long questionId : progress.answers().keySet()) {
+                if (!answerKey.contains(questionId)) {
+                    throw new ResourceNotFoundException("Question not found with id: " + questionId);
+                }
+            }
+        }
+
+        if (autosaveWriteBehind) {
+            if (!autosaveBuffer.put(progress)) {
+                long buffered = autosaveBuffer.peek(attemptId).map(AutosaveBuffer.PendingProgress::sequence).orElse(sequence);
+                if (sequence == buffered) {
+                    logger.info("   -> Progress {} already buffered, nothing to do.", sequence);
+                    return;
+                }
+                throw new StaleProgressException(attemptId, sequence, buffered);
+            }
+            logger.info("✅ Buffered progress for attempt: attemptId={} ({} attempts buffered)", attemptId, autosaveBuffer.size());
+            return;
+        }
+
+        applyProgress(attempt, progress, logger);
+        logger.info("✅ Successfully saved progress for attempt: attemptId={}", attemptId);
+    }
+
+    /**
+     * Write buffered autosave progress to the database (called by the {@link AutosaveFlusher}).
+     * Progress for attempts that were submitted, cancelled or deleted in the meantime is dropped,
+     * as is progress that a request took out of the buffer while it was being flushed (that
+     * request already applied it, merged with anything newer, or superseded it).
+     */
+    @Transactional
+    public void applyProgress(AutosaveBuffer.PendingProgress progress) {
+        final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestAttemptService.class);
+        Optional<TestAttempt> attempt = testAttemptRepository.findAndLockById(progress.attemptId());
+        if (attempt.isEmpty() || !"IN_PROGRESS".equals(attempt.get().getStatus())) {
+            logger.info("   -> Dropping buffered progress for attempt {} (no longer in progress)", progress.attemptId());
+            return;
+        }
+        // Checked under the row lock: every request that takes buffered progress holds it as well
+        if (!autosaveBuffer.isInFlight(progress)) {
+            logger.info("   -> Dropping buffered progress for attempt {} (taken by a request meanwhile)", progress.attemptId());
+            return;
+        }
+        Long lastApplied = attempt.get().getProgressSequence();
+        if (progress.sequence() != null && lastApplied != null && progress.sequence() <= lastApplied) {
+            logger.info("   -> Dropping buffered progress {} for attempt {} (progress {} already applied)",
+                    progress.sequence(), progress.attemptId(), lastApplied);
+            return;
+        }
+        applyProgress(attempt.get(), progress, logger);
+    }
+
+    private void applyProgress(TestAttempt attempt, AutosaveBuffer.PendingProgress progress, org.slf4j.Logger logger) {
         // Update time and part
-        if (saveProgressDTO.getTimeLeft() != null) attempt.setTimeLeft(saveProgressDTO.getTimeLeft());
-        if (saveProgressDTO.getCurrentPart() != null) attempt.setCurrentPart(saveProgressDTO.getCurrentPart());
-        
+        if (progress.timeLeft() != null) attempt.setTimeLeft(progress.timeLeft());
+        if (progress.currentPart() != null) attempt.setCurrentPart(progress.currentPart());
+        if (progress.sequence() != null) attempt.setProgressSequence(progress.sequence());
+
         // Save answers
-        if (saveProgressDTO.getAnswers() != null && !saveProgressDTO.getAnswers().isEmpty()) {
-            logger.info("   -> Saving {} answers for attempt {}", saveProgressDTO.getAnswers().size(), attemptId);
-            // Delete existing answers for this attempt to handle un-selected options
-            userAnswerRepository.deleteByAttemptId(attemptId);
-            entityManager.flush(); // Ensure delete happens before new inserts
-
-            List<UserAnswer> userAnswers = new ArrayList<>();
-            for (Map.Entry<Long, String> entry : saveProgressDTO.getAnswers().entrySet()) {
+        if (progress.answers() != null) {
+            logger.info("   -> Saving {} answers for attempt {}", progress.answers().size(), attempt.getId());
+            // isCorrect is not set here, as it's an in-progress save, not a submission
+            AnswerSync sync = syncAnswers(attempt, progress.answers(), answerKeyFor(attempt, progress.answers().keySet()), false);
+            logger.info("   -> Upserted {} changed answers, deleted {} cleared answers ({} unchanged).",
+                    sync.written(), sync.deleted(), sync.unchanged());
+        } else {
+            logger.info("   -> No answers provided or answers map is empty. Skipping answer save.");
+        }
+
+        testAttemptRepository.save(attempt);
+        publishAttemptsChanged(attempt.getUserId());
+    }
+
+    /**
+     * Apply an incremental autosave (only the changed and cleared answers) to an attempt.
+     * <p>
+     * Deltas carry a per-attempt sequence number and must directly follow the last applied (or
+     * buffered) save. A delta at or below it was already applied, or is covered by a later full
+     * save, and is acknowledged without changes, so retries are safe. A delta further ahead is
+     * rejected because one in between is missing; the client then sends a full save. The attempt
+     * row is locked while the delta is applied.
+     *
+     * @return the last applied sequence number
+     */
+    @Transactional
+    public ProgressDeltaResultDTO applyProgressDelta(Long attemptId, ProgressDeltaDTO delta, UUID userId) {
+        final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestAttemptService.class);
+        logger.info("🔄 Applying progress delta for attempt: attemptId={}, userId={}, sequence={}",
+                attemptId, userId, delta.getSequence());
+
+        if (delta.getSequence() == null || delta.getSequence() < 1) {
+            throw new IllegalArgumentException("Sequence must be greater than 0");
+        }
+
+        TestAttempt attempt = testAttemptRepository.findAndLockById(attemptId)
+                .orElseThrow(() -> new ResourceNotFoundException("TestAttempt not found with id: " + attemptId));
+
+        if (!attempt.getUserId().equals(userId)) {
+            throw new AccessDeniedException("User does not have permission to update this attempt.");
+        }
+
+        if (!"IN_PROGRESS".equals(attempt.getStatus())) {
+            throw new IllegalStateException("Cannot save progress for completed or cancelled test.");
+        }
+
+        long sequence = delta.getSequence();
+        long lastApplied = Math.max(attempt.getProgressSequence() != null ? attempt.getProgressSequence() : 0L,
+                autosaveBuffer.peek(attemptId).map(AutosaveBuffer.PendingProgress::sequence).orElse(0L));
+        if (sequence <= lastApplied) {
+            logger.info("   -> Delta {} already applied (last applied: {}), nothing to do.", sequence, lastApplied);
+            return new ProgressDeltaResultDTO(attemptId, lastApplied, true);
+        }
+        if (sequence > lastApplied + 1) {
+            throw new StaleProgressException(attemptId, sequence, lastApplied);
+        }
+
+        // A buffered full autosave is older than this delta: write it first so it cannot overwrite the delta later
+        Optional<AutosaveBuffer.PendingProgress> pending = autosaveBuffer.take(attemptId);
+        if (pending.isPresent()) {
+            applyProgress(attempt, pending.get(), logger);
+        }
+
+        AnswerKey answerKey = answerKeyFor(attempt, delta.getChanged() != null ? delta.getChanged().keySet() : Set.of());
+        List<UserAnswerRepositoryCustom.AnswerRow> changed = new ArrayList<>();
+        Set<Long> cleared = new HashSet<>();
+        if (delta.getCleared() != null) {
+            cleared.addAll(delta.getCleared());
+        }
+        if (delta.getChanged() != null) {
+            for (Map.Entry<Long, String> entry : delta.getChanged().entrySet()) {
                 Long questionId = entry.getKey();
                 String answerText = entry.getValue();
-
+                if (!answerKey.contains(questionId)) {
+                    throw new ResourceNotFoundException("Question not found with id: " + questionId);
+                }
                 if (answerText == null || answerText.trim().isEmpty()) {
-                    continue; // Skip empty answers
+                    cleared.add(questionId); // An emptied answer is a cleared answer
+                    continue;
                 }
-
-                Question question = questionRepository.findById(questionId)
-                        .orElseThrow(() -> new ResourceNotFoundException("Question not found with id: " + questionId));
-                
-                // Adapt the String answer to a JsonNode to maintain compatibility with downstream logic
+                cleared.remove(questionId);
                 ObjectNode answerNode = objectMapper.createObjectNode();
                 answerNode.put("value", answerText);
-
-                UserAnswer userAnswer = new UserAnswer();
-                userAnswer.setUserId(userId);
-                userAnswer.setAttempt(attempt);
-                userAnswer.setQuestion(question);
-                userAnswer.setAnswerContent(answerNode);
-                userAnswer.setUserAnswer(answerText);
-                // isCorrect is not set here, as it's an in-progress save, not a submission
-                userAnswers.add(userAnswer);
+                changed.add(new UserAnswerRepositoryCustom.AnswerRow(questionId, answerText, answerNode.toString(), null));
             }
-            userAnswerRepository.saveAll(userAnswers);
-            logger.info("   -> Successfully saved {} user answers.", userAnswers.size());
-        } else {
-            logger.info("   -> No answers provided or answers map is empty. Skipping answer save.");
         }
 
+        int written = userAnswerRepository.upsertAnswers(attemptId, userId, changed);
+        int deleted = cleared.isEmpty() ? 0 : userAnswerRepository.deleteByAttemptIdAndQuestionIds(userId, attemptId, cleared);
+
+        if (delta.getTimeLeft() != null) attempt.setTimeLeft(delta.getTimeLeft());
+        if (delta.getCurrentPart() != null) attempt.setCurrentPart(delta.getCurrentPart());
+        attempt.setProgressSequence(sequence);
         testAttemptRepository.save(attempt);
-        logger.info("✅ Successfully saved progress for attempt: attemptId={}", attemptId);
+        publishAttemptsChanged(userId);
+
+        logger.info("✅ Applied delta {} for attempt {}: {} answers written, {} cleared", sequence, attemptId, written, deleted);
+        return new ProgressDeltaResultDTO(attemptId, sequence, false);
     }
 
     @Transactional
@@ -209,7 +399,7 @@ public class TestAttemptService {
         logger.info("📝 Submitting test attempt: attemptId={}, userId={}, answersCount={}", 
                     testAttemptId, userId, answers != null ? answers.size() : 0);
         
-        TestAttempt testAttempt = testAttemptRepository.findById(testAttemptId)
+        TestAttempt testAttempt = testAttemptRepository.findAndLockById(testAttemptId)
                 .orElseThrow(() -> new ResourceNotFoundException("TestAttempt not found with id: " + testAttemptId));
 
         // Verify ownership
@@ -217,111 +407,125 @@ public class TestAttemptService {
             throw new AccessDeniedException("User does not have permission to submit this test attempt.");
         }
 
-        // Allow re-submission by deleting old answers
-        long startDelete = System.currentTimeMillis();
-        userAnswerRepository.deleteByAttemptId(testAttemptId);
-        entityManager.flush(); // Force delete to execute immediately before insert
-        long deleteTime = System.currentTimeMillis() - startDelete;
-        logger.info("🗑️ Deleted old answers in {}ms", deleteTime);
-
-        List<UserAnswer> userAnswers = new ArrayList<>();
-        int correctCount = 0;
-
-        long startGrading = System.currentTimeMillis();
-        if (answers != null) {
-            for (Map.Entry<Long, String> entry : answers.entrySet()) {
-                Long questionId = entry.getKey();
-                String answerText = entry.getValue();
-
-                if (answerText == null || answerText.trim().isEmpty()) {
-                    continue; // Skip unanswered questions
-                }
-                
-                Question question = questionRepository.findById(questionId)
-                        .orElseThrow(() -> new ResourceNotFoundException("Question not found with id: " + questionId));
-
-                // Adapt the String answer to a JsonNode to maintain compatibility with downstream logic
-                ObjectNode answerNode = objectMapper.createObjectNode();
-                answerNode.put("value", answerText);
+        // The submitted answers supersede any buffered autosave; fall back to it if none were sent
+        Optional<AutosaveBuffer.PendingProgress> pending = autosaveBuffer.take(testAttemptId);
+        if ((answers == null || answers.isEmpty()) && pending.isPresent() && pending.get().answers() != null) {
+            logger.info("   -> No answers in submission, using {} buffered answers", pending.get().answers().size());
+            answers = pending.get().answers();
+        }
 
-                boolean isCorrect = compareAnswers(answerNode, question.getCorrectAnswer());
+        // Answers of an old attempt may have been archived; bring them back before they are compared and rewritten
+        answerArchiveService.restore(testAttempt);
 
-                UserAnswer userAnswer = new UserAnswer();
-                userAnswer.setUserId(userId);
-                userAnswer.setAttempt(testAttempt);
-                userAnswer.setQuestion(question);
-                userAnswer.setAnswerContent(answerNode);
-                userAnswer.setUserAnswer(answerText); // Set the plain text value
-                userAnswer.setCorrect(isCorrect);
-                userAnswers.add(userAnswer);
+        // On re-submission, remember what the previous submission contributed to the user's statistics
+        List<UserAnswerRepository.TypeAnswerCounts> previousContribution = "COMPLETED".equals(testAttempt.getStatus())
+                ? userStatsService.captureContribution(userId, testAttemptId)
+                : null;
 
-                if (isCorrect) {
-                    correctCount++;
-                }
-            }
-        }
-        long gradingTime = System.currentTimeMillis() - startGrading;
-        logger.info("✅ Graded {} answers in {}ms", answers != null ? answers.size() : 0, gradingTime);
-
-        long startSave = System.currentTimeMillis();
-        userAnswerRepository.saveAll(userAnswers);
-        long saveTime = System.currentTimeMillis() - startSave;
-        logger.info("💾 Saved {} answers in {}ms", userAnswers.size(), saveTime);
+        // Allow re-submission: only answers that changed are rewritten, cleared ones are deleted
+        AnswerKey answerKey = answerKeyFor(testAttempt, answers != null ? answers.keySet() : Set.of());
+        long startSync = System.currentTimeMillis();
+        AnswerSync sync = syncAnswers(testAttempt, answers != null ? answers : Map.of(), answerKey, true);
+        long syncTime = System.currentTimeMillis() - startSync;
+        logger.info("💾 Graded and saved answers in {}ms: {} written, {} deleted, {} unchanged",
+                    syncTime, sync.written(), sync.deleted(), sync.unchanged());
+        int correctCount = sync.correctCount();
 
         testAttempt.setStatus("COMPLETED");
         testAttempt.setCompletedAt(OffsetDateTime.now());
         testAttempt.setScore(correctCount);
         
         long startUpdateAttempt = System.currentTimeMillis();
-        testAttemptRepository.save(testAttempt);
+        testAttemptRepository.saveAndFlush(testAttempt);
         long updateTime = System.currentTimeMillis() - startUpdateAttempt;
         logger.info("🔄 Updated test attempt in {}ms", updateTime);
 
-        long startCountQuestions = System.currentTimeMillis();
-        int totalQuestions = questionRepository.countBySection_ExamSourceAndSection_TestNumberAndSection_Skill(
-            testAttempt.getExamSource(),
-            Integer.valueOf(testAttempt.getTestNumber()),
-            testAttempt.getSkill()
-        );
-        long countTime = System.currentTimeMillis() - startCountQuestions;
-        logger.info("🔢 Counted total questions in {}ms", countTime);
+        userStatsService.recordSubmission(userId, testAttemptId, previousContribution);
+        publishAttemptsChanged(userId);
+
+        int totalQuestions = answerKey.getTotalQuestions();
 
         logger.info("🎉 Test submission completed: score={}/{}", correctCount, totalQuestions);
         return new TestResultDTO(testAttempt.getId(), correctCount, totalQuestions, testAttempt.getStatus());
     }
 
-    private boolean compareAnswers(JsonNode userAnswer, JsonNode correctAnswer) {
-        if (userAnswer == null || userAnswer.get("value") == null || userAnswer.get("value").isNull() || correctAnswer == null) {
-            return false;
-        }
-
-        String userText = userAnswer.get("value").asText()
-                .replace("_", " ")
-                .trim()
-                .toLowerCase();
-
-        // Handle cases where the correct answer is a JSON array (e.g., ["answer1", "answer2"])
-        if (correctAnswer.isArray()) {
-            for (JsonNode correctNode : correctAnswer) {
-                String correctText = correctNode.asText()
-                        .replace("_", " ")
-                        .trim()
-                        .toLowerCase();
-                if (correctText.equals(userText)) {
-                    return true;
-                }
+    /**
+     * Bring the stored answers of an attempt in line with the submitted answers map.
+     * <p>
+     * Compares against the current rows and writes only the difference: new or changed answers
+     * are upserted in one batch (unchanged rows are not rewritten) and answers that are no longer
+     * present, or were cleared, are deleted in one statement.
+     *
+     * @param attempt   the attempt being saved
+     * @param answers   the complete answers map (questionId -> answer text) from the client
+     * @param answerKey the answer key of the attempt's test
+     * @param grade     whether to grade the answers (submission) or store them ungraded (autosave)
+     */
+    private AnswerSync syncAnswers(TestAttempt attempt, Map<Long, String> answers, AnswerKey answerKey, boolean grade) {
+        Map<Long, UserAnswer> existing = userAnswerRepository.findByUserIdAndAttemptId(attempt.getUserId(), attempt.getId()).stream()
+                .collect(Collectors.toMap(answer -> answer.getQuestion().getId(), answer -> answer));
+
+        List<UserAnswerRepositoryCustom.AnswerRow> changed = new ArrayList<>();
+        Set<Long> answered = new HashSet<>();
+        int correctCount = 0;
+        // Graded as a whole, so "choose TWO" groups do not credit a repeated letter twice
+        Map<Long, Boolean> grades = grade ? answerKey.grade(answers) : Map.of();
+        for (Map.Entry<Long, String> entry : answers.entrySet()) {
+            Long questionId = entry.getKey();
+            String answerText = entry.getValue();
+
+            if (answerText == null || answerText.trim().isEmpty()) {
+                continue; // Skip empty answers (a previously stored answer is deleted below)
             }
-        } else { // Handle cases where the correct answer is a single JSON string (e.g., "answer")
-            String correctText = correctAnswer.asText()
-                    .replace("_", " ")
-                    .trim()
-                    .toLowerCase();
-            if (correctText.equals(userText)) {
-                return true;
+            if (!answerKey.contains(questionId)) {
+                throw new ResourceNotFoundException("Question not found with id: " + questionId);
             }
+            answered.add(questionId);
+
+            Boolean isCorrect = grade ? grades.get(questionId) : null;
+            if (Boolean.TRUE.equals(isCorrect)) {
+                correctCount++;
+            }
+
+            UserAnswer current = existing.get(questionId);
+            if (current != null && Objects.equals(current.getUserAnswer(), answerText)
+                    && Objects.equals(current.getCorrect(), isCorrect)) {
+                continue; // Unchanged, nothing to write
+            }
+            // Adapt the String answer to a JsonNode to maintain compatibility with downstream logic
+            ObjectNode answerNode = objectMapper.createObjectNode();
+            answerNode.put("value", answerText);
+            changed.add(new UserAnswerRepositoryCustom.AnswerRow(questionId, answerText, answerNode.toString(), isCorrect));
         }
 
-        return false;
+        List<Long> cleared = existing.keySet().stream()
+                .filter(questionId -> !answered.contains(questionId))
+                .toList();
+
+        int written = userAnswerRepository.upsertAnswers(attempt.getId(), attempt.getUserId(), changed);
+        int deleted = cleared.isEmpty() ? 0 : userAnswerRepository.deleteByAttemptIdAndQuestionIds(attempt.getUserId(), attempt.getId(), cleared);
+        return new AnswerSync(written, deleted, answered.size() - changed.size(), correctCount);
+    }
+
+    /**
+     * Outcome of {@link #syncAnswers}.
+     */
+    private record AnswerSync(int written, int deleted, int unchanged, int correctCount) {
+    }
+
+    /**
+     * Tell listeners (e.g. the dashboard cache) that the user's attempts changed; delivered after commit.
+     */
+    private void publishAttemptsChanged(UUID userId) {
+        eventPublisher.publishEvent(new UserDataChangedEvent(userId, UserDataChangedEvent.Kind.ATTEMPTS));
+    }
+
+    /**
+     * Resolve the compiled answer key for an attempt's test (served from the test catalog), which
+     * must know the given questions.
+     */
+    private AnswerKey answerKeyFor(TestAttempt attempt, Collection<Long> questionIds) {
+        return testCatalogService.getAnswerKey(attempt.getTestId(), questionIds);
     }
 
     @Transactional(readOnly = true)
@@ -334,17 +538,13 @@ public class TestAttemptService {
             throw new AccessDeniedException("User does not have permission to review this test attempt.");
         }
 
-        // 2. Fetch all user answers for this attempt
-        List<UserAnswer> userAnswers = userAnswerRepository.findByAttemptId(attemptId);
+        // 2. Fetch all user answers for this attempt (live or archived)
+        List<UserAnswer> userAnswers = answerArchiveService.loadAnswers(testAttempt);
         Map<Long, UserAnswer> answersByQuestionId = userAnswers.stream()
                 .collect(Collectors.toMap(answer -> answer.getQuestion().getId(), answer -> answer));
 
         // 3. Fetch all questions for the entire test
-        List<Question> allTestQuestions = questionRepository.findBySection_ExamSourceAndSection_TestNumberAndSection_Skill(
-            testAttempt.getExamSource(),
-            Integer.valueOf(testAttempt.getTestNumber()),
-            testAttempt.getSkill()
-        );
+        List<Question> allTestQuestions = questionRepository.findBySection_TestId(testAttempt.getTestId());
 
         // 4. Build the DTO
         TestReviewDTO reviewDTO = new TestReviewDTO();
@@ -395,7 +595,7 @@ public class TestAttemptService {
         org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestAttemptService.class);
         logger.info("🔄 Cancelling test attempt: attemptId={}, userId={}", attemptId, userId);
 
-        TestAttempt attempt = testAttemptRepository.findById(attemptId)
+        TestAttempt attempt = testAttemptRepository.findAndLockById(attemptId)
                 .orElseThrow(() -> new ResourceNotFoundException("TestAttempt not found with id: " + attemptId));
 
         if (!attempt.getUserId().equals(userId)) {
@@ -406,9 +606,12 @@ public class TestAttemptService {
             throw new IllegalStateException("Only in-progress attempts can be cancelled.");
         }
 
+        autosaveBuffer.take(attemptId);
+
         attempt.setStatus("CANCELLED");
         attempt.setCompletedAt(OffsetDateTime.now()); // Mark completion time as now
         testAttemptRepository.save(attempt);
+        publishAttemptsChanged(userId);
 
         logger.info("✅ Successfully cancelled test attempt: attemptId={}", attemptId);
     }
@@ -418,7 +621,7 @@ public class TestAttemptService {
         final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestAttemptService.class);
         logger.info("🔄 Resuming test attempt: attemptId={}, userId={}", attemptId, userId);
 
-        TestAttempt attempt = testAttemptRepository.findById(attemptId)
+        TestAttempt attempt = testAttemptRepository.findAndLockById(attemptId)
                 .orElseThrow(() -> new ResourceNotFoundException("TestAttempt not found with id: " + attemptId));
 
         if (!attempt.getUserId().equals(userId)) {
@@ -429,9 +632,16 @@ public class TestAttemptService {
             throw new IllegalStateException("Only in-progress attempts can be resumed.");
         }
 
+        // Write any buffered autosave now, so the resumed session starts from the latest state
+        Optional<AutosaveBuffer.PendingProgress> pending = autosaveBuffer.take(attemptId);
+        if (pending.isPresent()) {
+            applyProgress(attempt, pending.get(), logger);
+        }
+
         // By updating the timestamp, this attempt becomes the "latest" one
         attempt.setStartedAt(OffsetDateTime.now());
         testAttemptRepository.save(attempt);
+        publishAttemptsChanged(userId);
 
         logger.info("✅ Successfully marked test attempt {} as latest for resuming.", attemptId);
     }
@@ -448,7 +658,18 @@ public class TestAttemptService {
             throw new AccessDeniedException("User does not have permission to view answers for this attempt.");
         }
 
-        List<UserAnswer> userAnswers = userAnswerRepository.findByAttemptId(attemptId);
+        // Autosaved answers that have not been flushed yet are newer than the stored rows
+        Optional<AutosaveBuffer.PendingProgress> pending = "IN_PROGRESS".equals(attempt.getStatus())
+                ? autosaveBuffer.peek(attemptId)
+                : Optional.empty();
+        if (pending.isPresent() && pending.get().answers() != null) {
+            logger.info("   -> Serving {} buffered answers for attempt {}.", pending.get().answers().size(), attemptId);
+            return bufferedAnswers(attempt, pending.get()).stream()
+                    .map(EntityMapper::toDTO)
+                    .collect(Collectors.toList());
+        }
+
+        List<UserAnswer> userAnswers = answerArchiveService.loadAnswers(attempt);
         logger.info("   -> Found {} answers for attempt {}.", userAnswers.size(), attemptId);
 
         return userAnswers.stream()
@@ -456,24 +677,72 @@ public class TestAttemptService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * The answers an attempt will have once its buffered progress is flushed, as entities shaped
+     * like the rows {@link #syncAnswers} writes: stored rows whose answer did not change are returned
+     * as they are, changed and new answers keep the stored row's id (the upsert updates in place),
+     * are ungraded and carry the time of the autosave.
+     */
+    private List<UserAnswer> bufferedAnswers(TestAttempt attempt, AutosaveBuffer.PendingProgress pending) {
+        Map<Long, UserAnswer> stored = userAnswerRepository.findByUserIdAndAttemptId(attempt.getUserId(), attempt.getId()).stream()
+                .collect(Collectors.toMap(answer -> answer.getQuestion().getId(), answer -> answer));
+        List<UserAnswer> answers = new ArrayList<>();
+        for (Map.Entry<Long, String> entry : pending.answers().entrySet()) {
+            String answerText = entry.getValue();
+            if (answerText == null || answerText.trim().isEmpty()) {
+                continue;
+            }
+            UserAnswer current = stored.get(entry.getKey());
+            if (current != null && Objects.equals(current.getUserAnswer(), answerText) && current.getCorrect() == null) {
+                answers.add(current);
+                continue;
+            }
+            Question question = new Question();
+            question.setId(entry.getKey());
+            ObjectNode answerNode = objectMapper.createObjectNode();
+            answerNode.put("value", answerText);
+            UserAnswer answer = new UserAnswer();
+            answer.setId(current != null ? current.getId() : null);
+            answer.setUserId(attempt.getUserId());
+            answer.setAttempt(attempt);
+            answer.setQuestion(question);
+            answer.setAnswerContent(answerNode);
+            answer.setUserAnswer(answerText);
+            answer.setSubmittedAt(pending.savedAt());
+            answers.add(answer);
+        }
+        return answers;
+    }
+
     @Transactional
     public void deleteAttempt(Long attemptId, UUID userId) {
         final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestAttemptService.class);
         logger.info("🗑️ Deleting test attempt: attemptId={}, userId={}", attemptId, userId);
 
-        TestAttempt attempt = testAttemptRepository.findById(attemptId)
+        TestAttempt attempt = testAttemptRepository.findAndLockById(attemptId)
                 .orElseThrow(() -> new ResourceNotFoundException("TestAttempt not found with id: " + attemptId));
 
         if (!attempt.getUserId().equals(userId)) {
             throw new AccessDeniedException("User does not have permission to delete this attempt.");
         }
 
+        autosaveBuffer.take(attemptId);
+
+        // Reversing the statistics reads the answers, and the archive row references the attempt
+        answerArchiveService.restore(attempt);
+
+        if ("COMPLETED".equals(attempt.getStatus())) {
+            userStatsService.reverseSubmission(userId, attemptId);
+        }
+
         // First, delete all associated UserAnswers to avoid foreign key constraint violations
-        userAnswerRepository.deleteByAttemptId(attemptId);
+        userAnswerRepository.deleteByUserIdAndAttemptId(userId, attemptId);
         logger.info("   -> Deleted all user answers for attemptId={}", attemptId);
+        answerEventRepository.deleteByAttemptId(attemptId);
 
         // Then, delete the TestAttempt itself
         testAttemptRepository.deleteById(attemptId);
+        publishAttemptsChanged(userId);
         logger.info("✅ Successfully deleted test attempt: attemptId={}", attemptId);
     }
 }
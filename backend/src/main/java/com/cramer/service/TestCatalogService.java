@@ -0,0 +1,326 @@
+package com.cramer.service;
+
+import com.cramer.config.ReplicaRoutingDataSource;
+import com.cramer.dto.FullSectionDTO;
+import com.cramer.entity.Question;
+import com.cramer.entity.Section;
+import com.cramer.event.ContentChangedEvent;
+import com.cramer.grading.AnswerKey;
+import com.cramer.mapper.TestMapper;
+import com.cramer.repository.SectionRepository;
+import com.cramer.util.SerializedPayload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory, immutable snapshot of all published exam content.
+ * <p>
+ * The snapshot is keyed by test id (see {@link ExamTestService}) and holds the ready-to-serve
+ * {@link FullSectionDTO} lists (without correct answers), so loading a test costs no
+ * database queries. Alongside the DTOs it keeps pre-serialized, ETag-versioned JSON bodies
+ * for the test, full-section and section-questions endpoints, in both the with-answers and
+ * without-answers variants, each with a gzip copy compressed at build time, and the compiled
+ * {@link AnswerKey} of every test used for grading. It is rebuilt as a whole and swapped in atomically at startup,
+ * periodically to pick up rows ingested directly via SQL, and on a background thread after committed content
+ * changes, which are coalesced so a bulk import costs a few rebuilds rather than one per row.
+ * <p>
+ * The DTOs handed out are shared between requests and must be treated as read-only.
+ */
+@Service
+public class TestCatalogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TestCatalogService.class);
+
+    private final SectionRepository sectionRepository;
+    private final ExamTestService examTestService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long minRefreshIntervalMillis;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "catalog-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicLong lastRefreshStart = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    public TestCatalogService(SectionRepository sectionRepository,
+                              ExamTestService examTestService,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${cramer.catalog.min-refresh-interval-ms:30000}") long minRefreshIntervalMillis) {
+        this.sectionRepository = sectionRepository;
+        this.examTestService = examTestService;
+        this.objectMapper = objectMapper;
+        this.minRefreshIntervalMillis = minRefreshIntervalMillis;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Look up a full test in the catalog.
+     *
+     * @param examSource the exam source (e.g., "cam17")
+     * @param testNumber the test number
+     * @param skill      the skill (e.g., "reading")
+     * @return the sections ordered by part number (empty list if the test does not exist),
+     *         or an empty Optional if the catalog has not been loaded yet
+     */
+    public Optional<List<FullSectionDTO>> findTest(String examSource, Integer testNumber, String skill) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        return Optional.of(examTestService.findTest(examSource, testNumber, skill)
+                .map(test -> current.tests().getOrDefault(test.getId(), List.of()))
+                .orElse(List.of()));
+    }
+
+    /**
+     * Pre-serialized JSON for {@code /api/tests/data} (questions without answers).
+     *
+     * @return the payload, or empty if the test does not exist or the catalog is not loaded
+     */
+    public Optional<SerializedPayload> findTestPayload(String examSource, Integer testNumber, String skill) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        return examTestService.findTest(examSource, testNumber, skill)
+                .map(test -> current.testPayloads().get(test.getId()));
+    }
+
+    /**
+     * Pre-serialized JSON for {@code /api/sections/{id}/full}.
+     *
+     * @return the payload, or empty if the section does not exist or the catalog is not loaded
+     */
+    public Optional<SerializedPayload> findFullSectionPayload(Long sectionId, boolean includeAnswers) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(current.sectionPayloads().get(sectionId))
+                .map(payloads -> payloads.fullSection(includeAnswers));
+    }
+
+    /**
+     * Pre-serialized JSON for {@code /api/questions/section/{sectionId}}. Unknown sections
+     * yield an empty JSON array, matching the database query.
+     *
+     * @return the payload, or empty if the catalog is not loaded
+     */
+    public Optional<SerializedPayload> findSectionQuestionsPayload(Long sectionId, boolean includeAnswers) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        SectionPayloads payloads = current.sectionPayloads().get(sectionId);
+        return Optional.of(payloads != null ? payloads.questions(includeAnswers) : current.emptyList());
+    }
+
+    /**
+     * Get the compiled answer key of a test. Served from the snapshot when loaded; otherwise
+     * compiled from the database for this call only.
+     *
+     * @return the answer key (empty, with zero questions, if the test does not exist)
+     */
+    public AnswerKey getAnswerKey(Long testId) {
+        return getAnswerKey(testId, List.of());
+    }
+
+    /**
+     * Get the compiled answer key of a test that must know the given questions. A test the snapshot
+     * does not know, or a key missing any of the questions, is a miss: content added since the snapshot
+     * was built. The key is then compiled from the database for this call and a rebuild is requested.
+     *
+     * @param questionIds the questions the caller is about to look up
+     * @return the answer key (empty, with zero questions, if the test does not exist)
+     */
+    public AnswerKey getAnswerKey(Long testId, Collection<Long> questionIds) {
+        Snapshot current = snapshot;
+        if (current != null) {
+            AnswerKey key = current.answerKeys().get(testId);
+            if (key != null && questionIds.stream().allMatch(key::contains)) {
+                return key;
+            }
+        }
+        AnswerKey key = compileAnswerKey(testId);
+        if (current != null && key.getTotalQuestions() > 0) {
+            logger.info("Answer key of test {} is missing from the catalog or outdated, requesting a rebuild", testId);
+            requestRefresh();
+        }
+        return key;
+    }
+
+    private AnswerKey compileAnswerKey(Long testId) {
+        List<Question> questions = sectionRepository.findSectionsWithQuestionsByTestId(testId).stream()
+                .flatMap(section -> section.getQuestions().stream())
+                .toList();
+        return AnswerKey.compile(questions);
+    }
+
+    /**
+     * @return true once the first snapshot has been built
+     */
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        refresh();
+    }
+
+    @Scheduled(initialDelayString = "${cramer.catalog.refresh-interval-ms:600000}",
+               fixedDelayString = "${cramer.catalog.refresh-interval-ms:600000}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /**
+     * Mark the catalog outdated and queue one rebuild on the background thread. Requests are coalesced:
+     * while a rebuild is queued, further requests only keep the catalog marked. The queued rebuild
+     * starts no earlier than the minimum interval after the last one started (requests for unknown
+     * tests and bulk content imports must not rebuild on every call), and a request arriving while a
+     * rebuild runs queues the next one, so no change is left out of the catalog.
+     */
+    public void requestRefresh() {
+        dirty.set(true);
+        if (refreshQueued.compareAndSet(false, true)) {
+            long delay = Math.max(0, lastRefreshStart.get() + minRefreshIntervalMillis - System.currentTimeMillis());
+            refresher.schedule(this::refreshIfDirty, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refreshIfDirty() {
+        // Cleared before the rebuild: a request arriving from now on queues the next rebuild
+        refreshQueued.set(false);
+        if (dirty.get()) {
+            refresh();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContentChanged(ContentChangedEvent event) {
+        logger.debug("Content changed ({} id={}), requesting a test catalog rebuild", event.entity(), event.id());
+        requestRefresh();
+    }
+
+    /**
+     * Rebuild the snapshot from the database and swap it in. Failures keep the previous
+     * snapshot in place (or leave the catalog unloaded, in which case callers fall back to the database).
+     */
+    public synchronized void refresh() {
+        lastRefreshStart.set(System.currentTimeMillis());
+        // Changes from now on are not necessarily part of this build and mark the catalog again
+        dirty.set(false);
+        try {
+            // Link new sections to their tests first, so the snapshot can group them by test id
+            examTestService.synchronize();
+        } catch (Exception e) {
+            logger.error("Failed to synchronize tests: {}", e.getMessage(), e);
+        }
+        try {
+            long start = System.currentTimeMillis();
+            // On the primary: a rebuild after a content change must not miss it on a lagging replica
+            Snapshot rebuilt = ReplicaRoutingDataSource.onPrimary(() -> readOnlyTransaction.execute(status -> build()));
+            snapshot = rebuilt;
+            long identityBytes = rebuilt.testPayloads().values().stream().mapToLong(SerializedPayload::size).sum();
+            long gzipBytes = rebuilt.testPayloads().values().stream().mapToLong(SerializedPayload::gzipSize).sum();
+            logger.info("Test catalog built: {} tests, {} sections in {}ms (test payloads: {} bytes identity, {} bytes gzip)",
+                    rebuilt.tests().size(), rebuilt.sectionPayloads().size(), System.currentTimeMillis() - start,
+                    identityBytes, gzipBytes);
+        } catch (Exception e) {
+            logger.error("Failed to build test catalog, keeping previous snapshot: {}", e.getMessage(), e);
+        }
+    }
+
+    private Snapshot build() {
+        List<Section> sections = sectionRepository.findAllWithQuestions();
+
+        Map<Long, SectionPayloads> sectionPayloads = new HashMap<>();
+        for (Section section : sections) {
+            sectionPayloads.put(section.getId(), new SectionPayloads(
+                    serialize(TestMapper.toFullSectionDTO(section, section.getQuestions(), true)),
+                    serialize(TestMapper.toFullSectionDTO(section, section.getQuestions(), false)),
+                    serialize(section.getQuestions().stream().map(q -> TestMapper.toQuestionDTO(q, true)).toList()),
+                    serialize(section.getQuestions().stream().map(q -> TestMapper.toQuestionDTO(q, false)).toList())
+            ));
+        }
+
+        Map<Long, List<Section>> sectionsByTest = sections.stream()
+                .filter(s -> s.getTestId() != null)
+                .collect(Collectors.groupingBy(Section::getTestId));
+
+        Map<Long, List<FullSectionDTO>> tests = new HashMap<>();
+        Map<Long, SerializedPayload> testPayloads = new HashMap<>();
+        Map<Long, AnswerKey> answerKeys = new HashMap<>();
+        for (Map.Entry<Long, List<Section>> entry : sectionsByTest.entrySet()) {
+            List<FullSectionDTO> fullSections = new ArrayList<>();
+            entry.getValue().stream()
+                    .sorted(Comparator.comparing(Section::getPartNumber, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .forEach(section -> fullSections.add(TestMapper.toFullSectionDTO(section, section.getQuestions())));
+            tests.put(entry.getKey(), List.copyOf(fullSections));
+            testPayloads.put(entry.getKey(), serialize(fullSections));
+            answerKeys.put(entry.getKey(), AnswerKey.compile(entry.getValue().stream()
+                    .flatMap(section -> section.getQuestions().stream())
+                    .toList()));
+        }
+        return new Snapshot(Map.copyOf(tests), Map.copyOf(testPayloads), Map.copyOf(sectionPayloads),
+                Map.copyOf(answerKeys), serialize(List.of()), OffsetDateTime.now());
+    }
+
+    private SerializedPayload serialize(Object value) {
+        return SerializedPayload.of(objectMapper, value);
+    }
+
+    private record SectionPayloads(SerializedPayload fullWithAnswers, SerializedPayload fullWithoutAnswers,
+                                   SerializedPayload questionsWithAnswers, SerializedPayload questionsWithoutAnswers) {
+
+        SerializedPayload fullSection(boolean includeAnswers) {
+            return includeAnswers ? fullWithAnswers : fullWithoutAnswers;
+        }
+
+        SerializedPayload questions(boolean includeAnswers) {
+            return includeAnswers ? questionsWithAnswers : questionsWithoutAnswers;
+        }
+    }
+
+    private record Snapshot(Map<Long, List<FullSectionDTO>> tests,
+                            Map<Long, SerializedPayload> testPayloads,
+                            Map<Long, SectionPayloads> sectionPayloads,
+                            Map<Long, AnswerKey> answerKeys,
+                            SerializedPayload emptyList,
+                            OffsetDateTime builtAt) {
+    }
+}
@@ -1,49 +1,55 @@
 package com.cramer.service;
 
 import com.cramer.dto.FullSectionDTO;
-import com.cramer.entity.Question;
 import com.cramer.entity.Section;
 import com.cramer.mapper.TestMapper;
-import com.cramer.repository.QuestionRepository;
 import com.cramer.repository.SectionRepository;
+import com.cramer.util.SerializedPayload;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class TestService {
 
     private final SectionRepository sectionRepository;
-    private final QuestionRepository questionRepository;
+    private final TestCatalogService testCatalogService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public TestService(SectionRepository sectionRepository, QuestionRepository questionRepository) {
+    public TestService(SectionRepository sectionRepository, TestCatalogService testCatalogService,
+                       ObjectMapper objectMapper) {
         this.sectionRepository = sectionRepository;
-        this.questionRepository = questionRepository;
+        this.testCatalogService = testCatalogService;
+        this.objectMapper = objectMapper;
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Get all sections and questions (without answers) for a test.
+     * Deliberately not transactional: the catalog path must not check out a connection,
+     * and the fallback path is a single JOIN FETCH query.
+     */
     public List<FullSectionDTO> getFullTest(String source, Integer testNum, String skill) {
         try {
             // Validate inputs
-            if (source == null || source.trim().isEmpty()) {
-                throw new IllegalArgumentException("Source cannot be null or empty");
-            }
-            if (testNum == null || testNum < 1) {
-                throw new IllegalArgumentException("Test number must be greater than 0");
-            }
-            if (skill == null || skill.trim().isEmpty()) {
-                throw new IllegalArgumentException("Skill cannot be null or empty");
-            }
+            validateTestParams(source, testNum, skill);
             
             org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(TestService.class);
             logger.info("🔍 Fetching test data: source={}, testNum={}, skill={}", source, testNum, skill);
+
+            // 0. Serve from the in-memory catalog when it is loaded (no database round trips)
+            Optional<List<FullSectionDTO>> cached = testCatalogService.findTest(source, testNum, skill);
+            if (cached.isPresent()) {
+                logger.info("📦 Served {} sections from test catalog", cached.get().size());
+                return cached.get();
+            }
             
-            // 1. Fetch all sections (passages) for the given test
-            List<Section> sections = sectionRepository.findSectionsForTest(source, testNum, skill);
+            // 1. Fetch all sections (passages) and their questions for the given test in one round trip
+            List<Section> sections = sectionRepository.findSectionsWithQuestionsForTest(source, testNum, skill);
             logger.info("📋 Found {} sections for test", sections.size());
             
             if (sections.isEmpty()) {
@@ -51,22 +57,10 @@ public class TestService {
                 return List.of();
             }
 
-            // 2. For each section, fetch its questions and map to DTO
-            List<FullSectionDTO> result = sections.stream().map(section -> {
-                try {
-                    logger.info("📝 Processing section id={}, part={}", section.getId(), section.getPartNumber());
-                    
-                    // Fetch questions for the current section
-                    List<Question> questions = questionRepository.findBySectionId(section.getId());
-                    logger.info("   ✓ Found {} questions for section {}", questions.size(), section.getId());
-                    
-                    // Map the section and its questions to a FullSectionDTO
-                    return TestMapper.toFullSectionDTO(section, questions);
-                } catch (Exception e) {
-                    logger.error("❌ Error processing section id={}: {}", section.getId(), e.getMessage(), e);
-                    throw new RuntimeException("Failed to process section " + section.getId(), e);
-                }
-            }).collect(Collectors.toList());
+            // 2. Map each section and its questions to a DTO
+            List<FullSectionDTO> result = sections.stream()
+                    .map(section -> TestMapper.toFullSectionDTO(section, section.getQuestions()))
+                    .collect(Collectors.toList());
             
             logger.info("✅ Successfully built {} section DTOs", result.size());
             return result;
@@ -79,4 +73,30 @@ public class TestService {
             throw new RuntimeException("Failed to fetch test data: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Get the serialized JSON body for a full test (questions without answers).
+     *
+     * @return the payload, or empty if the test does not exist
+     */
+    public Optional<SerializedPayload> getFullTestPayload(String source, Integer testNum, String skill) {
+        validateTestParams(source, testNum, skill);
+        if (testCatalogService.isLoaded()) {
+            return testCatalogService.findTestPayload(source, testNum, skill);
+        }
+        List<FullSectionDTO> fullTest = getFullTest(source, testNum, skill);
+        return fullTest.isEmpty() ? Optional.empty() : Optional.of(SerializedPayload.forRequest(objectMapper, fullTest));
+    }
+
+    private void validateTestParams(String source, Integer testNum, String skill) {
+        if (source == null || source.trim().isEmpty()) {
+            throw new IllegalArgumentException("Source cannot be null or empty");
+        }
+        if (testNum == null || testNum < 1) {
+            throw new IllegalArgumentException("Test number must be greater than 0");
+        }
+        if (skill == null || skill.trim().isEmpty()) {
+            throw new IllegalArgumentException("Skill cannot be null or empty");
+        }
+    }
 }
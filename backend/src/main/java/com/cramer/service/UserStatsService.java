@@ -0,0 +1,221 @@
+package com.cramer.service;
+
+import com.cramer.dto.SkillSummaryDTO;
+import com.cramer.dto.UserStatsDTO;
+import com.cramer.entity.UserSkillStats;
+import com.cramer.entity.UserStats;
+import com.cramer.repository.UserAnswerRepository;
+import com.cramer.repository.UserSkillStatsRepository;
+import com.cramer.repository.UserStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the per-user statistics read model ({@code user_stats} and {@code user_skill_stats}).
+ * <p>
+ * Counters are adjusted in the transaction that submits or deletes an attempt, so reading a
+ * user's statistics is a primary-key lookup regardless of how many answers they have. Users
+ * without a row yet (e.g. from before the read model existed) are rebuilt from their answers
+ * on first access or by the startup backfill.
+ */
+@Service
+public class UserStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserStatsService.class);
+
+    private final UserStatsRepository userStatsRepository;
+    private final UserSkillStatsRepository userSkillStatsRepository;
+    private final UserAnswerRepository userAnswerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean backfillOnStartup;
+
+    public UserStatsService(UserStatsRepository userStatsRepository,
+                            UserSkillStatsRepository userSkillStatsRepository,
+                            UserAnswerRepository userAnswerRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${cramer.stats.backfill-on-startup:false}") boolean backfillOnStartup) {
+        this.userStatsRepository = userStatsRepository;
+        this.userSkillStatsRepository = userSkillStatsRepository;
+        this.userAnswerRepository = userAnswerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backfillOnStartup = backfillOnStartup;
+    }
+
+    /**
+     * Capture what an attempt currently contributes to the statistics, before its answers are
+     * rewritten or deleted.
+     */
+    @Transactional(readOnly = true)
+    public List<UserAnswerRepository.TypeAnswerCounts> captureContribution(UUID userId, Long attemptId) {
+        return userAnswerRepository.countAttemptAnswersByType(userId, attemptId);
+    }
+
+    /**
+     * Count a submitted attempt. Must run in the submitting transaction, after its answers were written.
+     *
+     * @param userId   the owner of the attempt
+     * @param attemptId the submitted attempt
+     * @param previous the attempt's contribution before this submission if it had been submitted
+     *                 before (a re-submission), or null for a first submission
+     */
+    @Transactional
+    public void recordSubmission(UUID userId, Long attemptId, List<UserAnswerRepository.TypeAnswerCounts> previous) {
+        if (!userStatsRepository.existsById(userId)) {
+            // No counters yet: build them from scratch, which already includes this attempt
+            rebuildUser(userId);
+            return;
+        }
+        Map<TypeKey, long[]> delta = new HashMap<>();
+        accumulate(delta, userAnswerRepository.countAttemptAnswersByType(userId, attemptId), 1);
+        if (previous != null) {
+            accumulate(delta, previous, -1);
+        }
+        applyDelta(userId, delta, previous == null ? 1 : 0);
+    }
+
+    /**
+     * Remove a submitted attempt from the statistics. Must run in the deleting transaction,
+     * before its answers are deleted.
+     */
+    @Transactional
+    public void reverseSubmission(UUID userId, Long attemptId) {
+        if (!userStatsRepository.existsById(userId)) {
+            return; // Rebuilt from scratch on first access, which will not see the deleted attempt
+        }
+        Map<TypeKey, long[]> delta = new HashMap<>();
+        accumulate(delta, userAnswerRepository.countAttemptAnswersByType(userId, attemptId), -1);
+        applyDelta(userId, delta, -1);
+    }
+
+    /**
+     * Get a user's overall statistics.
+     */
+    @Transactional
+    public UserStatsDTO getUserStats(UUID userId) {
+        UserStats stats = findOrRebuild(userId);
+        long questionsAnswered = stats.getQuestionsAnswered();
+        long correctAnswers = stats.getCorrectAnswers();
+        double accuracy = questionsAnswered > 0 ? (double) correctAnswers * 100.0 / questionsAnswered : 0.0;
+        return new UserStatsDTO(stats.getTestsCompleted(), questionsAnswered, correctAnswers, accuracy);
+    }
+
+    /**
+     * Get a user's statistics per skill (question types of the same skill are summed up).
+     */
+    @Transactional
+    public List<SkillSummaryDTO> getSkillSummaries(UUID userId) {
+        findOrRebuild(userId);
+        Map<String, long[]> bySkill = new LinkedHashMap<>();
+        for (UserSkillStats row : userSkillStatsRepository.findByUserId(userId)) {
+            long[] counts = bySkill.computeIfAbsent(row.getSkill(), skill -> new long[2]);
+            counts[0] += row.getQuestionsAnswered();
+            counts[1] += row.getCorrectAnswers();
+        }
+        return bySkill.entrySet().stream()
+                .filter(entry -> entry.getValue()[0] > 0)
+                .map(entry -> {
+                    long total = entry.getValue()[0];
+                    long correct = entry.getValue()[1];
+                    double accuracy = (double) correct * 100.0 / total;
+                    return new SkillSummaryDTO(entry.getKey(), total, correct, total - correct, accuracy);
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Recompute a user's counters from their answers. Concurrent rebuilds of the same user (e.g. the
+     * parallel dashboard lookups of a user without statistics) run one after the other.
+     */
+    @Transactional
+    public void rebuildUser(UUID userId) {
+        userStatsRepository.lockForRebuild(userId);
+        userSkillStatsRepository.deleteByUserId(userId);
+        userSkillStatsRepository.rebuildForUser(userId);
+        userStatsRepository.rebuildForUser(userId);
+    }
+
+    /**
+     * Backfill job: rebuild the counters of every user with attempts, one transaction per user.
+     *
+     * @return the number of users rebuilt
+     */
+    public int rebuildAll() {
+        long start = System.currentTimeMillis();
+        List<UUID> userIds = userStatsRepository.findUserIdsWithAttempts();
+        int rebuilt = 0;
+        for (UUID userId : userIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> rebuildUser(userId));
+                rebuilt++;
+            } catch (Exception e) {
+                logger.error("Failed to rebuild statistics for user {}: {}", userId, e.getMessage());
+            }
+        }
+        logger.info("📊 Rebuilt statistics for {}/{} users in {}ms", rebuilt, userIds.size(), System.currentTimeMillis() - start);
+        return rebuilt;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (backfillOnStartup) {
+            rebuildAll();
+        }
+    }
+
+    private UserStats findOrRebuild(UUID userId) {
+        Optional<UserStats> stats = userStatsRepository.findById(userId);
+        if (stats.isPresent()) {
+            return stats.get();
+        }
+        userStatsRepository.lockForRebuild(userId);
+        // Another request may have rebuilt the user while we waited for the lock
+        stats = userStatsRepository.findById(userId);
+        if (stats.isPresent()) {
+            return stats.get();
+        }
+        logger.info("📊 No statistics for user {} yet, rebuilding from answers", userId);
+        rebuildUser(userId);
+        return userStatsRepository.findById(userId).orElseThrow();
+    }
+
+    private void accumulate(Map<TypeKey, long[]> delta, List<UserAnswerRepository.TypeAnswerCounts> rows, int sign) {
+        for (UserAnswerRepository.TypeAnswerCounts row : rows) {
+            long[] counts = delta.computeIfAbsent(new TypeKey(row.getSkill(), row.getQuestionType()), key -> new long[2]);
+            counts[0] += sign * row.getTotal();
+            counts[1] += sign * row.getCorrect();
+        }
+    }
+
+    private void applyDelta(UUID userId, Map<TypeKey, long[]> delta, long testsCompleted) {
+        long answered = 0;
+        long correct = 0;
+        for (Map.Entry<TypeKey, long[]> entry : delta.entrySet()) {
+            long[] counts = entry.getValue();
+            if (counts[0] == 0 && counts[1] == 0) {
+                continue;
+            }
+            userSkillStatsRepository.addToCounters(userId, entry.getKey().skill(), entry.getKey().questionType(), counts[0], counts[1]);
+            answered += counts[0];
+            correct += counts[1];
+        }
+        userStatsRepository.addToCounters(userId, answered, correct, testsCompleted);
+    }
+
+    private record TypeKey(String skill, String questionType) {
+    }
+}
@@ -0,0 +1,190 @@
+package com.cramer.util;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.Key;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory copy of the public signing keys (RS256/ES256) published at the Supabase JWKS endpoint
+ * ({@code supabase.jwt.jwks-url}), keyed by {@code kid}.
+ * <p>
+ * Keys are never fetched on the request path: the set is loaded at startup, refreshed on a
+ * schedule, and a token with an unknown {@code kid} only triggers a background refresh (at most
+ * once per {@code cramer.auth.jwks.min-refresh-interval-ms}) while that token is rejected. A failed
+ * refresh keeps the previous key set. Without a configured URL the set stays empty and only
+ * HMAC-signed tokens are accepted.
+ */
+@Component
+public class JwksKeySet implements MetricsSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwksKeySet.class);
+
+    private final String jwksUrl;
+    private final long minRefreshIntervalMillis;
+    private final HttpClient httpClient;
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "jwks-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private final AtomicLong lastRefreshAttempt = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private final AtomicLong unknownKeyIds = new AtomicLong();
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile Instant loadedAt;
+
+    public JwksKeySet(@Value("${supabase.jwt.jwks-url:}") String jwksUrl,
+                      @Value("${cramer.auth.jwks.min-refresh-interval-ms:30000}") long minRefreshIntervalMillis) {
+        this.jwksUrl = jwksUrl == null ? "" : jwksUrl.trim();
+        this.minRefreshIntervalMillis = minRefreshIntervalMillis;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * @return true if a JWKS endpoint is configured
+     */
+    public boolean isEnabled() {
+        return !jwksUrl.isEmpty();
+    }
+
+    /**
+     * Look up a public key by key ID. An unknown ID schedules a background refresh.
+     *
+     * @return the key, or empty if it is not (yet) in the key set
+     */
+    public Optional<PublicKey> findKey(String keyId) {
+        if (keyId == null) {
+            return Optional.empty();
+        }
+        PublicKey key = keys.get(keyId);
+        if (key == null && isEnabled()) {
+            unknownKeyIds.incrementAndGet();
+            requestRefresh();
+        }
+        return Optional.ofNullable(key);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        if (isEnabled()) {
+            refresh();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${cramer.auth.jwks.refresh-interval-ms:600000}",
+               fixedDelayString = "${cramer.auth.jwks.refresh-interval-ms:600000}")
+    public void scheduledRefresh() {
+        if (isEnabled()) {
+            refresh();
+        }
+    }
+
+    /**
+     * Queue a refresh on the background thread unless one is queued already or the last attempt
+     * was less than the minimum interval ago (protects the endpoint from tokens with bogus key IDs).
+     */
+    public void requestRefresh() {
+        if (System.currentTimeMillis() - lastRefreshAttempt.get() < minRefreshIntervalMillis) {
+            return;
+        }
+        if (refreshQueued.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                try {
+                    refresh();
+                } finally {
+                    refreshQueued.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Fetch the key set and swap it in. Failures keep the previous key set.
+     */
+    public synchronized void refresh() {
+        lastRefreshAttempt.set(System.currentTimeMillis());
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(jwksUrl))
+                    .timeout(Duration.ofSeconds(10))
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("JWKS endpoint answered HTTP " + response.statusCode());
+            }
+            JwkSet jwkSet = Jwks.setParser().build().parse(response.body());
+            Map<String, PublicKey> loaded = new HashMap<>();
+            for (Jwk<?> jwk : jwkSet.getKeys()) {
+                Key key = jwk.toKey();
+                // Only public signature keys are usable; skip symmetric or private entries
+                if (jwk.getId() != null && key instanceof PublicKey publicKey) {
+                    loaded.put(jwk.getId(), publicKey);
+                }
+            }
+            keys = Map.copyOf(loaded);
+            loadedAt = Instant.now();
+            refreshes.incrementAndGet();
+            logger.info("Loaded {} signing keys from JWKS endpoint", loaded.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            refreshFailures.incrementAndGet();
+        } catch (Exception e) {
+            refreshFailures.incrementAndGet();
+            logger.error("Failed to refresh JWKS key set, keeping {} previous keys: {}", keys.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "jwks";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", isEnabled());
+        metrics.put("keys", keys.size());
+        metrics.put("loadedAt", loadedAt != null ? loadedAt.toString() : null);
+        metrics.put("refreshes", refreshes.get());
+        metrics.put("refreshFailures", refreshFailures.get());
+        metrics.put("unknownKeyIds", unknownKeyIds.get());
+        return metrics;
+    }
+}
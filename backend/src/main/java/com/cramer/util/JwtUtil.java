@@ -1,117 +1,215 @@
 package com.cramer.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
-import java.util.function.Function;
-
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies Supabase access tokens: HMAC-signed (HS256) with the shared secret, or asymmetrically
+ * signed (RS256/ES256) with a public key from the JWKS endpoint, looked up by the token's
+ * {@code kid} in the in-memory {@link JwksKeySet}.
+ * <p>
+ * The signing key and parser are built once. A verified token is remembered, keyed by the
+ * SHA-256 of the token, until its {@code exp}, so repeated requests with the same token skip
+ * the signature check and claims parsing. Only successfully verified tokens are cached, and the
+ * cache holds at most {@code cramer.auth.token-cache.max-entries} tokens. Expired tokens are swept
+ * out periodically, and when the cache is full at most once per second, so a cache full of live
+ * tokens does not cost a scan on every miss.
+ */
 @Component
-
-public class JwtUtil {
-
-
+public class JwtUtil implements MetricsSource {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
+    private static final long FULL_CACHE_PURGE_INTERVAL_MILLIS = 1000;
+
+    /**
+     * The identity carried by a verified token.
+     *
+     * @param userId    the subject (Supabase user ID)
+     * @param expiresAt the token's expiration time
+     */
+    public record VerifiedToken(String userId, Instant expiresAt) {
+
+        boolean isExpired(Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
 
+    private final JwtParser parser;
+    private final int maxCachedTokens;
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong verifications = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong purges = new AtomicLong();
+    private final AtomicLong lastPurgeMillis = new AtomicLong();
+
+    public JwtUtil(@Value("${supabase.jwt.secret}") String secret,
+                   @Value("${cramer.auth.token-cache.max-entries:10000}") int maxCachedTokens,
+                   JwksKeySet jwksKeySet) {
+        // The secret key is a plain string, not Base64 encoded, so use its UTF-8 bytes
+        SecretKey hmacKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .keyLocator(new SigningKeyLocator(hmacKey, jwksKeySet))
+                .build();
+        this.maxCachedTokens = maxCachedTokens;
+    }
 
-
-    @Value("${supabase.jwt.secret}")
-
-    private String secret;
-
-
-
-        private SecretKey getSigningKey() {
-
-
-
-            // The secret key is a plain string, not Base64 encoded.
-
-
-
-            // We need to convert it to bytes using UTF-8.
-
-
-
-            return Keys.hmacShaKeyFor(secret.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-
-
-
+    /**
+     * Verify a token's signature and expiration, at most once per distinct token while it is valid.
+     *
+     * @return the token's identity, or empty if the token is invalid, expired or has no subject
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        Instant now = Instant.now();
+        String cacheKey = sha256(token);
+        VerifiedToken cached = verifiedTokens.get(cacheKey);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                cacheHits.incrementAndGet();
+                return Optional.of(cached);
+            }
+            verifiedTokens.remove(cacheKey, cached);
+            rejections.incrementAndGet();
+            return Optional.empty();
         }
 
-
+        verifications.incrementAndGet();
+        Claims claims;
+        try {
+            // Throws if the signature is invalid or the token is expired
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Rejected JWT: {}", e.getMessage());
+            rejections.incrementAndGet();
+            return Optional.empty();
+        }
+        Date expiration = claims.getExpiration();
+        if (claims.getSubject() == null || expiration == null) {
+            rejections.incrementAndGet();
+            return Optional.empty();
+        }
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), expiration.toInstant());
+        if (verified.isExpired(now)) {
+            rejections.incrementAndGet();
+            return Optional.empty();
+        }
+        remember(cacheKey, verified, now);
+        return Optional.of(verified);
+    }
 
     public String extractUserId(String token) {
-
-        return extractClaim(token, Claims::getSubject);
-
+        return verify(token).map(VerifiedToken::userId).orElse(null);
     }
 
-
-
-    public Date extractExpiration(String token) {
-
-        return extractClaim(token, Claims::getExpiration);
-
+    public Boolean validateToken(String token) {
+        return verify(token).isPresent();
     }
 
-
-
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-
-        final Claims claims = extractAllClaims(token);
-
-        return claimsResolver.apply(claims);
-
+    @Override
+    public String getMetricsName() {
+        return "jwt";
     }
 
-
-
-    private Claims extractAllClaims(String token) {
-
-        // Simplifying validation to ONLY check the signature
-
-        return Jwts.parser()
-
-                .verifyWith(getSigningKey())
-
-                .build()
-
-                .parseSignedClaims(token)
-
-                .getPayload();
-
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("cacheHits", cacheHits.get());
+        metrics.put("verifications", verifications.get());
+        metrics.put("rejections", rejections.get());
+        metrics.put("cachedTokens", verifiedTokens.size());
+        metrics.put("purges", purges.get());
+        return metrics;
     }
 
+    /**
+     * Drop expired tokens from the cache.
+     */
+    @Scheduled(fixedDelayString = "${cramer.auth.token-cache.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        purgeExpired(Instant.now());
+    }
 
-
-    private Boolean isTokenExpired(String token) {
-
-        return extractExpiration(token).before(new Date());
-
+    private void purgeExpired(Instant now) {
+        lastPurgeMillis.set(now.toEpochMilli());
+        verifiedTokens.values().removeIf(token -> token.isExpired(now));
+        purges.incrementAndGet();
     }
 
+    private void remember(String cacheKey, VerifiedToken verified, Instant now) {
+        if (verifiedTokens.size() >= maxCachedTokens) {
+            long last = lastPurgeMillis.get();
+            // The scan is O(n): with a cache full of live tokens, repeat it at most once per interval
+            if (now.toEpochMilli() - last >= FULL_CACHE_PURGE_INTERVAL_MILLIS
+                    && lastPurgeMillis.compareAndSet(last, now.toEpochMilli())) {
+                purgeExpired(now);
+            }
+            if (verifiedTokens.size() >= maxCachedTokens) {
+                // Still full of live tokens: skip caching rather than evicting, the token is just verified again next time
+                return;
+            }
+        }
+        verifiedTokens.put(cacheKey, verified);
+    }
 
+    /**
+     * Chooses the verification key from the token header: the shared secret for HS* algorithms,
+     * otherwise the JWKS public key named by {@code kid}. Only in-memory lookups, no I/O.
+     */
+    private static final class SigningKeyLocator extends LocatorAdapter<Key> {
 
+        private final SecretKey hmacKey;
+        private final JwksKeySet jwksKeySet;
 
+        SigningKeyLocator(SecretKey hmacKey, JwksKeySet jwksKeySet) {
+            this.hmacKey = hmacKey;
+            this.jwksKeySet = jwksKeySet;
+        }
 
-    
+        @Override
+        protected Key locate(JwsHeader header) {
+            String algorithm = header.getAlgorithm();
+            if (algorithm != null && algorithm.startsWith("HS")) {
+                return hmacKey;
+            }
+            return jwksKeySet.findKey(header.getKeyId())
+                    .orElseThrow(() -> new UnsupportedJwtException("Unknown signing key id: " + header.getKeyId()));
+        }
+    }
 
-    public Boolean validateToken(String token) {
+    private static String sha256(String token) {
         try {
-            // Jwts.parser will throw an exception if the token is invalid
-            extractAllClaims(token);
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 }
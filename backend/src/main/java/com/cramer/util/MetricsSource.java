@@ -0,0 +1,19 @@
+package com.cramer.util;
+
+import java.util.Map;
+
+/**
+ * A component that exposes runtime counters on {@code GET /api/metrics}.
+ */
+public interface MetricsSource {
+
+    /**
+     * @return the name the metrics are grouped under (e.g., "dashboardCache")
+     */
+    String getMetricsName();
+
+    /**
+     * @return a snapshot of the current metric values
+     */
+    Map<String, Object> getMetrics();
+}
@@ -0,0 +1,165 @@
+package com.cramer.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token-bucket rate limiter with one bucket per (endpoint class, client key).
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding the GCRA "theoretical arrival time", which
+ * is equivalent to a token bucket refilled at {@code per-second} tokens per second holding at most
+ * {@code burst} tokens; a request is admitted with one compare-and-set, without locks. A bucket
+ * whose arrival time lies in the past is full, which is exactly the state of a new bucket, so such
+ * buckets are dropped by a periodic sweep (and when the map exceeds {@code cramer.rate-limit.max-keys})
+ * without changing any limit.
+ */
+@Component
+public class RateLimiter implements MetricsSource {
+
+    /**
+     * Groups of endpoints that share a limit.
+     */
+    public enum LimitClass {
+        AUTOSAVE, DASHBOARD, AUTH, DEFAULT
+    }
+
+    private record Limit(long emissionIntervalNanos, long burstToleranceNanos) {
+
+        static Limit of(double perSecond, int burst) {
+            if (perSecond <= 0 || burst < 1) {
+                throw new IllegalArgumentException("Rate limits need a positive rate and a burst of at least 1");
+            }
+            long interval = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+            return new Limit(interval, interval * burst);
+        }
+    }
+
+    private final boolean enabled;
+    private final int maxKeys;
+    private final Map<LimitClass, Limit> limits = new EnumMap<>(LimitClass.class);
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final AtomicLongArray allowed = new AtomicLongArray(LimitClass.values().length);
+    private final AtomicLongArray rejected = new AtomicLongArray(LimitClass.values().length);
+    private final AtomicLong evictedBuckets = new AtomicLong();
+    private final AtomicLong untracked = new AtomicLong();
+
+    public RateLimiter(@Value("${cramer.rate-limit.enabled:true}") boolean enabled,
+                       @Value("${cramer.rate-limit.max-keys:100000}") int maxKeys,
+                       @Value("${cramer.rate-limit.autosave.per-second:2}") double autosavePerSecond,
+                       @Value("${cramer.rate-limit.autosave.burst:10}") int autosaveBurst,
+                       @Value("${cramer.rate-limit.dashboard.per-second:1}") double dashboardPerSecond,
+                       @Value("${cramer.rate-limit.dashboard.burst:5}") int dashboardBurst,
+                       @Value("${cramer.rate-limit.auth.per-second:0.5}") double authPerSecond,
+                       @Value("${cramer.rate-limit.auth.burst:10}") int authBurst,
+                       @Value("${cramer.rate-limit.default.per-second:20}") double defaultPerSecond,
+                       @Value("${cramer.rate-limit.default.burst:40}") int defaultBurst) {
+        this.enabled = enabled;
+        this.maxKeys = maxKeys;
+        limits.put(LimitClass.AUTOSAVE, Limit.of(autosavePerSecond, autosaveBurst));
+        limits.put(LimitClass.DASHBOARD, Limit.of(dashboardPerSecond, dashboardBurst));
+        limits.put(LimitClass.AUTH, Limit.of(authPerSecond, authBurst));
+        limits.put(LimitClass.DEFAULT, Limit.of(defaultPerSecond, defaultBurst));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Try to admit one request.
+     *
+     * @param limitClass the endpoint class of the request
+     * @param clientKey  who is making the request (e.g., "user:&lt;uuid&gt;" or "ip:&lt;address&gt;")
+     * @return 0 if the request is admitted, otherwise the nanoseconds until it would be
+     */
+    public long tryAcquire(LimitClass limitClass, String clientKey) {
+        Limit limit = limits.get(limitClass);
+        long now = System.nanoTime();
+        AtomicLong bucket = bucketFor(limitClass.name() + '|' + clientKey, now);
+        if (bucket == null) {
+            // The key map is full of active clients: admit rather than fail closed
+            untracked.incrementAndGet();
+            allowed.incrementAndGet(limitClass.ordinal());
+            return 0;
+        }
+        while (true) {
+            long tat = bucket.get();
+            long newTat = Math.max(tat, now) + limit.emissionIntervalNanos();
+            long waitNanos = newTat - now - limit.burstToleranceNanos();
+            if (waitNanos > 0) {
+                rejected.incrementAndGet(limitClass.ordinal());
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                allowed.incrementAndGet(limitClass.ordinal());
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drop buckets that have refilled completely; they are indistinguishable from new ones.
+     */
+    @Scheduled(fixedDelayString = "${cramer.rate-limit.sweep-interval-ms:60000}")
+    public void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            int before = buckets.size();
+            buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+            evictedBuckets.addAndGet(Math.max(0, before - buckets.size()));
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "rateLimiter";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("buckets", buckets.size());
+        metrics.put("evictedBuckets", evictedBuckets.get());
+        metrics.put("untracked", untracked.get());
+        Map<String, Object> byClass = new LinkedHashMap<>();
+        for (LimitClass limitClass : LimitClass.values()) {
+            byClass.put(limitClass.name(), Map.of(
+                    "allowed", allowed.get(limitClass.ordinal()),
+                    "rejected", rejected.get(limitClass.ordinal())));
+        }
+        metrics.put("classes", byClass);
+        return metrics;
+    }
+
+    private AtomicLong bucketFor(String key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            sweep();
+            if (buckets.size() >= maxKeys) {
+                return null;
+            }
+        }
+        // A new bucket starts full: its theoretical arrival time is now
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+    }
+}
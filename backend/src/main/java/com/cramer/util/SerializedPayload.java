@@ -0,0 +1,213 @@
+package com.cramer.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An immutable, fully serialized JSON response body together with its strong ETag.
+ * <p>
+ * Built once when content is published so that serving it is a plain byte copy:
+ * Jackson does not re-walk the (often large) JsonNode trees and passage texts per request,
+ * and clients that already hold the current version get a bodiless 304.
+ * <p>
+ * Payloads built with {@link #of} get a gzip copy compressed once at build time (at the highest
+ * level, since the cost is paid only on publish) and served to clients that accept it, so no
+ * compression work happens per request. Payloads built per request with {@link #forRequest}
+ * (when the catalog is not loaded) are compressed at the default level, and only for clients that
+ * accept gzip.
+ */
+public final class SerializedPayload {
+
+    private final byte[] body;
+    private final String etag;
+    private final String gzipEtag;
+    private final int compressionLevel;
+    private volatile byte[] gzipBody; // null if gzip does not save bytes
+    private volatile boolean gzipComputed;
+
+    private SerializedPayload(byte[] body, int compressionLevel, boolean precompress) {
+        String hash = sha256(body);
+        this.body = body;
+        this.etag = "\"" + hash + "\"";
+        // A different content-coding is a different representation and needs its own strong ETag
+        this.gzipEtag = "\"" + hash + "-gzip\"";
+        this.compressionLevel = compressionLevel;
+        if (precompress) {
+            gzipBody();
+        }
+    }
+
+    /**
+     * Serialize a value with the given mapper (use the application's mapper so the bytes
+     * match what the regular message converters would produce) and precompress it at the
+     * highest level. For payloads that are built once and served many times.
+     */
+    public static SerializedPayload of(ObjectMapper mapper, Object value) {
+        return new SerializedPayload(serialize(mapper, value), Deflater.BEST_COMPRESSION, true);
+    }
+
+    /**
+     * Serialize a value for a single response. The gzip copy is only made, at the default level,
+     * if the response is sent gzip-encoded.
+     */
+    public static SerializedPayload forRequest(ObjectMapper mapper, Object value) {
+        return new SerializedPayload(serialize(mapper, value), Deflater.DEFAULT_COMPRESSION, false);
+    }
+
+    private static byte[] serialize(ObjectMapper mapper, Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("JSON serialization failed: " + e.getMessage(), e);
+        }
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public int size() {
+        return body.length;
+    }
+
+    /**
+     * @return size of the gzip representation, or the identity size if no smaller gzip copy exists
+     */
+    public int gzipSize() {
+        byte[] gzipped = gzipBody();
+        return gzipped != null ? gzipped.length : body.length;
+    }
+
+    /**
+     * Build the HTTP response for this payload, answering 304 Not Modified when the client's
+     * {@code If-None-Match} header already names the current ETag.
+     *
+     * @param ifNoneMatch    the raw If-None-Match header value (may be null)
+     * @param acceptEncoding the raw Accept-Encoding header value (may be null)
+     */
+    public ResponseEntity<byte[]> toResponse(String ifNoneMatch, String acceptEncoding) {
+        byte[] gzipped = acceptsGzip(acceptEncoding) ? gzipBody() : null;
+        boolean useGzip = gzipped != null;
+        String variantEtag = useGzip ? gzipEtag : etag;
+        if (matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(variantEtag)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(variantEtag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (useGzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentLength(gzipped.length)
+                    .body(gzipped);
+        }
+        return builder.contentLength(body.length).body(body);
+    }
+
+    /**
+     * Whether the client accepts gzip: the q-value of an explicit {@code gzip} (or {@code x-gzip})
+     * entry decides, otherwise that of a {@code *} entry; without either, gzip is not used.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        double gzipQuality = -1;
+        double wildcardQuality = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                gzipQuality = Math.max(gzipQuality, quality(tokens));
+            } else if (coding.equals("*")) {
+                wildcardQuality = Math.max(wildcardQuality, quality(tokens));
+            }
+        }
+        return (gzipQuality >= 0 ? gzipQuality : wildcardQuality) > 0;
+    }
+
+    private static double quality(String[] tokens) {
+        for (int i = 1; i < tokens.length; i++) {
+            String param = tokens[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            // If-None-Match uses weak comparison, so ignore a W/ prefix
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || tag.equals(gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] gzipBody() {
+        if (!gzipComputed) {
+            byte[] gzipped = gzip(body, compressionLevel);
+            // Only keep the compressed copy when it actually saves bytes (tiny bodies can grow)
+            gzipBody = gzipped.length < body.length ? gzipped : null;
+            gzipComputed = true;
+        }
+        return gzipBody;
+    }
+
+    private static byte[] gzip(byte[] bytes, int level) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("gzip compression failed", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
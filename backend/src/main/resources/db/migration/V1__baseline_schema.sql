@@ -0,0 +1,131 @@
+-- Baseline of the public schema as used by the backend entities.
+-- Existing databases (created through the Supabase editor and ddl-auto=update) are baselined at
+-- version 0 and run this script too, so every statement is a no-op when the object already exists,
+-- and the columns and constraints added to existing tables since are created at the end.
+-- profiles.id references auth.users(id) in Supabase; that key and the on_auth_user_created trigger
+-- are managed by Supabase and are not part of these migrations.
+
+CREATE TABLE IF NOT EXISTS profiles (
+    id         uuid                     NOT NULL PRIMARY KEY,
+    username   text                     NOT NULL UNIQUE,
+    created_at timestamp with time zone NOT NULL DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS sections (
+    id                  bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    exam_source         text    NOT NULL,
+    test_number         integer NOT NULL,
+    skill               text    NOT NULL,
+    part_number         integer NOT NULL,
+    display_content_url text,
+    section_layout      jsonb,
+    passage_text        text,
+    audio_url           text,
+    created_at          timestamp with time zone DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS questions (
+    id               bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    section_id       bigint  NOT NULL REFERENCES sections (id),
+    question_number  integer NOT NULL,
+    question_uid     text    NOT NULL,
+    question_type    text    NOT NULL,
+    question_content jsonb   NOT NULL,
+    correct_answer   jsonb   NOT NULL,
+    explanation      text,
+    word_limit       text,
+    image_url        text,
+    created_at       timestamp with time zone DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS test_attempts (
+    id                bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id           uuid                     NOT NULL,
+    exam_source       text                     NOT NULL,
+    test_number       text                     NOT NULL,
+    skill             text                     NOT NULL,
+    status            text                     NOT NULL,
+    score             integer,
+    started_at        timestamp with time zone NOT NULL,
+    completed_at      timestamp with time zone,
+    time_left         integer,
+    current_part      integer,
+    progress_sequence bigint
+);
+
+CREATE TABLE IF NOT EXISTS user_answers (
+    id             bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id        uuid                     NOT NULL,
+    attempt_id     bigint                   NOT NULL REFERENCES test_attempts (id),
+    question_id    bigint                   NOT NULL REFERENCES questions (id),
+    answer_content jsonb                    NOT NULL,
+    user_answer    text,
+    is_correct     boolean,
+    submitted_at   timestamp with time zone NOT NULL DEFAULT now(),
+    created_at     timestamp with time zone NOT NULL DEFAULT now(),
+    CONSTRAINT uk_user_answers_attempt_question UNIQUE (attempt_id, question_id)
+);
+
+CREATE TABLE IF NOT EXISTS answer_events (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    attempt_id   bigint                   NOT NULL,
+    question_id  bigint                   NOT NULL,
+    answer_value text,
+    client_at    timestamp with time zone NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS target (
+    id         uuid                     NOT NULL PRIMARY KEY,
+    user_id    uuid                     NOT NULL UNIQUE,
+    exam_name  text,
+    exam_date  date,
+    listening  double precision,
+    reading    double precision,
+    writing    double precision,
+    speaking   double precision,
+    created_at timestamp with time zone NOT NULL,
+    updated_at timestamp with time zone NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS user_stats (
+    user_id            uuid                     NOT NULL PRIMARY KEY,
+    questions_answered bigint                   NOT NULL,
+    correct_answers    bigint                   NOT NULL,
+    tests_completed    bigint                   NOT NULL,
+    updated_at         timestamp with time zone NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS user_skill_stats (
+    user_id            uuid   NOT NULL,
+    skill              text   NOT NULL,
+    question_type      text   NOT NULL,
+    questions_answered bigint NOT NULL,
+    correct_answers    bigint NOT NULL,
+    PRIMARY KEY (user_id, skill, question_type)
+);
+
+CREATE INDEX IF NOT EXISTS idx_answer_events_attempt_client_at ON answer_events (attempt_id, client_at);
+
+-- Tables that predate the migrations exist without what the backend added to them later.
+-- CREATE TABLE IF NOT EXISTS leaves such tables untouched, so add the missing parts explicitly.
+
+-- Progress delta sequence number of an attempt (autosave deltas)
+ALTER TABLE test_attempts ADD COLUMN IF NOT EXISTS progress_sequence bigint;
+
+-- One answer per question of an attempt, the conflict target of the answer upsert. Older databases
+-- may hold duplicates; the most recently submitted answer of each question is kept.
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conname = 'uk_user_answers_attempt_question'
+                     AND conrelid = 'user_answers'::regclass) THEN
+        DELETE FROM user_answers
+        WHERE id IN (SELECT id FROM (
+                         SELECT id, row_number() OVER (PARTITION BY attempt_id, question_id
+                                                       ORDER BY submitted_at DESC NULLS LAST, id DESC) AS rn
+                         FROM user_answers) ranked
+                     WHERE ranked.rn > 1);
+        ALTER TABLE user_answers
+            ADD CONSTRAINT uk_user_answers_attempt_question UNIQUE (attempt_id, question_id);
+    END IF;
+END $$;
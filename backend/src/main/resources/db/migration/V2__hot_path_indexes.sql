@@ -0,0 +1,25 @@
+-- Indexes for the queries on the request path. Each one is named after its table and key columns
+-- and declared on the matching entity as well.
+
+-- Latest attempt of a test (findTopByUserIdAndExamSourceAndTestNumberAndSkillOrderByStartedAtDesc),
+-- attempt history and the latest-attempt-per-test listing
+CREATE INDEX IF NOT EXISTS idx_test_attempts_user_test_started
+    ON test_attempts (user_id, exam_source, test_number, skill, started_at DESC);
+
+-- Answers of an attempt (findByAttemptId, answer counts, deletes) are served by the leading column
+-- of uk_user_answers_attempt_question (attempt_id, question_id); a separate attempt_id index would
+-- only duplicate it. Recent answers of a user:
+CREATE INDEX IF NOT EXISTS idx_user_answers_user_submitted
+    ON user_answers (user_id, submitted_at DESC);
+
+-- Questions of a section in order (findBySectionId, findBySectionIdAndQuestionNumber)
+CREATE INDEX IF NOT EXISTS idx_questions_section_number
+    ON questions (section_id, question_number);
+
+-- Question lookup by UID
+CREATE INDEX IF NOT EXISTS idx_questions_question_uid
+    ON questions (question_uid);
+
+-- Sections of a test (findSectionsForTest, findSectionsWithQuestionsForTest, the part lookup)
+CREATE INDEX IF NOT EXISTS idx_sections_exam_test_skill_part
+    ON sections (exam_source, test_number, skill, part_number);
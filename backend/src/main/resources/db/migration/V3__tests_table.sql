@@ -0,0 +1,63 @@
+-- Canonical tests: one row per (exam_source, test_number, skill), referenced by sections and
+-- attempts through an integer test_id, with the question and part counts of the test.
+
+CREATE TABLE IF NOT EXISTS tests (
+    id             bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    exam_source    text    NOT NULL,
+    test_number    integer NOT NULL,
+    skill          text    NOT NULL,
+    question_count integer NOT NULL DEFAULT 0,
+    part_count     integer NOT NULL DEFAULT 0,
+    CONSTRAINT uk_tests_exam_test_skill UNIQUE (exam_source, test_number, skill)
+);
+
+-- Attempts whose test number is not a number cannot reference a test (the dashboard used to skip
+-- them). Rather than failing the cast below, they are moved, with their answers and answer events,
+-- into *_quarantine tables of the same shape for manual repair or removal. User statistics may still
+-- count them until they are rebuilt (cramer.stats.backfill-on-startup).
+CREATE TABLE IF NOT EXISTS test_attempts_quarantine AS SELECT * FROM test_attempts WITH NO DATA;
+CREATE TABLE IF NOT EXISTS user_answers_quarantine AS SELECT * FROM user_answers WITH NO DATA;
+CREATE TABLE IF NOT EXISTS answer_events_quarantine AS SELECT * FROM answer_events WITH NO DATA;
+
+INSERT INTO test_attempts_quarantine
+SELECT * FROM test_attempts WHERE test_number !~ '^\s*\d{1,9}\s*$';
+INSERT INTO user_answers_quarantine
+SELECT * FROM user_answers WHERE attempt_id IN (SELECT id FROM test_attempts_quarantine);
+INSERT INTO answer_events_quarantine
+SELECT * FROM answer_events WHERE attempt_id IN (SELECT id FROM test_attempts_quarantine);
+DELETE FROM answer_events WHERE attempt_id IN (SELECT id FROM test_attempts_quarantine);
+DELETE FROM user_answers WHERE attempt_id IN (SELECT id FROM test_attempts_quarantine);
+DELETE FROM test_attempts WHERE id IN (SELECT id FROM test_attempts_quarantine);
+
+-- Attempts store the test number as an integer like sections do
+ALTER TABLE test_attempts ALTER COLUMN test_number TYPE integer USING trim(test_number)::integer;
+
+-- A test for every key used by a section or an attempt (attempts may reference tests whose content was removed)
+INSERT INTO tests (exam_source, test_number, skill)
+SELECT exam_source, test_number, skill FROM sections
+UNION
+SELECT exam_source, test_number, skill FROM test_attempts
+ON CONFLICT (exam_source, test_number, skill) DO NOTHING;
+
+-- Sections: nullable, so content inserted directly via SQL still works; the backend links it on its next sync
+ALTER TABLE sections ADD COLUMN IF NOT EXISTS test_id bigint REFERENCES tests (id);
+UPDATE sections s SET test_id = t.id FROM tests t
+WHERE t.exam_source = s.exam_source AND t.test_number = s.test_number AND t.skill = s.skill;
+CREATE INDEX IF NOT EXISTS idx_sections_test_part ON sections (test_id, part_number);
+
+ALTER TABLE test_attempts ADD COLUMN IF NOT EXISTS test_id bigint REFERENCES tests (id);
+UPDATE test_attempts a SET test_id = t.id FROM tests t
+WHERE t.exam_source = a.exam_source AND t.test_number = a.test_number AND t.skill = a.skill;
+ALTER TABLE test_attempts ALTER COLUMN test_id SET NOT NULL;
+
+-- Attempts are looked up per (user, test) now
+DROP INDEX IF EXISTS idx_test_attempts_user_test_started;
+CREATE INDEX idx_test_attempts_user_test_started ON test_attempts (user_id, test_id, started_at DESC);
+
+UPDATE tests t SET question_count = c.question_count, part_count = c.part_count FROM (
+    SELECT t2.id, count(DISTINCT s.id) AS part_count, count(q.id) AS question_count
+    FROM tests t2
+    LEFT JOIN sections s ON s.test_id = t2.id
+    LEFT JOIN questions q ON q.section_id = s.id
+    GROUP BY t2.id
+) c WHERE c.id = t.id;
@@ -0,0 +1,53 @@
+-- user_answers is hash-partitioned by user_id: every per-user query (dashboard, review, autosave)
+-- touches one partition, and vacuum/analyze work on 16 small heaps instead of one huge one.
+-- The unique and primary keys of a partitioned table must contain the partition key, so both now
+-- lead with user_id. Identity columns are not supported on partitioned tables before PostgreSQL 17,
+-- so ids come from a plain sequence default. The old table's id sequence (identity or serial) is
+-- dropped together with the old table, so the new one gets its own sequence, continuing after the
+-- highest copied id. The old table's constraints and indexes go with it as well.
+
+ALTER TABLE user_answers RENAME TO user_answers_unpartitioned;
+DROP INDEX IF EXISTS idx_user_answers_user_submitted;
+
+CREATE SEQUENCE user_answers_part_id_seq AS bigint;
+
+CREATE TABLE user_answers (
+    id             bigint                   NOT NULL DEFAULT nextval('user_answers_part_id_seq'),
+    user_id        uuid                     NOT NULL,
+    attempt_id     bigint                   NOT NULL REFERENCES test_attempts (id),
+    question_id    bigint                   NOT NULL REFERENCES questions (id),
+    answer_content jsonb                    NOT NULL,
+    user_answer    text,
+    is_correct     boolean,
+    submitted_at   timestamp with time zone NOT NULL DEFAULT now(),
+    created_at     timestamp with time zone NOT NULL DEFAULT now(),
+    CONSTRAINT pk_user_answers PRIMARY KEY (id, user_id),
+    CONSTRAINT uk_user_answers_user_attempt_question UNIQUE (user_id, attempt_id, question_id)
+) PARTITION BY HASH (user_id);
+
+ALTER SEQUENCE user_answers_part_id_seq OWNED BY user_answers.id;
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE user_answers_p%s PARTITION OF user_answers FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+                       lpad(i::text, 2, '0'), i);
+    END LOOP;
+END $$;
+
+CREATE INDEX idx_user_answers_user_submitted ON user_answers (user_id, submitted_at DESC);
+
+-- Rows written before the columns were required get the values the backend would have written
+INSERT INTO user_answers (id, user_id, attempt_id, question_id, answer_content, user_answer, is_correct,
+                          submitted_at, created_at)
+SELECT ua.id, COALESCE(ua.user_id, ta.user_id), ua.attempt_id, ua.question_id,
+       COALESCE(ua.answer_content, jsonb_build_object('value', ua.user_answer)), ua.user_answer, ua.is_correct,
+       COALESCE(ua.submitted_at, ua.created_at, now()), COALESCE(ua.created_at, ua.submitted_at, now())
+FROM user_answers_unpartitioned ua
+JOIN test_attempts ta ON ta.id = ua.attempt_id;
+
+SELECT setval('user_answers_part_id_seq', COALESCE((SELECT max(id) FROM user_answers), 0) + 1, false);
+
+DROP TABLE user_answers_unpartitioned;
+
+ANALYZE user_answers;
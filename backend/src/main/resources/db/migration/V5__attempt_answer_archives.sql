@@ -0,0 +1,24 @@
+-- Cold archive of the answers of old completed attempts: one row per attempt instead of one per
+-- answer. The answers are kept as a jsonb array, which PostgreSQL compresses when it is TOASTed;
+-- a low toast_tuple_target makes that happen for all but the smallest attempts.
+
+CREATE TABLE IF NOT EXISTS attempt_answer_archives (
+    attempt_id        bigint                   NOT NULL PRIMARY KEY REFERENCES test_attempts (id),
+    user_id           uuid                     NOT NULL,
+    answer_count      integer                  NOT NULL,
+    correct_count     integer                  NOT NULL,
+    last_submitted_at timestamp with time zone,
+    answers           jsonb                    NOT NULL,
+    archived_at       timestamp with time zone NOT NULL DEFAULT now()
+) WITH (toast_tuple_target = 128);
+
+-- A user's archives, newest answers first (recent activity, statistics rebuild)
+CREATE INDEX IF NOT EXISTS idx_attempt_answer_archives_user_submitted
+    ON attempt_answer_archives (user_id, last_submitted_at DESC);
+
+-- Where an attempt's answers live: user_answers (false) or attempt_answer_archives (true)
+ALTER TABLE test_attempts ADD COLUMN IF NOT EXISTS answers_archived boolean NOT NULL DEFAULT false;
+
+-- Work list of the compaction job; archived attempts drop out of the index
+CREATE INDEX IF NOT EXISTS idx_test_attempts_archive_candidates
+    ON test_attempts (completed_at) WHERE status = 'COMPLETED' AND NOT answers_archived;
@@ -0,0 +1,82 @@
+package com.cramer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upgrades a database created before the schema migrations existed (see
+ * {@code db/pre-migration-schema.sql}) with Flyway, then lets Hibernate validate the entities
+ * against the result: the context only starts if every migration succeeded and the schema matches.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class SchemaMigrationTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withInitScript("db/pre-migration-schema.sql");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void keepsTheNewestOfDuplicatedAnswers() {
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT user_answer FROM user_answers WHERE attempt_id = 1 AND question_id = 1", String.class))
+                .containsExactly("a");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM user_answers WHERE attempt_id = 1", Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    void addsColumnsTheBackendAddedToExistingTables() {
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM information_schema.columns " +
+                "WHERE table_name = 'test_attempts' AND column_name = 'progress_sequence'", Integer.class))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void quarantinesAttemptsWithNonNumericTestNumbers() {
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM test_attempts_quarantine", Long.class)).containsExactly(2L);
+        assertThat(jdbcTemplate.queryForList("SELECT attempt_id FROM user_answers_quarantine", Long.class)).containsExactly(2L);
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM test_attempts", Long.class)).containsExactly(1L);
+        assertThat(jdbcTemplate.queryForObject("SELECT test_number FROM test_attempts WHERE id = 1", Integer.class))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void partitionsAnswersAndContinuesTheirIds() {
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT relkind::text FROM pg_class WHERE relname = 'user_answers'", String.class)).isEqualTo("p");
+        Long id = jdbcTemplate.queryForObject(
+                "INSERT INTO user_answers (user_id, attempt_id, question_id, answer_content, user_answer) " +
+                "VALUES ('00000000-0000-0000-0000-000000000001', 1, 2, '{}', 'b') " +
+                "ON CONFLICT (user_id, attempt_id, question_id) DO UPDATE SET user_answer = EXCLUDED.user_answer " +
+                "RETURNING id", Long.class);
+        assertThat(id).isEqualTo(3L);
+        Long newId = jdbcTemplate.queryForObject(
+                "INSERT INTO user_answers (user_id, attempt_id, question_id, answer_content) " +
+                "VALUES ('00000000-0000-0000-0000-000000000002', 1, 1, '{}') RETURNING id", Long.class);
+        assertThat(newId).isGreaterThan(3L);
+    }
+}
@@ -0,0 +1,55 @@
+package com.cramer.config;
+
+import com.cramer.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JwtAuthFilterTest {
+
+    private static final String ADMIN = "00000000-0000-0000-0000-00000000000a";
+    private static final String USER = "00000000-0000-0000-0000-00000000000b";
+
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+    private final JwtAuthFilter filter = new JwtAuthFilter(jwtUtil, List.of(" " + ADMIN, ""));
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void configuredOperatorIsAdmin() throws Exception {
+        assertThat(authoritiesOf(ADMIN)).containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    void everyOtherUserIsOnlyAUser() throws Exception {
+        assertThat(authoritiesOf(USER)).containsExactly("ROLE_USER");
+    }
+
+    private List<String> authoritiesOf(String userId) throws Exception {
+        when(jwtUtil.verify("token-" + userId))
+                .thenReturn(Optional.of(new JwtUtil.VerifiedToken(userId, Instant.now().plusSeconds(60))));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/metrics");
+        request.addHeader("Authorization", "Bearer token-" + userId);
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+    }
+}
@@ -0,0 +1,140 @@
+package com.cramer.config;
+
+import com.cramer.util.RateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.filters.RemoteIpFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private static final String LOGIN = "/api/auth/login";
+
+    // Auth: 1 request, then one every 2s; dashboard: 1 request, then one per second
+    private final RateLimiter rateLimiter = new RateLimiter(true, 1000, 2, 10, 1, 1, 0.5, 1, 20, 40);
+    private final RateLimitFilter filter = new RateLimitFilter(rateLimiter, new ObjectMapper());
+    private RemoteIpFilter remoteIpFilter;
+
+    @BeforeEach
+    void configureProxyResolution() throws Exception {
+        // The same trusted-proxy pattern the server applies to X-Forwarded-For
+        MockFilterConfig config = new MockFilterConfig();
+        config.addInitParameter("internalProxies", trustedProxiesPattern());
+        config.addInitParameter("remoteIpHeader", "x-forwarded-for");
+        remoteIpFilter = new RemoteIpFilter();
+        remoteIpFilter.init(config);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void anonymousClientsAreLimitedPerAddress() throws Exception {
+        assertThat(send(direct("203.0.113.7", LOGIN)).getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse rejected = send(direct("203.0.113.7", LOGIN));
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(rejected.getContentAsString()).contains("\"status\":429");
+
+        assertThat(send(direct("203.0.113.8", LOGIN)).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void clientsBehindATrustedProxyGetTheirOwnBuckets() throws Exception {
+        assertThat(send(viaProxy("10.0.0.5", "203.0.113.7", LOGIN)).getStatus()).isEqualTo(200);
+        assertThat(send(viaProxy("10.0.0.5", "203.0.113.8", LOGIN)).getStatus()).isEqualTo(200);
+        assertThat(send(viaProxy("10.0.0.6", "198.51.100.20, 203.0.113.9", LOGIN)).getStatus()).isEqualTo(200);
+
+        assertThat(send(viaProxy("10.0.0.6", "203.0.113.7", LOGIN)).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void forwardedForFromAnUntrustedPeerIsIgnored() throws Exception {
+        assertThat(send(viaProxy("198.51.100.1", "203.0.113.7", LOGIN)).getStatus()).isEqualTo(200);
+
+        // A spoofed header does not buy a fresh bucket
+        assertThat(send(viaProxy("198.51.100.1", "203.0.113.8", LOGIN)).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void authenticatedUsersAreLimitedPerUserWhateverTheAddress() throws Exception {
+        authenticate("00000000-0000-0000-0000-00000000000a");
+        assertThat(send(direct("203.0.113.7", "/api/dashboard/summary/x")).getStatus()).isEqualTo(200);
+        assertThat(send(direct("203.0.113.8", "/api/dashboard/summary/x")).getStatus()).isEqualTo(429);
+
+        authenticate("00000000-0000-0000-0000-00000000000b");
+        assertThat(send(direct("203.0.113.7", "/api/dashboard/summary/x")).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void preflightAndNonApiRequestsAreNotLimited() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest preflight = direct("203.0.113.7", LOGIN);
+            preflight.setMethod("OPTIONS");
+            assertThat(send(preflight).getStatus()).isEqualTo(200);
+            assertThat(send(direct("203.0.113.7", "/swagger-ui/index.html")).getStatus()).isEqualTo(200);
+        }
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new MockFilterChain(new OkServlet(), remoteIpFilter, filter).doFilter(request, response);
+        return response;
+    }
+
+    private static final class OkServlet extends HttpServlet {
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) {
+            response.setStatus(200);
+        }
+    }
+
+    private static MockHttpServletRequest direct(String remoteAddr, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    private static MockHttpServletRequest viaProxy(String proxyAddr, String forwardedFor, String path) {
+        MockHttpServletRequest request = direct(proxyAddr, path);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        return request;
+    }
+
+    private static void authenticate(String userId) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                userId, null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    // The default of ${CRAMER_TRUSTED_PROXIES:...} in application.properties
+    private static String trustedProxiesPattern() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = RateLimitFilterTest.class.getResourceAsStream("/application.properties")) {
+            properties.load(in);
+        }
+        String value = properties.getProperty("server.tomcat.remoteip.internal-proxies");
+        return value.substring("${CRAMER_TRUSTED_PROXIES:".length(), value.length() - 1);
+    }
+}
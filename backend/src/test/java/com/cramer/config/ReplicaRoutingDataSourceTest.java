@@ -0,0 +1,174 @@
+package com.cramer.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes transactions across a primary and a streaming replica (a second container cloned from the
+ * primary with pg_basebackup). Reads report {@code pg_is_in_recovery()}, which is true only on the replica.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ReplicaRoutingDataSourceTest {
+
+    private static final long MAX_LAG_MILLIS = 1000;
+
+    static final Network network = Network.newNetwork();
+
+    @Container
+    static final PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withNetwork(network)
+            .withNetworkAliases("primary")
+            .withCopyToContainer(Transferable.of("echo 'host replication all all scram-sha-256' >> \"$PGDATA/pg_hba.conf\""),
+                    "/docker-entrypoint-initdb.d/replication.sh");
+
+    @Container
+    static final GenericContainer<?> replica = new GenericContainer<>("postgres:15-alpine")
+            .withNetwork(network)
+            .dependsOn(primary)
+            .withExposedPorts(5432)
+            .withEnv("PGPASSWORD", "test")
+            .withCreateContainerCmdModifier(cmd -> cmd.withUser("postgres"))
+            .withCommand("sh", "-c", "pg_basebackup -h primary -U test -D /tmp/replica -R -X stream "
+                    + "&& chmod 700 /tmp/replica && exec postgres -D /tmp/replica")
+            .waitingFor(Wait.forLogMessage(".*database system is ready to accept read-only connections.*\\n", 1));
+
+    private static ReplicaRoutingDataSource routing;
+    private static JdbcTemplate primaryJdbc;
+    private static JdbcTemplate replicaJdbc;
+    private static JdbcTemplate routedJdbc;
+    private static TransactionTemplate readOnlyTransaction;
+    private static TransactionTemplate writeTransaction;
+
+    @BeforeAll
+    static void createDataSources() {
+        HikariDataSource primaryPool = pool(primary.getJdbcUrl());
+        HikariDataSource replicaPool = pool("jdbc:postgresql://" + replica.getHost() + ":" + replica.getMappedPort(5432) + "/test");
+        routing = new ReplicaRoutingDataSource(primaryPool, replicaPool, MAX_LAG_MILLIS);
+        primaryJdbc = new JdbcTemplate(primaryPool);
+        replicaJdbc = new JdbcTemplate(replicaPool);
+        routedJdbc = new JdbcTemplate(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+
+        primaryJdbc.execute("CREATE TABLE routing_probe (id serial PRIMARY KEY, written_at timestamptz NOT NULL DEFAULT now())");
+    }
+
+    @AfterAll
+    static void closeDataSources() {
+        routing.close();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheCaughtUpReplica() {
+        awaitReplicaUsable(true);
+
+        assertThat(readOnlyInRecovery()).isTrue();
+        assertThat(readWriteInRecovery()).isFalse();
+        assertThat((Long) routing.getMetrics().get("replicaConnections")).isPositive();
+    }
+
+    @Test
+    void onPrimaryPinsReadOnlyTransactionsToThePrimary() {
+        awaitReplicaUsable(true);
+
+        Boolean pinned = ReplicaRoutingDataSource.onPrimary(ReplicaRoutingDataSourceTest::readOnlyInRecovery);
+
+        assertThat(pinned).isFalse();
+        assertThat(readOnlyInRecovery()).isTrue();
+        assertThat((Long) routing.getMetrics().get("pinnedReads")).isPositive();
+    }
+
+    @Test
+    void stalledWalStreamCountsAsLag() throws InterruptedException {
+        awaitReplicaUsable(true);
+        String primaryConnInfo = replicaJdbc.queryForObject("SHOW primary_conninfo", String.class);
+        try {
+            // Stop the WAL receiver: the replica has replayed everything it received, but receives nothing more
+            setPrimaryConnInfo("");
+            await(() -> replicaJdbc.queryForObject("SELECT count(*) FROM pg_stat_wal_receiver", Long.class) == 0);
+
+            primaryJdbc.update("INSERT INTO routing_probe DEFAULT VALUES");
+            routing.checkReplicaLag();
+            Thread.sleep(MAX_LAG_MILLIS + 500);
+            routing.checkReplicaLag();
+
+            assertThat(routing.getMetrics()).containsEntry("replicaUsable", false);
+            assertThat((Long) routing.getMetrics().get("replicaLagMs")).isGreaterThan(MAX_LAG_MILLIS);
+            assertThat(readOnlyInRecovery()).isFalse();
+            assertThat(replicaJdbc.queryForObject("SELECT count(*) FROM routing_probe", Long.class))
+                    .isLessThan(primaryJdbc.queryForObject("SELECT count(*) FROM routing_probe", Long.class));
+        } finally {
+            setPrimaryConnInfo(primaryConnInfo);
+        }
+
+        awaitReplicaUsable(true);
+        assertThat(readOnlyInRecovery()).isTrue();
+    }
+
+    private static Boolean readOnlyInRecovery() {
+        return readOnlyTransaction.execute(status -> inRecovery());
+    }
+
+    private static Boolean readWriteInRecovery() {
+        return writeTransaction.execute(status -> inRecovery());
+    }
+
+    private static Boolean inRecovery() {
+        return routedJdbc.queryForObject("SELECT pg_is_in_recovery()", Boolean.class);
+    }
+
+    private static void setPrimaryConnInfo(String connInfo) {
+        replicaJdbc.execute("ALTER SYSTEM SET primary_conninfo = '" + connInfo.replace("'", "''") + "'");
+        replicaJdbc.execute("SELECT pg_reload_conf()");
+    }
+
+    private static void awaitReplicaUsable(boolean usable) {
+        await(() -> {
+            routing.checkReplicaLag();
+            return routing.getMetrics().get("replicaUsable").equals(usable);
+        });
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 30s: " + routing.getMetrics());
+            }
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static HikariDataSource pool(String jdbcUrl) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(primary.getUsername());
+        config.setPassword(primary.getPassword());
+        config.setMaximumPoolSize(2);
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,70 @@
+package com.cramer.controller;
+
+import com.cramer.dto.AttemptHistoryDTO;
+import com.cramer.exception.GlobalExceptionHandler;
+import com.cramer.service.DashboardService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class DashboardControllerTest {
+
+    private static final UUID CALLER = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+    private static final UUID OTHER_USER = UUID.fromString("00000000-0000-0000-0000-00000000000c");
+
+    private final DashboardService dashboardService = mock(DashboardService.class);
+    private final DashboardController controller = new DashboardController(dashboardService);
+
+    @Test
+    void historyOfTheCallerIsReturned() {
+        List<AttemptHistoryDTO> history = List.of(new AttemptHistoryDTO());
+        when(dashboardService.getTestHistory(CALLER, "cam17", 1, "reading")).thenReturn(history);
+
+        assertThat(controller.getTestHistory(CALLER, "cam17", 1, "reading", authenticated(CALLER)).getBody())
+                .isSameAs(history);
+    }
+
+    @Test
+    void historyOfAnotherUserIsForbidden() {
+        assertThatThrownBy(() -> controller.getTestHistory(OTHER_USER, "cam17", 1, "reading", authenticated(CALLER)))
+                .isInstanceOf(AccessDeniedException.class);
+
+        verifyNoInteractions(dashboardService);
+    }
+
+    @Test
+    void summaryOfAnotherUserIsForbidden() {
+        assertThatThrownBy(() -> controller.getSummary(OTHER_USER, 0, 3, null, authenticated(CALLER)))
+                .isInstanceOf(AccessDeniedException.class);
+
+        verifyNoInteractions(dashboardService);
+    }
+
+    @Test
+    void deniedAccessIsAnsweredWith403() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/dashboard/history/" + OTHER_USER);
+
+        ResponseEntity<Object> response = new GlobalExceptionHandler().handleAccessDeniedException(
+                new AccessDeniedException("denied"), new ServletWebRequest(request));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    private static Authentication authenticated(UUID userId) {
+        return new UsernamePasswordAuthenticationToken(userId.toString(), null, List.of());
+    }
+}
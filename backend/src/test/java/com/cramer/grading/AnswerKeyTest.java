@@ -0,0 +1,93 @@
+package com.cramer.grading;
+
+import com.cramer.entity.Question;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnswerKeyTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Cambridge 17 test 1 reading: 23-24 "which TWO" (C, D), 25-26 "which TWO" (B, E), 27 a gap fill
+    private final AnswerKey key = AnswerKey.compile(List.of(
+            question(23L, 23, "MULTIPLE_CHOICE_MULTIPLE_ANSWERS", "[\"C\", \"D\"]"),
+            question(24L, 24, "MULTIPLE_CHOICE_MULTIPLE_ANSWERS", "[\"C\", \"D\"]"),
+            question(25L, 25, "MULTIPLE_CHOICE_MULTIPLE_ANSWERS", "[\"B\", \"E\"]"),
+            question(26L, 26, "MULTIPLE_CHOICE_MULTIPLE_ANSWERS", "[\"B\", \"E\"]"),
+            question(27L, 27, "FILL_IN_BLANK", "[\"stadium\"]")));
+
+    @Test
+    void choiceGroupIsAnUnorderedSet() {
+        assertThat(key.grade(answers(23L, "D", 24L, "C"))).containsEntry(23L, true).containsEntry(24L, true);
+        assertThat(key.grade(answers(23L, "c", 24L, " d "))).containsEntry(23L, true).containsEntry(24L, true);
+    }
+
+    @Test
+    void repeatedLetterIsCountedOnce() {
+        Map<Long, Boolean> grades = key.grade(answers(23L, "C", 24L, "C"));
+
+        assertThat(grades).containsEntry(23L, true).containsEntry(24L, false);
+    }
+
+    @Test
+    void bothLettersInOneAnswerLeaveNothingForTheOtherQuestion() {
+        assertThat(key.grade(answers(23L, "C, D", 24L, "D"))).containsEntry(23L, true).containsEntry(24L, false);
+        assertThat(key.grade(answers(23L, "C C"))).containsEntry(23L, true);
+    }
+
+    @Test
+    void wrongLetterDoesNotUseUpTheGroup() {
+        Map<Long, Boolean> grades = key.grade(answers(23L, "A", 24L, "D"));
+
+        assertThat(grades).containsEntry(23L, false).containsEntry(24L, true);
+    }
+
+    @Test
+    void groupsAreIndependent() {
+        Map<Long, Boolean> grades = key.grade(answers(23L, "C", 24L, "D", 25L, "E", 26L, "E", 27L, "Stadium"));
+
+        assertThat(grades).containsExactlyInAnyOrderEntriesOf(Map.of(23L, true, 24L, true, 25L, true, 26L, false, 27L, true));
+    }
+
+    @Test
+    void blankAndUnknownAnswersAreNotGraded() {
+        Map<Long, Boolean> grades = key.grade(answers(23L, " ", 99L, "C", 24L, "C"));
+
+        assertThat(grades).containsOnlyKeys(24L).containsEntry(24L, true);
+    }
+
+    @Test
+    void singleAnswerGradingIsUnchanged() {
+        assertThat(key.isCorrect(24L, "C")).isTrue();
+        assertThat(key.isCorrect(24L, "A")).isFalse();
+        assertThat(key.getTotalQuestions()).isEqualTo(5);
+    }
+
+    private static Map<Long, String> answers(Object... idsAndAnswers) {
+        Map<Long, String> answers = new HashMap<>();
+        for (int i = 0; i < idsAndAnswers.length; i += 2) {
+            answers.put((Long) idsAndAnswers[i], (String) idsAndAnswers[i + 1]);
+        }
+        return answers;
+    }
+
+    static Question question(Long id, int number, String type, String correctAnswer) {
+        Question question = new Question();
+        question.setId(id);
+        question.setSectionId(1L);
+        question.setQuestionNumber(number);
+        question.setQuestionType(type);
+        try {
+            question.setCorrectAnswer(MAPPER.readTree(correctAnswer));
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+        return question;
+    }
+}
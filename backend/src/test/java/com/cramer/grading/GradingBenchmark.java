@@ -0,0 +1,77 @@
+package com.cramer.grading;
+
+import com.cramer.entity.Question;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Timed harness for grading a full 40-question submission with a compiled {@link AnswerKey}:
+ * a mix of gap fills, TRUE/FALSE/NOT GIVEN and "choose TWO letters" groups, half of them answered
+ * correctly. Prints the mean and p99 per submission.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class GradingBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 200_000;
+
+    @Test
+    void gradeFullSubmission() {
+        List<Question> questions = new ArrayList<>();
+        Map<Long, String> answers = new HashMap<>();
+        for (int n = 1; n <= 40; n++) {
+            long id = n;
+            switch (n % 4) {
+                case 0 -> {
+                    questions.add(AnswerKeyTest.question(id, n, "FILL_IN_BLANK", "[\"renewable energy\"]"));
+                    answers.put(id, n % 8 == 0 ? "Renewable Energy" : "solar power");
+                }
+                case 1 -> {
+                    questions.add(AnswerKeyTest.question(id, n, "TRUE_FALSE_NOT_GIVEN", "[\"TRUE\"]"));
+                    answers.put(id, n % 8 == 1 ? "true" : "NOT GIVEN");
+                }
+                default -> {
+                    // Questions 2-3, 6-7, ... form "choose TWO" pairs
+                    String letters = n % 8 < 4 ? "[\"C\", \"D\"]" : "[\"B\", \"E\"]";
+                    questions.add(AnswerKeyTest.question(id, n, "MULTIPLE_CHOICE_MULTIPLE_ANSWERS", letters));
+                    answers.put(id, n % 4 == 2 ? "C" : "D");
+                }
+            }
+        }
+        AnswerKey key = AnswerKey.compile(questions);
+
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += count(key.grade(answers));
+        }
+        long[] nanos = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            sink += count(key.grade(answers));
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long total = 0;
+        for (long n : nanos) {
+            total += n;
+        }
+        System.out.printf("grade 40 answers: mean %.0f ns, p50 %d ns, p99 %d ns (%d correct per run)%n",
+                (double) total / ITERATIONS, nanos[ITERATIONS / 2], nanos[ITERATIONS * 99 / 100],
+                sink / (WARMUP + ITERATIONS));
+        assertThat(sink).isPositive();
+    }
+
+    private static long count(Map<Long, Boolean> grades) {
+        return grades.values().stream().filter(Boolean::booleanValue).count();
+    }
+}
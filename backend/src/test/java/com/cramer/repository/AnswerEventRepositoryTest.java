@@ -0,0 +1,67 @@
+package com.cramer.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class AnswerEventRepositoryTest {
+
+    private static final long IDLE_CAP_MS = 300_000;
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AnswerEventRepository answerEventRepository;
+
+    @Test
+    void timelineCreditsGapsBetweenEventsOnly() {
+        // q1 at 0s, q2 at 10s, q1 changed at 40s, q2 after a 20 minute break
+        event(1L, "a", "2026-01-01T10:00:00Z");
+        event(2L, "b", "2026-01-01T10:00:10Z");
+        event(1L, "c", "2026-01-01T10:00:40Z");
+        event(2L, "d", "2026-01-01T10:20:40Z");
+
+        List<AnswerEventRepository.QuestionTimeline> timeline = answerEventRepository.findQuestionTimeline(1L, IDLE_CAP_MS);
+
+        assertThat(timeline).hasSize(2);
+        AnswerEventRepository.QuestionTimeline first = timeline.get(0);
+        // The first event of the attempt has no predecessor: 0 + 30s, not idle cap + 30s
+        assertThat(first.getTimeSpentMs()).isEqualTo(30_000L);
+        assertThat(first.getChangeCount()).isEqualTo(1L);
+        assertThat(first.getFinalValue()).isEqualTo("c");
+        AnswerEventRepository.QuestionTimeline second = timeline.get(1);
+        assertThat(second.getTimeSpentMs()).isEqualTo(10_000L + IDLE_CAP_MS);
+        assertThat(second.getEventCount()).isEqualTo(2L);
+        assertThat(answerEventRepository.countByAttemptId(1L)).isEqualTo(4L);
+    }
+
+    private void event(Long questionId, String value, String clientAt) {
+        jdbcTemplate.update("INSERT INTO answer_events (attempt_id, question_id, answer_value, client_at) " +
+                "VALUES (1, ?, ?, CAST(? AS timestamptz))", questionId, value, clientAt);
+    }
+}
@@ -0,0 +1,129 @@
+package com.cramer.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the queries on the request path are served by the indexes of the migrations.
+ * Sequential scans are priced out for the session, so a plan that still contains one means no
+ * index can serve the query.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class HotPathQueryPlanTest {
+
+    private static final UUID USER_ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static Connection connection;
+    private static long testId;
+    private static long sectionId;
+    private static long attemptId;
+
+    @BeforeAll
+    static void migrateAndSeed() throws SQLException {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .load()
+                .migrate();
+        connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        testId = insert("INSERT INTO tests (exam_source, test_number, skill) VALUES ('cam17', 1, 'reading') RETURNING id");
+        sectionId = insert("INSERT INTO sections (exam_source, test_number, skill, part_number, test_id) " +
+                "VALUES ('cam17', 1, 'reading', 1, " + testId + ") RETURNING id");
+        long questionId = 0;
+        for (int number = 1; number <= 13; number++) {
+            questionId = insert("INSERT INTO questions (section_id, question_number, question_uid, question_type, " +
+                    "question_content, correct_answer) VALUES (" + sectionId + ", " + number + ", 'cam17-t1-r-q" + number +
+                    "', 'FILL_IN_BLANK', '{}', '[\"a\"]') RETURNING id");
+        }
+        attemptId = insert("INSERT INTO test_attempts (user_id, test_id, exam_source, test_number, skill, status, started_at) " +
+                "VALUES ('" + USER_ID + "', " + testId + ", 'cam17', 1, 'reading', 'IN_PROGRESS', now()) RETURNING id");
+        insert("INSERT INTO user_answers (user_id, attempt_id, question_id, answer_content, user_answer) " +
+                "VALUES ('" + USER_ID + "', " + attemptId + ", " + questionId + ", '{}', 'a') RETURNING id");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+            statement.execute("SET enable_seqscan = off");
+        }
+    }
+
+    @AfterAll
+    static void close() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    static Stream<Arguments> hotQueries() {
+        return Stream.of(
+                Arguments.of("latest attempt of a test",
+                        "SELECT * FROM test_attempts WHERE user_id = '" + USER_ID + "' AND test_id = " + testId +
+                        " ORDER BY started_at DESC LIMIT 1"),
+                Arguments.of("answers of an attempt",
+                        "SELECT * FROM user_answers WHERE user_id = '" + USER_ID + "' AND attempt_id = " + attemptId),
+                Arguments.of("recent answers of a user",
+                        "SELECT question_id, submitted_at, is_correct FROM user_answers WHERE user_id = '" + USER_ID +
+                        "' ORDER BY submitted_at DESC LIMIT 10"),
+                Arguments.of("questions of a section",
+                        "SELECT * FROM questions WHERE section_id = " + sectionId + " ORDER BY question_number"),
+                Arguments.of("question by uid",
+                        "SELECT * FROM questions WHERE question_uid = 'cam17-t1-r-q1'"),
+                Arguments.of("sections of a test",
+                        "SELECT * FROM sections WHERE test_id = " + testId + " ORDER BY part_number"),
+                Arguments.of("test by key",
+                        "SELECT * FROM tests WHERE exam_source = 'cam17' AND test_number = 1 AND skill = 'reading'"),
+                Arguments.of("archive candidates",
+                        "SELECT id FROM test_attempts WHERE status = 'COMPLETED' AND NOT answers_archived " +
+                        "AND completed_at < now() ORDER BY completed_at LIMIT 200"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void hotQueryUsesAnIndex(String name, String sql) throws SQLException {
+        assertThat(explain(sql)).doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void answerQueriesOfAUserReadOnePartition() throws SQLException {
+        String plan = explain("SELECT * FROM user_answers WHERE user_id = '" + USER_ID + "' AND attempt_id = " + attemptId);
+        assertThat(plan).doesNotContain("Append");
+        assertThat(plan.split(" on user_answers_p", -1)).hasSize(2);
+    }
+
+    private static String explain(String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("EXPLAIN " + sql)) {
+            while (resultSet.next()) {
+                plan.append(resultSet.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    private static long insert(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.cramer.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The aggregate queries behind the dashboard and the user statistics, which count in SQL instead
+ * of loading every answer.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class UserAnswerRepositoryTest {
+
+    private static final UUID USER_ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID OTHER_USER_ID = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserAnswerRepository userAnswerRepository;
+
+    private Long firstAttemptId;
+    private Long secondAttemptId;
+    private Long otherUsersAttemptId;
+    private Long[] questionIds;
+
+    @BeforeEach
+    void seed() {
+        Long testId = jdbcTemplate.queryForObject(
+                "INSERT INTO tests (exam_source, test_number, skill) VALUES ('cam18', 1, 'reading') RETURNING id", Long.class);
+        Long sectionId = jdbcTemplate.queryForObject("INSERT INTO sections (exam_source, test_number, skill, part_number, test_id) " +
+                "VALUES ('cam18', 1, 'reading', 1, ?) RETURNING id", Long.class, testId);
+        questionIds = new Long[] {
+                question(sectionId, 1, "FILL_IN_BLANK"),
+                question(sectionId, 2, "FILL_IN_BLANK"),
+                question(sectionId, 3, "MULTIPLE_CHOICE"),
+                question(sectionId, 4, "MULTIPLE_CHOICE")
+        };
+        firstAttemptId = attempt(USER_ID, testId);
+        secondAttemptId = attempt(USER_ID, testId);
+        otherUsersAttemptId = attempt(OTHER_USER_ID, testId);
+
+        // First attempt: 2 of 3 correct, one ungraded; second attempt: 1 wrong
+        answer(USER_ID, firstAttemptId, questionIds[0], true, "2026-01-01T10:00:00Z");
+        answer(USER_ID, firstAttemptId, questionIds[1], null, "2026-01-01T10:00:05Z");
+        answer(USER_ID, firstAttemptId, questionIds[2], true, "2026-01-01T10:00:10Z");
+        answer(USER_ID, secondAttemptId, questionIds[3], false, "2026-01-02T09:00:00Z");
+        answer(OTHER_USER_ID, otherUsersAttemptId, questionIds[0], true, "2026-01-03T09:00:00Z");
+    }
+
+    @Test
+    void countsAnswersPerAttemptOfTheUserOnly() {
+        Map<Long, UserAnswerRepository.AttemptAnswerCounts> counts = userAnswerRepository
+                .countAnswersByAttemptIds(USER_ID, List.of(firstAttemptId, secondAttemptId, otherUsersAttemptId)).stream()
+                .collect(Collectors.toMap(UserAnswerRepository.AttemptAnswerCounts::getAttemptId, row -> row));
+
+        assertThat(counts).containsOnlyKeys(firstAttemptId, secondAttemptId);
+        assertThat(counts.get(firstAttemptId).getAnswered()).isEqualTo(3);
+        assertThat(counts.get(firstAttemptId).getCorrect()).isEqualTo(2);
+        assertThat(counts.get(secondAttemptId).getAnswered()).isEqualTo(1);
+        assertThat(counts.get(secondAttemptId).getCorrect()).isZero();
+    }
+
+    @Test
+    void countsAnAttemptsAnswersPerSkillAndQuestionType() {
+        Map<String, UserAnswerRepository.TypeAnswerCounts> counts = userAnswerRepository
+                .countAttemptAnswersByType(USER_ID, firstAttemptId).stream()
+                .collect(Collectors.toMap(row -> row.getSkill() + "/" + row.getQuestionType(), row -> row));
+
+        assertThat(counts).containsOnlyKeys("reading/FILL_IN_BLANK", "reading/MULTIPLE_CHOICE");
+        assertThat(counts.get("reading/FILL_IN_BLANK").getTotal()).isEqualTo(2);
+        assertThat(counts.get("reading/FILL_IN_BLANK").getCorrect()).isEqualTo(1);
+        assertThat(counts.get("reading/MULTIPLE_CHOICE").getTotal()).isEqualTo(1);
+        assertThat(counts.get("reading/MULTIPLE_CHOICE").getCorrect()).isEqualTo(1);
+    }
+
+    @Test
+    void recentAnswersAreNewestFirstAndLimitedInTheQuery() {
+        List<UserAnswerRepository.RecentAnswer> recent = userAnswerRepository.findRecentAnswers(USER_ID, Limit.of(3));
+
+        assertThat(recent).extracting(UserAnswerRepository.RecentAnswer::getQuestionId)
+                .containsExactly(questionIds[3], questionIds[2], questionIds[1]);
+        assertThat(recent).extracting(UserAnswerRepository.RecentAnswer::getCorrect)
+                .containsExactly(false, true, null);
+    }
+
+    private Long question(Long sectionId, int number, String type) {
+        return jdbcTemplate.queryForObject("INSERT INTO questions (section_id, question_number, question_uid, question_type, " +
+                "question_content, correct_answer) VALUES (?, ?, ?, ?, '{}', '[\"a\"]') RETURNING id",
+                Long.class, sectionId, number, "cam18-t1-r-q" + number, type);
+    }
+
+    private Long attempt(UUID userId, Long testId) {
+        return jdbcTemplate.queryForObject("INSERT INTO test_attempts (user_id, test_id, exam_source, test_number, skill, " +
+                "status, started_at, completed_at) VALUES (?, ?, 'cam18', '1', 'reading', 'COMPLETED', now(), now()) RETURNING id",
+                Long.class, userId, testId);
+    }
+
+    private void answer(UUID userId, Long attemptId, Long questionId, Boolean correct, String submittedAt) {
+        jdbcTemplate.update("INSERT INTO user_answers (user_id, attempt_id, question_id, answer_content, user_answer, " +
+                "is_correct, submitted_at) VALUES (?, ?, ?, '{}', 'a', ?, CAST(? AS timestamptz))",
+                userId, attemptId, questionId, correct, submittedAt);
+    }
+}
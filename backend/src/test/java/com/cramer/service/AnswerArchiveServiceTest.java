@@ -0,0 +1,196 @@
+package com.cramer.service;
+
+import com.cramer.entity.TestAttempt;
+import com.cramer.entity.UserAnswer;
+import com.cramer.grading.AnswerKey;
+import com.cramer.repository.QuestionRepository;
+import com.cramer.repository.TestAttemptRepository;
+import com.cramer.repository.UserAnswerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Archives a completed attempt and checks that its answers read the same from cold storage, and
+ * that the writers of an attempt (re-submission, deletion) move them back into {@code user_answers} first.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({AnswerArchiveService.class, TestAttemptService.class, UserStatsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class AnswerArchiveServiceTest {
+
+    private static final int QUESTIONS = 4;
+    private static final AtomicInteger NEXT_TEST_NUMBER = new AtomicInteger(100);
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @MockBean
+    private TestCatalogService testCatalogService;
+
+    @MockBean
+    private ExamTestService examTestService;
+
+    @MockBean
+    private AutosaveBuffer autosaveBuffer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AnswerArchiveService answerArchiveService;
+
+    @Autowired
+    private TestAttemptService testAttemptService;
+
+    @Autowired
+    private TestAttemptRepository testAttemptRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    private UUID userId;
+    private long testId;
+    private long attemptId;
+    private final List<Long> questionIds = new ArrayList<>();
+
+    @BeforeEach
+    void seedCompletedAttempt() {
+        // Answers are graded from the real questions, as the catalog would
+        when(testCatalogService.getAnswerKey(anyLong(), any())).thenAnswer(invocation ->
+                AnswerKey.compile(questionRepository.findBySection_TestId(invocation.<Long>getArgument(0))));
+
+        userId = UUID.randomUUID();
+        questionIds.clear();
+        // A test of its own per case, as tests are unique per exam, number and skill
+        int testNumber = NEXT_TEST_NUMBER.incrementAndGet();
+        testId = jdbcTemplate.queryForObject("INSERT INTO tests (exam_source, test_number, skill) " +
+                "VALUES ('cam17', ?, 'reading') RETURNING id", Long.class, testNumber);
+        Long sectionId = jdbcTemplate.queryForObject("INSERT INTO sections (exam_source, test_number, skill, part_number, test_id) " +
+                "VALUES ('cam17', ?, 'reading', 1, ?) RETURNING id", Long.class, testNumber, testId);
+        attemptId = jdbcTemplate.queryForObject("INSERT INTO test_attempts (user_id, test_id, exam_source, test_number, skill, " +
+                "status, score, started_at, completed_at) VALUES (?, ?, 'cam17', ?, 'reading', 'COMPLETED', 2, " +
+                "now() - interval '41 days', now() - interval '40 days') RETURNING id", Long.class, userId, testId, String.valueOf(testNumber));
+        for (int number = 1; number <= QUESTIONS; number++) {
+            Long questionId = jdbcTemplate.queryForObject("INSERT INTO questions (section_id, question_number, question_uid, " +
+                    "question_type, question_content, correct_answer) VALUES (?, ?, ?, 'FILL_IN_BLANK', '{}', '[\"a\"]') RETURNING id",
+                    Long.class, sectionId, number, "cam17-t" + testNumber + "-r-q" + number);
+            questionIds.add(questionId);
+            // Whole seconds apart, so the order and the timestamps survive the round trip through jsonb
+            jdbcTemplate.update("INSERT INTO user_answers (user_id, attempt_id, question_id, answer_content, user_answer, " +
+                    "is_correct, submitted_at) VALUES (?, ?, ?, '{}', ?, ?, date_trunc('second', now()) - interval '40 days' " +
+                    "+ make_interval(secs => ?))", userId, attemptId, questionId, number % 2 == 0 ? "a" : "b", number % 2 == 0, number);
+        }
+    }
+
+    @Test
+    void archivedAnswersReadTheSame() {
+        List<String> answersBefore = describe(answerArchiveService.loadAnswers(attempt()));
+        Map<Long, UserAnswerRepository.AttemptAnswerCounts> countsBefore = answerArchiveService.countAnswers(userId, List.of(attempt()));
+        List<String> recentBefore = describeRecent(answerArchiveService.findRecentAnswers(userId, 10));
+
+        assertThat(answerArchiveService.compact()).isGreaterThanOrEqualTo(1);
+
+        TestAttempt archived = attempt();
+        assertThat(archived.isAnswersArchived()).isTrue();
+        assertThat(liveAnswers()).isZero();
+        assertThat(archives()).isEqualTo(1);
+        assertThat(answersBefore).hasSize(QUESTIONS);
+        assertThat(describe(answerArchiveService.loadAnswers(archived))).containsExactlyInAnyOrderElementsOf(answersBefore);
+        Map<Long, UserAnswerRepository.AttemptAnswerCounts> countsAfter = answerArchiveService.countAnswers(userId, List.of(archived));
+        assertThat(countsAfter.get(attemptId).getAnswered()).isEqualTo(countsBefore.get(attemptId).getAnswered()).isEqualTo(QUESTIONS);
+        assertThat(countsAfter.get(attemptId).getCorrect()).isEqualTo(countsBefore.get(attemptId).getCorrect()).isEqualTo(2);
+        assertThat(describeRecent(answerArchiveService.findRecentAnswers(userId, 10))).containsExactlyElementsOf(recentBefore);
+        // Fewer than the archive holds: the newest come first
+        assertThat(describeRecent(answerArchiveService.findRecentAnswers(userId, 2))).containsExactlyElementsOf(recentBefore.subList(0, 2));
+    }
+
+    @Test
+    void resubmissionRestoresTheAnswersBeforeRegrading() {
+        answerArchiveService.compact();
+        assertThat(attempt().isAnswersArchived()).isTrue();
+
+        // Only the first answer changes (now correct); the others must come back from the archive as they were
+        Map<Long, String> answers = Map.of(questionIds.get(0), "a", questionIds.get(1), "a", questionIds.get(2), "b", questionIds.get(3), "a");
+        assertThat(testAttemptService.submitAttempt(attemptId, answers, userId).getScore()).isEqualTo(3);
+
+        TestAttempt regraded = attempt();
+        assertThat(regraded.isAnswersArchived()).isFalse();
+        assertThat(archives()).isZero();
+        assertThat(liveAnswers()).isEqualTo(QUESTIONS);
+        assertThat(answerArchiveService.countAnswers(userId, List.of(regraded)).get(attemptId).getCorrect()).isEqualTo(3);
+    }
+
+    @Test
+    void deletionRestoresTheAnswersFirst() {
+        answerArchiveService.compact();
+        assertThat(attempt().isAnswersArchived()).isTrue();
+
+        testAttemptService.deleteAttempt(attemptId, userId);
+
+        assertThat(testAttemptRepository.findById(attemptId)).isEmpty();
+        assertThat(archives()).isZero();
+        assertThat(liveAnswers()).isZero();
+    }
+
+    private TestAttempt attempt() {
+        return testAttemptRepository.findById(attemptId).orElseThrow();
+    }
+
+    private long liveAnswers() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM user_answers WHERE attempt_id = ?", Long.class, attemptId);
+    }
+
+    private long archives() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM attempt_answer_archives WHERE attempt_id = ?", Long.class, attemptId);
+    }
+
+    private static List<String> describe(Collection<UserAnswer> answers) {
+        return answers.stream()
+                .map(answer -> answer.getQuestion().getId() + "=" + answer.getUserAnswer() + "/" + answer.getCorrect()
+                        + "@" + answer.getSubmittedAt().toInstant())
+                .toList();
+    }
+
+    private static List<String> describeRecent(List<UserAnswerRepository.RecentAnswer> answers) {
+        return answers.stream()
+                .map(answer -> answer.getQuestionId() + "/" + answer.getCorrect() + "@" + answer.getSubmittedAt().toInstant())
+                .toList();
+    }
+}
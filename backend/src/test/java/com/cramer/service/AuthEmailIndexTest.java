@@ -0,0 +1,166 @@
+package com.cramer.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the auth e-mail index against a local stand-in for the Supabase Auth admin API, which
+ * lists users newest first, a page at a time.
+ */
+class AuthEmailIndexTest {
+
+    private static final int PAGE_SIZE = 2;
+    private static final Pattern PAGING = Pattern.compile("page=(\\d+)&per_page=(\\d+)");
+
+    // Newest first, like GET /auth/v1/admin/users
+    private final List<String[]> users = new CopyOnWriteArrayList<>();
+    private final List<Integer> requestedPages = new CopyOnWriteArrayList<>();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private volatile int status = 200;
+
+    private HttpServer server;
+    private SupabaseAdminService adminService;
+    private AuthEmailIndex emailIndex;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        for (int i = 1; i <= 5; i++) {
+            addUser("user-" + i, "Student" + i + "@Example.com");
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/auth/v1/admin/users", exchange -> {
+            Matcher paging = PAGING.matcher(exchange.getRequestURI().getQuery());
+            paging.find();
+            int page = Integer.parseInt(paging.group(1));
+            int perPage = Integer.parseInt(paging.group(2));
+            requestedPages.add(page);
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            byte[] body = (status == 200 ? usersPage(page, perPage) : "{\"msg\":\"unavailable\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        SupabaseHttpGateway gateway = new SupabaseHttpGateway(5000, 10000, 2000, 1000);
+        adminService = new SupabaseAdminService("http://127.0.0.1:" + server.getAddress().getPort() + "/",
+                "service-key", 30000, gateway);
+        emailIndex = new AuthEmailIndex(adminService, PAGE_SIZE);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void rebuildPagesThroughAllUsers() {
+        emailIndex.rebuild();
+
+        // 5 users in pages of 2: the short third page ends the listing
+        assertThat(requestedPages).containsExactly(1, 2, 3);
+        assertThat(authorizations).allMatch("Bearer service-key"::equals);
+        assertThat(emailIndex.getMetrics()).containsEntry("loaded", true).containsEntry("users", 5);
+        assertThat(emailIndex.checkEmailExists("student1@example.com")).isTrue();
+        assertThat(emailIndex.checkEmailExists("  STUDENT5@EXAMPLE.COM ")).isTrue();
+        assertThat(emailIndex.checkEmailExists("student6@example.com")).isFalse();
+    }
+
+    @Test
+    void incrementalRefreshStopsAtTheFirstKnownUser() {
+        emailIndex.rebuild();
+        requestedPages.clear();
+        addUser("user-6", "student6@example.com");
+        addUser("user-7", "student7@example.com");
+        addUser("user-8", "student8@example.com");
+
+        emailIndex.scheduledRefresh();
+
+        // Page 1 holds users 8 and 7, page 2 holds user 6 and the already indexed user 5
+        assertThat(requestedPages).containsExactly(1, 2);
+        assertThat(emailIndex.getMetrics()).containsEntry("users", 8);
+        assertThat(emailIndex.checkEmailExists("student6@example.com")).isTrue();
+        assertThat(emailIndex.checkEmailExists("student8@example.com")).isTrue();
+    }
+
+    @Test
+    void lookupsOfUnknownAddressesStopAtTheBloomFilter() {
+        emailIndex.rebuild();
+        requestedPages.clear();
+
+        for (int i = 0; i < 200; i++) {
+            assertThat(emailIndex.checkEmailExists("new-student" + i + "@example.com")).isFalse();
+        }
+        for (int i = 1; i <= 5; i++) {
+            assertThat(emailIndex.checkEmailExists("student" + i + "@example.com")).isTrue();
+        }
+
+        // The filter is sized for a 1% false-positive rate; those few fall through to the exact set
+        assertThat((Long) emailIndex.getMetrics().get("bloomRejections")).isGreaterThanOrEqualTo(190L);
+        assertThat(emailIndex.getMetrics()).containsEntry("lookups", 205L);
+        assertThat(requestedPages).isEmpty();
+    }
+
+    @Test
+    void lookupsBeforeTheFirstBuildStopPagingAtTheFirstMatch() {
+        assertThat(emailIndex.checkEmailExists("student4@example.com")).isTrue();
+        assertThat(requestedPages).containsExactly(1);
+
+        requestedPages.clear();
+        assertThat(emailIndex.checkEmailExists("student9@example.com")).isFalse();
+        assertThat(requestedPages).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void failedRebuildKeepsThePreviousIndex() {
+        emailIndex.rebuild();
+        status = 503;
+
+        emailIndex.rebuild();
+
+        assertThat(emailIndex.getMetrics()).containsEntry("users", 5).containsEntry("refreshFailures", 1L);
+        assertThat(emailIndex.checkEmailExists("student3@example.com")).isTrue();
+    }
+
+    @Test
+    void errorStatusOfTheAdminApiIsAnIOException() {
+        status = 500;
+
+        assertThatThrownBy(() -> adminService.forEachAuthUser(1, PAGE_SIZE, user -> { }))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("HTTP 500");
+    }
+
+    private void addUser(String id, String email) {
+        users.add(0, new String[]{id, email});
+    }
+
+    // Extra fields (nested objects included) are skipped by the streaming parser
+    private String usersPage(int page, int perPage) {
+        List<String> entries = new ArrayList<>();
+        int from = Math.min((page - 1) * perPage, users.size());
+        for (String[] user : users.subList(from, Math.min(from + perPage, users.size()))) {
+            entries.add("{\"id\":\"" + user[0] + "\",\"aud\":\"authenticated\",\"email\":\"" + user[1] + "\","
+                    + "\"app_metadata\":{\"provider\":\"email\",\"providers\":[\"email\"]},\"identities\":[]}");
+        }
+        return "{\"aud\":\"authenticated\",\"users\":[" + String.join(",", entries) + "],\"total\":" + users.size() + "}";
+    }
+}
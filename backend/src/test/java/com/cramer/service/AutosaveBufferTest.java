@@ -0,0 +1,88 @@
+package com.cramer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AutosaveBufferTest {
+
+    private static final UUID USER = UUID.randomUUID();
+
+    private final AutosaveBuffer buffer = new AutosaveBuffer(100);
+
+    @Test
+    void drainedProgressStaysVisibleUntilCompleted() {
+        buffer.put(progress(1L, 600, Map.of(10L, "a")));
+
+        List<AutosaveBuffer.PendingProgress> batch = buffer.drain(10);
+
+        assertThat(batch).hasSize(1);
+        assertThat(buffer.size()).isZero();
+        assertThat(buffer.peek(1L)).hasValueSatisfying(p -> assertThat(p.answers()).containsEntry(10L, "a"));
+        assertThat(buffer.isInFlight(batch.get(0))).isTrue();
+
+        buffer.complete(batch.get(0));
+
+        assertThat(buffer.peek(1L)).isEmpty();
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    @Test
+    void newerAutosaveIsMergedOverTheInFlightOne() {
+        buffer.put(progress(1L, 600, Map.of(10L, "a")));
+        AutosaveBuffer.PendingProgress inFlight = buffer.drain(10).get(0);
+        buffer.put(progress(1L, null, Map.of(10L, "b")));
+
+        assertThat(buffer.peek(1L)).hasValueSatisfying(p -> {
+            assertThat(p.timeLeft()).isEqualTo(600);
+            assertThat(p.answers()).containsEntry(10L, "b");
+        });
+
+        buffer.complete(inFlight);
+
+        assertThat(buffer.size()).isEqualTo(1);
+        assertThat(buffer.peek(1L)).hasValueSatisfying(p -> assertThat(p.answers()).containsEntry(10L, "b"));
+    }
+
+    @Test
+    void takeIncludesInFlightProgressAndSupersedesTheFlush() {
+        buffer.put(progress(1L, 600, Map.of(10L, "a")));
+        AutosaveBuffer.PendingProgress inFlight = buffer.drain(10).get(0);
+        buffer.put(progress(1L, 500, null));
+
+        assertThat(buffer.take(1L)).hasValueSatisfying(p -> {
+            assertThat(p.timeLeft()).isEqualTo(500);
+            assertThat(p.answers()).containsEntry(10L, "a");
+        });
+        assertThat(buffer.isInFlight(inFlight)).isFalse();
+
+        // A failed flush of the taken progress must not bring it back
+        buffer.restore(inFlight);
+
+        assertThat(buffer.peek(1L)).isEmpty();
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void failedFlushIsQueuedAgainUnderNewerProgress() {
+        buffer.put(progress(1L, 600, Map.of(10L, "a")));
+        AutosaveBuffer.PendingProgress inFlight = buffer.drain(10).get(0);
+        buffer.put(progress(1L, 500, null));
+
+        buffer.restore(inFlight);
+
+        assertThat(buffer.size()).isEqualTo(1);
+        assertThat(buffer.drain(10)).singleElement().satisfies(p -> {
+            assertThat(p.timeLeft()).isEqualTo(500);
+            assertThat(p.answers()).containsEntry(10L, "a");
+        });
+    }
+
+    private static AutosaveBuffer.PendingProgress progress(Long attemptId, Integer timeLeft, Map<Long, String> answers) {
+        return new AutosaveBuffer.PendingProgress(attemptId, USER, timeLeft, null, answers);
+    }
+}
@@ -0,0 +1,129 @@
+package com.cramer.service;
+
+import com.cramer.dto.FullSectionDTO;
+import com.cramer.entity.Section;
+import com.cramer.mapper.TestMapper;
+import com.cramer.repository.SectionRepository;
+import com.cramer.util.SerializedPayload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bytes on the wire and serving latency of the full-test payloads for the Cambridge 17/18 content
+ * in {@code docs/backend}: the precompressed catalog payload ({@link SerializedPayload#of}, served
+ * by a byte copy) against serializing and gzipping per request ({@link SerializedPayload#forRequest},
+ * the path taken without the catalog). Prints one line per test.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark} (needs Docker).
+ */
+@Tag("benchmark")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class CatalogPayloadBenchmark {
+
+    private static final Path CONTENT = Path.of("..", "docs", "backend");
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 2000;
+    private static final String ACCEPT_ENCODING = "gzip, deflate, br";
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SectionRepository sectionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void precompressedPayloadsAgainstPerRequestSerialization() throws IOException {
+        try (Stream<Path> scripts = Files.list(CONTENT)) {
+            for (Path script : scripts.filter(p -> p.getFileName().toString().endsWith(".sql")).sorted().toList()) {
+                jdbcTemplate.execute(Files.readString(script));
+            }
+        }
+        Map<String, List<Section>> tests = sectionRepository.findAllWithQuestions().stream()
+                .filter(s -> s.getExamSource().equals("cam17") || s.getExamSource().equals("cam18"))
+                .collect(Collectors.groupingBy(s -> s.getExamSource() + " t" + s.getTestNumber() + " " + s.getSkill(),
+                        TreeMap::new, Collectors.toList()));
+        assertThat(tests).isNotEmpty();
+
+        System.out.printf("%-22s %10s %10s %14s %14s %14s %14s%n", "test", "identity B", "gzip B",
+                "catalog p50us", "catalog p99us", "request p50us", "request p99us");
+        for (Map.Entry<String, List<Section>> test : tests.entrySet()) {
+            List<FullSectionDTO> fullTest = new ArrayList<>();
+            test.getValue().stream()
+                    .sorted(Comparator.comparing(Section::getPartNumber))
+                    .forEach(section -> fullTest.add(TestMapper.toFullSectionDTO(section, section.getQuestions())));
+
+            SerializedPayload published = SerializedPayload.of(objectMapper, fullTest);
+            long[] catalog = time(() -> published.toResponse(null, ACCEPT_ENCODING));
+            long[] perRequest = time(() -> SerializedPayload.forRequest(objectMapper, fullTest).toResponse(null, ACCEPT_ENCODING));
+
+            System.out.printf("%-22s %10d %10d %14.1f %14.1f %14.1f %14.1f%n", test.getKey(),
+                    published.size(), published.gzipSize(),
+                    percentile(catalog, 50), percentile(catalog, 99),
+                    percentile(perRequest, 50), percentile(perRequest, 99));
+
+            assertThat(published.gzipSize()).isLessThan(published.size());
+            assertThat(percentile(catalog, 99)).isLessThan(percentile(perRequest, 99));
+        }
+    }
+
+    private static long[] time(Runnable request) {
+        for (int i = 0; i < WARMUP; i++) {
+            request.run();
+        }
+        long[] nanos = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            request.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static double percentile(long[] sortedNanos, int percentile) {
+        int index = Math.min(sortedNanos.length - 1, (int) Math.ceil(percentile / 100.0 * sortedNanos.length) - 1);
+        return sortedNanos[index] / 1000.0;
+    }
+}
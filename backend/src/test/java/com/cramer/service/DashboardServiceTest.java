@@ -0,0 +1,113 @@
+package com.cramer.service;
+
+import com.cramer.dto.DashboardSummaryDTO;
+import com.cramer.dto.UserStatsDTO;
+import com.cramer.entity.Profile;
+import com.cramer.event.UserDataChangedEvent;
+import com.cramer.repository.ProfileRepository;
+import com.cramer.repository.TargetRepository;
+import com.cramer.repository.TestAttemptRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class DashboardServiceTest {
+
+    private static final UUID USER_ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    private final ProfileRepository profileRepository = mock(ProfileRepository.class);
+    private final TargetRepository targetRepository = mock(TargetRepository.class);
+    private final TestAttemptRepository testAttemptRepository = mock(TestAttemptRepository.class);
+    private final AnswerArchiveService answerArchiveService = mock(AnswerArchiveService.class);
+    private final ExamTestService examTestService = mock(ExamTestService.class);
+    private final UserStatsService userStatsService = mock(UserStatsService.class);
+    private final DashboardCache dashboardCache = new DashboardCache(100, 600_000);
+    private final DashboardService dashboardService = new DashboardService(profileRepository, targetRepository,
+            testAttemptRepository, answerArchiveService, examTestService, userStatsService, dashboardCache,
+            new ParallelLookups(4, 5000), 5);
+
+    @BeforeEach
+    void stubLookups() {
+        Profile profile = new Profile();
+        profile.setId(USER_ID);
+        when(profileRepository.findById(USER_ID)).thenReturn(Optional.of(profile));
+        when(targetRepository.findByUserId(USER_ID)).thenReturn(Optional.empty());
+        when(userStatsService.getSkillSummaries(USER_ID)).thenReturn(List.of());
+        when(userStatsService.getUserStats(USER_ID)).thenReturn(new UserStatsDTO(10, 7, 3, 0.7));
+        when(answerArchiveService.findRecentAnswers(USER_ID, 10)).thenReturn(List.of());
+        when(examTestService.getQuestionCount(1L)).thenReturn(40);
+
+        TestAttemptRepository.LatestTestAttempt latest = mock(TestAttemptRepository.LatestTestAttempt.class);
+        when(latest.getId()).thenReturn(100L);
+        when(latest.getTestId()).thenReturn(1L);
+        when(latest.getExamSource()).thenReturn("cam17");
+        when(latest.getTestNumber()).thenReturn(1);
+        when(latest.getSkill()).thenReturn("reading");
+        when(latest.getStatus()).thenReturn("COMPLETED");
+        when(latest.getCompletedAt()).thenReturn(OffsetDateTime.now());
+        TestAttemptRepository.AttemptHistoryRow row = mock(TestAttemptRepository.AttemptHistoryRow.class);
+        when(row.getLatestAttemptId()).thenReturn(100L);
+        when(row.getAttemptId()).thenReturn(100L);
+        when(row.getSkill()).thenReturn("reading");
+        when(row.getStatus()).thenReturn("COMPLETED");
+        when(row.getScore()).thenReturn(30);
+        when(row.getAnswered()).thenReturn(38L);
+        when(row.getCorrect()).thenReturn(30L);
+        when(testAttemptRepository.findLatestAttemptPerTest(eq(USER_ID), anyString(), anyInt(), anyLong()))
+                .thenReturn(List.of(latest));
+        when(testAttemptRepository.countTestsAttempted(eq(USER_ID), anyString())).thenReturn(1L);
+        when(testAttemptRepository.findRecentHistory(any(), anyInt())).thenReturn(List.of(row));
+    }
+
+    @Test
+    void repeatViewIsServedWithoutTouchingTheDatabase() {
+        DashboardSummaryDTO first = dashboardService.buildDashboardSummary(USER_ID, 0, 3, " Cam17 ");
+        clearInvocations(profileRepository, targetRepository, testAttemptRepository, answerArchiveService,
+                examTestService, userStatsService);
+
+        DashboardSummaryDTO second = dashboardService.buildDashboardSummary(USER_ID, 0, 3, "cam17");
+
+        verifyNoInteractions(profileRepository, targetRepository, testAttemptRepository, answerArchiveService,
+                examTestService, userStatsService);
+        assertThat(second.getCourseProgress()).isSameAs(first.getCourseProgress());
+        assertThat(second.getCourseProgress().getContent()).hasSize(1);
+    }
+
+    @Test
+    void otherPagesAndSearchesAreCachedSeparately() {
+        dashboardService.buildDashboardSummary(USER_ID, 0, 3, null);
+        dashboardService.buildDashboardSummary(USER_ID, 1, 3, null);
+        dashboardService.buildDashboardSummary(USER_ID, 0, 3, "listening");
+        dashboardService.buildDashboardSummary(USER_ID, 1, 3, null);
+
+        verify(testAttemptRepository, times(3)).countTestsAttempted(eq(USER_ID), anyString());
+    }
+
+    @Test
+    void attemptChangeReloadsCourseProgress() {
+        dashboardService.buildDashboardSummary(USER_ID, 0, 3, null);
+
+        dashboardCache.onUserDataChanged(new UserDataChangedEvent(USER_ID, UserDataChangedEvent.Kind.ATTEMPTS));
+        dashboardService.buildDashboardSummary(USER_ID, 0, 3, null);
+
+        verify(testAttemptRepository, times(2)).findLatestAttemptPerTest(eq(USER_ID), anyString(), anyInt(), anyLong());
+        verify(profileRepository, times(1)).findById(USER_ID);
+    }
+}
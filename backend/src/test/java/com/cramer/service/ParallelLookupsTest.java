@@ -0,0 +1,147 @@
+package com.cramer.service;
+
+import com.cramer.exception.DeadlineExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParallelLookupsTest {
+
+    private ParallelLookups lookups;
+
+    @AfterEach
+    void shutdown() {
+        if (lookups != null) {
+            lookups.shutdown();
+        }
+    }
+
+    @Test
+    void connectionBudgetIsNeverExceeded() {
+        lookups = new ParallelLookups(2, 5000);
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<Supplier<Integer>> results = new ArrayList<>();
+
+        try (ParallelLookups.Scope scope = lookups.open("Budget")) {
+            for (int i = 0; i < 12; i++) {
+                int value = i;
+                results.add(scope.fork(() -> scope.withConnection(() -> {
+                    peak.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                    Thread.sleep(10);
+                    inUse.decrementAndGet();
+                    return value;
+                })));
+            }
+            scope.join();
+        }
+
+        assertThat(peak.get()).isLessThanOrEqualTo(2);
+        assertThat(results).extracting(Supplier::get).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+        assertThat(lookups.getMetrics()).containsEntry("connectionsInUse", 0).containsEntry("subtasks", 12L);
+    }
+
+    @Test
+    void failingSubtaskCancelsItsSiblingsAndJoinRethrowsTheCause() {
+        lookups = new ParallelLookups(4, 5000);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalArgumentException failure = new IllegalArgumentException("profile lookup failed");
+        Supplier<String> sibling;
+
+        long start = System.nanoTime();
+        try (ParallelLookups.Scope scope = lookups.open("Failing")) {
+            sibling = scope.fork(() -> {
+                release.await();
+                return "late";
+            });
+            scope.fork(() -> {
+                throw failure;
+            });
+
+            assertThatThrownBy(scope::join).isSameAs(failure);
+        } finally {
+            release.countDown();
+        }
+
+        // join() did not wait for the sibling, and its result is dropped
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2000);
+        assertThatThrownBy(sibling::get).isInstanceOf(IllegalStateException.class);
+        assertThat(lookups.getMetrics()).containsEntry("failures", 1L);
+    }
+
+    @Test
+    void checkedFailureIsWrapped() {
+        lookups = new ParallelLookups(4, 5000);
+
+        try (ParallelLookups.Scope scope = lookups.open("Checked")) {
+            scope.fork(() -> {
+                throw new IOException("socket closed");
+            });
+
+            assertThatThrownBy(scope::join)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Checked failed")
+                    .hasCauseInstanceOf(IOException.class);
+        }
+    }
+
+    @Test
+    void nestedScopesDoNotDeadlockOnASingleConnection() {
+        lookups = new ParallelLookups(1, 5000);
+        Supplier<Integer> nested;
+        Supplier<Integer> flat;
+
+        // The dashboard's shape: a subtask fans out in a child scope, then does its own lookup
+        try (ParallelLookups.Scope scope = lookups.open("Nested")) {
+            nested = scope.fork(() -> {
+                int sum = 0;
+                try (ParallelLookups.Scope child = scope.child()) {
+                    List<Supplier<Integer>> parts = new ArrayList<>();
+                    for (int i = 1; i <= 3; i++) {
+                        int value = i;
+                        parts.add(child.fork(() -> child.withConnection(() -> value)));
+                    }
+                    child.join();
+                    for (Supplier<Integer> part : parts) {
+                        sum += part.get();
+                    }
+                }
+                int total = sum;
+                return scope.withConnection(() -> total * 10);
+            });
+            flat = scope.fork(() -> scope.withConnection(() -> 7));
+            scope.join();
+        }
+
+        assertThat(nested.get()).isEqualTo(60);
+        assertThat(flat.get()).isEqualTo(7);
+    }
+
+    @Test
+    void waitingForAConnectionPastTheDeadlineFails() {
+        lookups = new ParallelLookups(1, 200);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ParallelLookups.Scope scope = lookups.open("Starved")) {
+            scope.fork(() -> scope.withConnection(() -> {
+                release.await();
+                return null;
+            }));
+            scope.fork(() -> scope.withConnection(() -> null));
+
+            assertThatThrownBy(scope::join).isInstanceOf(DeadlineExceededException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+}
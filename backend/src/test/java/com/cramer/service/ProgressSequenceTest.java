@@ -0,0 +1,147 @@
+package com.cramer.service;
+
+import com.cramer.dto.ProgressDeltaDTO;
+import com.cramer.dto.ProgressDeltaResultDTO;
+import com.cramer.dto.SaveProgressDTO;
+import com.cramer.entity.Question;
+import com.cramer.entity.TestAttempt;
+import com.cramer.exception.StaleProgressException;
+import com.cramer.grading.AnswerKey;
+import com.cramer.repository.AnswerEventRepository;
+import com.cramer.repository.QuestionRepository;
+import com.cramer.repository.TestAttemptRepository;
+import com.cramer.repository.UserAnswerRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sequence checks of the full and delta autosave paths, with write-behind enabled.
+ */
+class ProgressSequenceTest {
+
+    private static final UUID USER = UUID.randomUUID();
+    private static final Long ATTEMPT_ID = 1L;
+
+    private final TestAttemptRepository testAttemptRepository = mock(TestAttemptRepository.class);
+    private final UserAnswerRepository userAnswerRepository = mock(UserAnswerRepository.class);
+    private final TestCatalogService testCatalogService = mock(TestCatalogService.class);
+    private final AutosaveBuffer autosaveBuffer = new AutosaveBuffer(100);
+    private final TestAttempt attempt = new TestAttempt();
+    private TestAttemptService service;
+
+    @BeforeEach
+    void setUp() {
+        attempt.setId(ATTEMPT_ID);
+        attempt.setUserId(USER);
+        attempt.setTestId(7L);
+        attempt.setStatus("IN_PROGRESS");
+        when(testAttemptRepository.findById(ATTEMPT_ID)).thenReturn(Optional.of(attempt));
+        when(testAttemptRepository.findAndLockById(ATTEMPT_ID)).thenReturn(Optional.of(attempt));
+        when(userAnswerRepository.findByUserIdAndAttemptId(USER, ATTEMPT_ID)).thenReturn(List.of());
+
+        Question question = new Question();
+        question.setId(10L);
+        question.setSectionId(1L);
+        question.setQuestionType("FILL_IN_BLANK");
+        question.setCorrectAnswer(TextNode.valueOf("answer"));
+        AnswerKey key = AnswerKey.compile(List.of(question));
+        when(testCatalogService.getAnswerKey(anyLong(), anyCollection())).thenReturn(key);
+
+        service = new TestAttemptService(testAttemptRepository, userAnswerRepository, mock(QuestionRepository.class),
+                testCatalogService, mock(ExamTestService.class), autosaveBuffer, mock(UserStatsService.class),
+                mock(AnswerArchiveService.class), mock(AnswerEventRepository.class), mock(ApplicationEventPublisher.class),
+                new ObjectMapper(), true);
+    }
+
+    @Test
+    void retriedDeltaIsAcknowledgedWithoutChanges() {
+        attempt.setProgressSequence(4L);
+
+        ProgressDeltaResultDTO result = service.applyProgressDelta(ATTEMPT_ID, delta(3L, "a"), USER);
+
+        assertThat(result.isDuplicate()).isTrue();
+        assertThat(result.getLastAppliedSequence()).isEqualTo(4L);
+        verify(userAnswerRepository, never()).upsertAnswers(anyLong(), any(), anyCollection());
+    }
+
+    @Test
+    void deltaThatSkipsASequenceIsRejected() {
+        attempt.setProgressSequence(4L);
+
+        assertThatThrownBy(() -> service.applyProgressDelta(ATTEMPT_ID, delta(6L, "a"), USER))
+                .isInstanceOf(StaleProgressException.class);
+    }
+
+    @Test
+    void olderFullSaveIsRejectedAndTheSameOneAcknowledged() {
+        attempt.setProgressSequence(4L);
+
+        assertThatThrownBy(() -> service.saveProgress(ATTEMPT_ID, fullSave(3L, "a"), USER))
+                .isInstanceOf(StaleProgressException.class);
+        service.saveProgress(ATTEMPT_ID, fullSave(4L, "a"), USER);
+
+        assertThat(autosaveBuffer.peek(ATTEMPT_ID)).isEmpty();
+    }
+
+    @Test
+    void olderFullSaveCannotReplaceABufferedOne() {
+        service.saveProgress(ATTEMPT_ID, fullSave(5L, "new"), USER);
+
+        assertThatThrownBy(() -> service.saveProgress(ATTEMPT_ID, fullSave(3L, "old"), USER))
+                .isInstanceOf(StaleProgressException.class);
+        assertThat(autosaveBuffer.peek(ATTEMPT_ID)).hasValueSatisfying(p -> assertThat(p.answers()).containsEntry(10L, "new"));
+    }
+
+    @Test
+    void deltaCountsTheBufferedSequenceAndAppliesTheBufferedSaveFirst() {
+        service.saveProgress(ATTEMPT_ID, fullSave(5L, "full"), USER);
+
+        assertThat(service.applyProgressDelta(ATTEMPT_ID, delta(5L, "a"), USER).isDuplicate()).isTrue();
+        ProgressDeltaResultDTO applied = service.applyProgressDelta(ATTEMPT_ID, delta(6L, "delta"), USER);
+
+        assertThat(applied.isDuplicate()).isFalse();
+        assertThat(attempt.getProgressSequence()).isEqualTo(6L);
+        assertThat(autosaveBuffer.peek(ATTEMPT_ID)).isEmpty();
+    }
+
+    @Test
+    void flusherDropsProgressOlderThanTheStoredSequence() {
+        service.saveProgress(ATTEMPT_ID, fullSave(3L, "old"), USER);
+        AutosaveBuffer.PendingProgress inFlight = autosaveBuffer.drain(10).get(0);
+        attempt.setProgressSequence(4L);
+
+        service.applyProgress(inFlight);
+
+        verify(testAttemptRepository, never()).save(any());
+        verify(userAnswerRepository, never()).upsertAnswers(eq(ATTEMPT_ID), any(), anyCollection());
+    }
+
+    private static ProgressDeltaDTO delta(Long sequence, String answer) {
+        return new ProgressDeltaDTO(sequence, null, null, Map.of(10L, answer), null);
+    }
+
+    private static SaveProgressDTO fullSave(Long sequence, String answer) {
+        SaveProgressDTO dto = new SaveProgressDTO(600, 1, Map.of(10L, answer));
+        dto.setSequence(sequence);
+        return dto;
+    }
+}
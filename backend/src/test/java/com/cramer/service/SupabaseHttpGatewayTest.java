@@ -0,0 +1,175 @@
+package com.cramer.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the Supabase gateway and the admin calls built on it against a local stand-in for the
+ * Supabase REST API.
+ */
+class SupabaseHttpGatewayTest {
+
+    private static final long REQUEST_TIMEOUT_MS = 300;
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final List<Headers> requestHeaders = new CopyOnWriteArrayList<>();
+    private final List<String> requestBodies = new CopyOnWriteArrayList<>();
+    private volatile int status = 200;
+    private volatile long delayMillis;
+
+    private HttpServer server;
+    private SupabaseHttpGateway gateway;
+    private SupabaseAdminService adminService;
+    private ListAppender<ILoggingEvent> adminLog;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI());
+            requestHeaders.add(exchange.getRequestHeaders());
+            requestBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = (status < 300 ? "[{\"id\":1}]" : "{\"message\":\"permission denied\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        // Slow responses must not hold up the others
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        gateway = new SupabaseHttpGateway(1000, REQUEST_TIMEOUT_MS, 60_000, 100);
+        adminService = new SupabaseAdminService("http://127.0.0.1:" + server.getAddress().getPort() + "/rest/v1/",
+                "service-key", 30000, gateway);
+
+        adminLog = new ListAppender<>();
+        adminLog.start();
+        ((Logger) LoggerFactory.getLogger(SupabaseAdminService.class)).addAppender(adminLog);
+    }
+
+    @AfterEach
+    void stopServer() {
+        ((Logger) LoggerFactory.getLogger(SupabaseAdminService.class)).detachAppender(adminLog);
+        server.stop(0);
+    }
+
+    @Test
+    void getCarriesTheServiceKey() {
+        assertThat(adminService.getTable("profiles", "?select=id")).isEqualTo("[{\"id\":1}]");
+
+        assertThat(requests).containsExactly("GET /rest/v1/profiles?select=id");
+        Headers headers = requestHeaders.get(0);
+        assertThat(headers.getFirst("apikey")).isEqualTo("service-key");
+        assertThat(headers.getFirst("Authorization")).isEqualTo("Bearer service-key");
+        assertThat(headers.getFirst("Accept")).isEqualTo("application/json");
+    }
+
+    @Test
+    void postSendsTheJsonBody() {
+        assertThat(adminService.postTable("target", "{\"score\":7}")).isEqualTo("[{\"id\":1}]");
+
+        assertThat(requests).containsExactly("POST /rest/v1/target");
+        assertThat(requestBodies).containsExactly("{\"score\":7}");
+        assertThat(requestHeaders.get(0).getFirst("Content-Type")).isEqualTo("application/json");
+        assertThat(requestHeaders.get(0).getFirst("Authorization")).isEqualTo("Bearer service-key");
+    }
+
+    @Test
+    void errorStatusIsLoggedAndReturnsNull() {
+        status = 403;
+
+        assertThat(adminService.getTable("profiles", null)).isNull();
+
+        assertThat(adminLog.list).singleElement().satisfies(event -> {
+            assertThat(event.getLevel()).isEqualTo(Level.WARN);
+            assertThat(event.getFormattedMessage())
+                    .contains("profiles", "status 403", "permission denied");
+        });
+        assertThat(callStats("admin.rest.get")).containsEntry("calls", 1L).containsEntry("failures", 1L);
+        // Error responses are not cached
+        assertThat(adminService.getTable("profiles", null)).isNull();
+        assertThat(requests).hasSize(2);
+    }
+
+    @Test
+    void slowResponseTimesOut() {
+        delayMillis = REQUEST_TIMEOUT_MS * 3;
+
+        long start = System.currentTimeMillis();
+        assertThat(adminService.getTable("profiles", null)).isNull();
+        assertThat(System.currentTimeMillis() - start).isLessThan(REQUEST_TIMEOUT_MS * 3);
+
+        assertThat(adminLog.list).singleElement().satisfies(event ->
+                assertThat(event.getFormattedMessage()).contains("Supabase Admin GET profiles failed"));
+        assertThat(callStats("admin.rest.get")).containsEntry("failures", 1L);
+        CompletableFuture<HttpResponse<String>> direct = gateway.send("direct",
+                gateway.newRequest(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/slow")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThatThrownBy(direct::join).isInstanceOf(CompletionException.class).hasCauseInstanceOf(HttpTimeoutException.class);
+    }
+
+    @Test
+    void identicalGetsAreServedFromTheCacheAndRevalidated() {
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/rest/v1/tests");
+        Map<String, String> headers = Map.of("apikey", "k");
+
+        assertThat(gateway.getCached("tests", uri, headers).join().body()).isEqualTo("[{\"id\":1}]");
+        assertThat(gateway.getCached("tests", uri, headers).join().body()).isEqualTo("[{\"id\":1}]");
+        assertThat(requests).hasSize(1);
+        // Different credentials never share a response
+        assertThat(gateway.getCached("tests", uri, Map.of("apikey", "other")).join().statusCode()).isEqualTo(200);
+        assertThat(requests).hasSize(2);
+
+        SupabaseHttpGateway expiring = new SupabaseHttpGateway(1000, REQUEST_TIMEOUT_MS, 0, 100);
+        expiring.getCached("tests", uri, headers).join();
+        HttpResponse<String> revalidated = expiring.getCached("tests", uri, headers).join();
+        assertThat(revalidated.statusCode()).isEqualTo(200);
+        assertThat(revalidated.body()).isEqualTo("[{\"id\":1}]");
+        assertThat(requestHeaders.get(3).getFirst("If-None-Match")).isEqualTo("\"v1\"");
+        assertThat(expiring.getMetrics()).containsEntry("revalidated", 1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> callStats(String callName) {
+        return (Map<String, Object>) ((Map<String, Object>) gateway.getMetrics().get("calls")).get(callName);
+    }
+}
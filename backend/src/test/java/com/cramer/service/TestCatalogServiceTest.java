@@ -0,0 +1,138 @@
+package com.cramer.service;
+
+import com.cramer.entity.Question;
+import com.cramer.entity.Section;
+import com.cramer.event.ContentChangedEvent;
+import com.cramer.grading.AnswerKey;
+import com.cramer.repository.SectionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TestCatalogServiceTest {
+
+    private SectionRepository sectionRepository;
+    private TestCatalogService catalog;
+
+    @BeforeEach
+    void loadCatalogWithTestOne() {
+        sectionRepository = mock(SectionRepository.class);
+        when(sectionRepository.findAllWithQuestions()).thenReturn(List.of(section(1L, 1L, 10L)));
+        catalog = new TestCatalogService(sectionRepository, mock(ExamTestService.class), new ObjectMapper(),
+                mock(PlatformTransactionManager.class), 0);
+        catalog.refresh();
+        assertThat(catalog.isLoaded()).isTrue();
+    }
+
+    @Test
+    void knownQuestionsAreServedFromTheSnapshot() {
+        AnswerKey key = catalog.getAnswerKey(1L, List.of(10L));
+
+        assertThat(key.contains(10L)).isTrue();
+        verify(sectionRepository, never()).findSectionsWithQuestionsByTestId(anyLong());
+    }
+
+    @Test
+    void testMissingFromTheSnapshotFallsBackToTheDatabase() {
+        when(sectionRepository.findSectionsWithQuestionsByTestId(2L)).thenReturn(List.of(section(2L, 2L, 20L)));
+
+        AnswerKey key = catalog.getAnswerKey(2L);
+
+        assertThat(key.contains(20L)).isTrue();
+        assertThat(key.getTotalQuestions()).isEqualTo(1);
+        verify(sectionRepository, timeout(5000).times(2)).findAllWithQuestions();
+    }
+
+    @Test
+    void unknownQuestionIsASoftMissThatRebuildsTheCatalog() {
+        when(sectionRepository.findSectionsWithQuestionsByTestId(1L)).thenReturn(List.of(section(1L, 1L, 10L, 11L)));
+
+        AnswerKey key = catalog.getAnswerKey(1L, List.of(10L, 11L));
+
+        assertThat(key.contains(11L)).isTrue();
+        verify(sectionRepository, timeout(5000).times(2)).findAllWithQuestions();
+    }
+
+    @Test
+    void unknownTestWithoutQuestionsDoesNotRebuild() {
+        when(sectionRepository.findSectionsWithQuestionsByTestId(3L)).thenReturn(List.of());
+
+        assertThat(catalog.getAnswerKey(3L).getTotalQuestions()).isZero();
+        verify(sectionRepository, times(1)).findAllWithQuestions();
+    }
+
+    @Test
+    void burstOfContentChangesIsCoalescedIntoOneDeferredRebuild() throws InterruptedException {
+        TestCatalogService throttled = new TestCatalogService(sectionRepository, mock(ExamTestService.class),
+                new ObjectMapper(), mock(PlatformTransactionManager.class), 300);
+        throttled.refresh();
+
+        for (long id = 1; id <= 100; id++) {
+            throttled.onContentChanged(new ContentChangedEvent("Question", id));
+        }
+
+        // The initial build of each catalog, then one rebuild for all 100 changes, after the minimum interval
+        verify(sectionRepository, timeout(5000).times(3)).findAllWithQuestions();
+        Thread.sleep(700);
+        verify(sectionRepository, times(3)).findAllWithQuestions();
+    }
+
+    @Test
+    void changeDuringARebuildQueuesOneMore() throws InterruptedException {
+        CountDownLatch rebuilding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger builds = new AtomicInteger();
+        when(sectionRepository.findAllWithQuestions()).thenAnswer(invocation -> {
+            if (builds.incrementAndGet() == 1) {
+                rebuilding.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return List.of(section(1L, 1L, 10L, 11L));
+        });
+
+        catalog.onContentChanged(new ContentChangedEvent("Question", 11L));
+        assertThat(rebuilding.await(5, TimeUnit.SECONDS)).isTrue();
+        catalog.onContentChanged(new ContentChangedEvent("Question", 12L));
+        catalog.onContentChanged(new ContentChangedEvent("Question", 13L));
+        release.countDown();
+
+        // Initial build, the rebuild that was running, and one more for both changes made during it
+        verify(sectionRepository, timeout(5000).times(3)).findAllWithQuestions();
+        Thread.sleep(300);
+        assertThat(builds).hasValue(2);
+        assertThat(catalog.getAnswerKey(1L, List.of(11L)).contains(11L)).isTrue();
+    }
+
+    private static Section section(Long id, Long testId, Long... questionIds) {
+        Section section = new Section("cam17", testId.intValue(), "reading", 1);
+        section.setId(id);
+        section.setTestId(testId);
+        for (Long questionId : questionIds) {
+            Question question = new Question();
+            question.setId(questionId);
+            question.setSectionId(id);
+            question.setQuestionNumber(questionId.intValue());
+            question.setQuestionType("FILL_IN_BLANK");
+            question.setCorrectAnswer(TextNode.valueOf("answer"));
+            question.setSection(section);
+            section.getQuestions().add(question);
+        }
+        return section;
+    }
+}
@@ -0,0 +1,110 @@
+package com.cramer.service;
+
+import com.cramer.dto.SkillSummaryDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent first reads of a user without statistics, as the dashboard does with its parallel
+ * lookups: every caller must get the rebuilt counters and none may fail on a duplicate key.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(UserStatsService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class UserStatsRebuildTest {
+
+    private static final int CALLERS = 8;
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> CALLERS + 2);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Test
+    void concurrentFirstReadsRebuildOnce() throws Exception {
+        UUID userId = UUID.randomUUID();
+        Long testId = jdbcTemplate.queryForObject(
+                "INSERT INTO tests (exam_source, test_number, skill) VALUES ('cam17', 2, 'reading') RETURNING id", Long.class);
+        Long sectionId = jdbcTemplate.queryForObject("INSERT INTO sections (exam_source, test_number, skill, part_number, test_id) " +
+                "VALUES ('cam17', 2, 'reading', 1, ?) RETURNING id", Long.class, testId);
+        Long attemptId = jdbcTemplate.queryForObject("INSERT INTO test_attempts (user_id, test_id, exam_source, test_number, skill, " +
+                "status, started_at, completed_at) VALUES (?, ?, 'cam17', 2, 'reading', 'COMPLETED', now(), now()) RETURNING id",
+                Long.class, userId, testId);
+        for (int number = 1; number <= 4; number++) {
+            Long questionId = jdbcTemplate.queryForObject("INSERT INTO questions (section_id, question_number, question_uid, " +
+                    "question_type, question_content, correct_answer) VALUES (?, ?, ?, 'FILL_IN_BLANK', '{}', '[\"a\"]') RETURNING id",
+                    Long.class, sectionId, number, "cam17-t2-r-q" + number);
+            jdbcTemplate.update("INSERT INTO user_answers (user_id, attempt_id, question_id, answer_content, user_answer, is_correct) " +
+                    "VALUES (?, ?, ?, '{}', 'a', ?)", userId, attemptId, questionId, number % 2 == 0);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                Callable<?> read = i % 2 == 0
+                        ? () -> userStatsService.getSkillSummaries(userId)
+                        : () -> userStatsService.getUserStats(userId);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return read.call();
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(); // rethrows a failed rebuild
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<SkillSummaryDTO> skills = userStatsService.getSkillSummaries(userId);
+        assertThat(skills).hasSize(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT questions_answered FROM user_stats WHERE user_id = ?", Long.class, userId)).isEqualTo(4L);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT correct_answers FROM user_skill_stats WHERE user_id = ?", Long.class, userId)).isEqualTo(2L);
+
+        // An explicit rebuild over existing counters leaves them as they are
+        userStatsService.rebuildUser(userId);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT questions_answered FROM user_skill_stats WHERE user_id = ?", Long.class, userId)).isEqualTo(4L);
+    }
+}
@@ -0,0 +1,138 @@
+package com.cramer.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Serves a generated JWKS from a local HTTP server and verifies asymmetrically and HMAC-signed
+ * tokens against it.
+ */
+class JwksKeySetTest {
+
+    private static final String SECRET = "test-secret-with-at-least-two-hundred-fifty-six-bits";
+
+    private final KeyPair rsaKeys = Jwts.SIG.RS256.keyPair().build();
+    private final KeyPair ecKeys = Jwts.SIG.ES256.keyPair().build();
+    private final KeyPair rotatedKeys = Jwts.SIG.RS256.keyPair().build();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+    private volatile int status = 200;
+    private volatile String body;
+    private JwksKeySet keySet;
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        publish(Map.of("rsa-1", rsaKeys, "ec-1", ecKeys));
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/auth/v1/.well-known/jwks.json", exchange -> {
+            requests.incrementAndGet();
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/auth/v1/.well-known/jwks.json";
+        keySet = new JwksKeySet(url, 0);
+        jwtUtil = new JwtUtil(SECRET, 100, keySet);
+        keySet.refresh();
+    }
+
+    @AfterEach
+    void stopServer() {
+        keySet.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void verifiesTokensSignedWithKnownKeys() {
+        assertThat(jwtUtil.verify(signed("rsa-1", rsaKeys, "user-rsa")))
+                .hasValueSatisfying(token -> assertThat(token.userId()).isEqualTo("user-rsa"));
+        assertThat(jwtUtil.verify(signed("ec-1", ecKeys, "user-ec")))
+                .hasValueSatisfying(token -> assertThat(token.userId()).isEqualTo("user-ec"));
+
+        assertThat(keySet.getMetrics()).containsEntry("keys", 2).containsEntry("unknownKeyIds", 0L);
+        assertThat(requests).hasValue(1);
+    }
+
+    @Test
+    void unknownKeyIdIsRejectedAndRefreshedInTheBackground() throws Exception {
+        publish(Map.of("rsa-1", rsaKeys, "ec-1", ecKeys, "rsa-2", rotatedKeys));
+        String token = signed("rsa-2", rotatedKeys, "user-rotated");
+
+        assertThat(jwtUtil.verify(token)).isEmpty();
+
+        awaitRefreshes(2);
+        assertThat(jwtUtil.verify(token)).isPresent();
+        assertThat(keySet.getMetrics()).containsEntry("keys", 3).containsEntry("unknownKeyIds", 1L);
+    }
+
+    @Test
+    void failedRefreshKeepsThePreviousKeys() {
+        status = 500;
+        body = "{\"error\":\"unavailable\"}";
+
+        keySet.refresh();
+
+        assertThat(keySet.getMetrics()).containsEntry("keys", 2).containsEntry("refreshFailures", 1L);
+        assertThat(jwtUtil.verify(signed("rsa-1", rsaKeys, "user-rsa"))).isPresent();
+    }
+
+    @Test
+    void hmacTokensAreVerifiedWithTheSharedSecretWhileJwksIsEnabled() {
+        String token = JwtUtilTest.hmacToken("user-hs", Duration.ofHours(1));
+
+        assertThat(jwtUtil.verify(token))
+                .hasValueSatisfying(verified -> assertThat(verified.userId()).isEqualTo("user-hs"));
+        assertThat(requests).hasValue(1);
+        assertThat(keySet.getMetrics()).containsEntry("unknownKeyIds", 0L);
+    }
+
+    private void publish(Map<String, KeyPair> keyPairs) throws IOException {
+        List<Map<String, ?>> jwks = keyPairs.entrySet().stream()
+                .<Map<String, ?>>map(entry -> Jwks.builder().key(entry.getValue().getPublic()).id(entry.getKey()).build())
+                .toList();
+        body = new ObjectMapper().writeValueAsString(Map.of("keys", jwks));
+    }
+
+    private void awaitRefreshes(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (((Long) keySet.getMetrics().get("refreshes")) < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(keySet.getMetrics()).containsEntry("refreshes", count);
+    }
+
+    private static String signed(String keyId, KeyPair keyPair, String subject) {
+        return Jwts.builder()
+                .header().keyId(keyId).and()
+                .subject(subject)
+                .expiration(Date.from(Instant.now().plusSeconds(3600)))
+                .signWith(keyPair.getPrivate())
+                .compact();
+    }
+}
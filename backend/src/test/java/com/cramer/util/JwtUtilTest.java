@@ -0,0 +1,79 @@
+package com.cramer.util;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "test-secret-with-at-least-two-hundred-fifty-six-bits";
+    private static final SecretKey HMAC_KEY = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+
+    private final JwksKeySet hmacOnly = new JwksKeySet("", 30_000);
+
+    @Test
+    void verifiesAndCachesHmacTokens() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 10, hmacOnly);
+        String token = hmacToken("user-1", Duration.ofHours(1));
+
+        assertThat(jwtUtil.verify(token)).hasValueSatisfying(verified -> assertThat(verified.userId()).isEqualTo("user-1"));
+        assertThat(jwtUtil.verify(token)).isPresent();
+
+        assertThat(jwtUtil.getMetrics()).containsEntry("verifications", 1L).containsEntry("cacheHits", 1L);
+    }
+
+    @Test
+    void fullCacheOfLiveTokensIsScannedAtMostOncePerInterval() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 2, hmacOnly);
+        jwtUtil.verify(hmacToken("user-1", Duration.ofHours(1)));
+        jwtUtil.verify(hmacToken("user-2", Duration.ofHours(1)));
+
+        String uncached = hmacToken("user-3", Duration.ofHours(1));
+        for (int i = 0; i < 50; i++) {
+            assertThat(jwtUtil.verify(uncached)).isPresent();
+        }
+
+        assertThat(jwtUtil.getMetrics())
+                .containsEntry("cachedTokens", 2)
+                .containsEntry("purges", 1L)
+                .containsEntry("verifications", 52L);
+    }
+
+    @Test
+    void sweepDropsExpiredTokens() throws InterruptedException {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 10, hmacOnly);
+        jwtUtil.verify(hmacToken("user-1", Duration.ofSeconds(1)));
+        assertThat(jwtUtil.getMetrics()).containsEntry("cachedTokens", 1);
+
+        Thread.sleep(1100);
+        jwtUtil.evictExpired();
+
+        assertThat(jwtUtil.getMetrics()).containsEntry("cachedTokens", 0);
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnotherSecret() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 10, hmacOnly);
+        SecretKey otherKey = Keys.hmacShaKeyFor("another-secret-with-at-least-two-hundred-fifty-six-bits".getBytes(StandardCharsets.UTF_8));
+        String token = Jwts.builder().subject("user-1").expiration(Date.from(Instant.now().plusSeconds(60)))
+                .signWith(otherKey).compact();
+
+        assertThat(jwtUtil.verify(token)).isEmpty();
+    }
+
+    static String hmacToken(String subject, Duration validFor) {
+        return Jwts.builder()
+                .subject(subject)
+                .expiration(Date.from(Instant.now().plus(validFor)))
+                .signWith(HMAC_KEY)
+                .compact();
+    }
+}
@@ -0,0 +1,82 @@
+package com.cramer.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimiterTest {
+
+    @Test
+    void burstIsAdmittedAtOnceThenRejected() {
+        RateLimiter limiter = limiter(1, 5);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(RateLimiter.LimitClass.DASHBOARD, "user:a")).isZero();
+        }
+        long waitNanos = limiter.tryAcquire(RateLimiter.LimitClass.DASHBOARD, "user:a");
+
+        // One request per second refills, so the next slot opens within a second
+        assertThat(waitNanos).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+        assertThat(classMetrics(limiter, "DASHBOARD")).containsEntry("allowed", 5L).containsEntry("rejected", 1L);
+    }
+
+    @Test
+    void bucketRefillsAtTheConfiguredRate() throws InterruptedException {
+        RateLimiter limiter = limiter(10, 2);
+        assertThat(limiter.tryAcquire(RateLimiter.LimitClass.DASHBOARD, "user:a")).isZero();
+        assertThat(limiter.tryAcquire(RateLimiter.LimitClass.DASHBOARD, "user:a")).isZero();
+        long waitNanos = limiter.tryAcquire(RateLimiter.LimitClass.DASHBOARD, "user:a");
+        assertThat(waitNanos).isPositive().isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(waitNanos) + 20);
+
+        // One token refilled (every 100ms), not the whole burst
+        assertThat(limiter.tryAcquire(RateLimiter.LimitClass.DASHBOARD, "user:a")).isZero();
+        assertThat(limiter.tryAcquire(RateLimiter.LimitClass.DASHBOARD, "user:a")).isPositive();
+    }
+
+    @Test
+    void bucketsAreSeparatePerClientAndClass() {
+        RateLimiter limiter = limiter(1, 1);
+        assertThat(limiter.tryAcquire(RateLimiter.LimitClass.DASHBOARD, "user:a")).isZero();
+        assertThat(limiter.tryAcquire(RateLimiter.LimitClass.DASHBOARD, "user:a")).isPositive();
+
+        assertThat(limiter.tryAcquire(RateLimiter.LimitClass.DASHBOARD, "user:b")).isZero();
+        assertThat(limiter.tryAcquire(RateLimiter.LimitClass.DASHBOARD, "ip:10.0.0.1")).isZero();
+        assertThat(limiter.tryAcquire(RateLimiter.LimitClass.DEFAULT, "user:a")).isZero();
+    }
+
+    @Test
+    void sweepDropsOnlyRefilledBuckets() throws InterruptedException {
+        RateLimiter limiter = limiter(1, 1);
+        limiter.tryAcquire(RateLimiter.LimitClass.DEFAULT, "user:a");
+        limiter.tryAcquire(RateLimiter.LimitClass.DASHBOARD, "user:b");
+        // DEFAULT refills at 100/s, DASHBOARD at 1/s
+        Thread.sleep(50);
+
+        limiter.sweep();
+
+        assertThat(limiter.getMetrics()).containsEntry("buckets", 1).containsEntry("evictedBuckets", 1L);
+        assertThat(limiter.tryAcquire(RateLimiter.LimitClass.DASHBOARD, "user:b")).isPositive();
+    }
+
+    @Test
+    void invalidLimitIsRejected() {
+        assertThatThrownBy(() -> limiter(0, 5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> limiter(1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Dashboard limit as given; autosave 2/s (10), auth 0.5/s (10), default 100/s (1)
+    private static RateLimiter limiter(double dashboardPerSecond, int dashboardBurst) {
+        return new RateLimiter(true, 1000, 2, 10, dashboardPerSecond, dashboardBurst, 0.5, 10, 100, 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> classMetrics(RateLimiter limiter, String limitClass) {
+        return (Map<String, Object>) ((Map<String, Object>) limiter.getMetrics().get("classes")).get(limitClass);
+    }
+}
@@ -0,0 +1,72 @@
+package com.cramer.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SerializedPayloadTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // Repetitive enough that gzip always saves bytes
+    private static final Map<String, String> VALUE = Map.of("text", String.join(" ", Collections.nCopies(200, "passage")));
+
+    @Test
+    void explicitGzipTakesPrecedenceOverWildcard() {
+        assertThat(isGzip(SerializedPayload.of(MAPPER, VALUE).toResponse(null, "*;q=0, gzip"))).isTrue();
+        assertThat(isGzip(SerializedPayload.of(MAPPER, VALUE).toResponse(null, "gzip;q=0, *"))).isFalse();
+    }
+
+    @Test
+    void negotiatesByQualityValue() {
+        SerializedPayload payload = SerializedPayload.of(MAPPER, VALUE);
+        assertThat(isGzip(payload.toResponse(null, "gzip, deflate, br"))).isTrue();
+        assertThat(isGzip(payload.toResponse(null, "br, gzip;q=0.5"))).isTrue();
+        assertThat(isGzip(payload.toResponse(null, "br, *;q=0.1"))).isTrue();
+        assertThat(isGzip(payload.toResponse(null, "gzip;q=0"))).isFalse();
+        assertThat(isGzip(payload.toResponse(null, "br, deflate"))).isFalse();
+        assertThat(isGzip(payload.toResponse(null, null))).isFalse();
+    }
+
+    @Test
+    void gzipBodyDecodesToTheIdentityBody() throws IOException {
+        SerializedPayload payload = SerializedPayload.forRequest(MAPPER, VALUE);
+        byte[] identity = payload.toResponse(null, null).getBody();
+        byte[] gzipped = payload.toResponse(null, "gzip").getBody();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertThat(in.readAllBytes()).isEqualTo(identity);
+        }
+        assertThat(gzipped.length).isLessThan(identity.length);
+    }
+
+    @Test
+    void eachCodingHasItsOwnEtagAndBothRevalidate() {
+        SerializedPayload payload = SerializedPayload.of(MAPPER, VALUE);
+        String identityEtag = payload.toResponse(null, null).getHeaders().getETag();
+        String gzipEtag = payload.toResponse(null, "gzip").getHeaders().getETag();
+        assertThat(gzipEtag).isNotEqualTo(identityEtag);
+        assertThat(payload.toResponse(identityEtag, null).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(payload.toResponse("W/" + gzipEtag, "gzip").getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(payload.toResponse("\"other\"", "gzip").getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void tinyBodiesAreNotCompressed() {
+        SerializedPayload payload = SerializedPayload.of(MAPPER, Map.of());
+        assertThat(isGzip(payload.toResponse(null, "gzip"))).isFalse();
+        assertThat(payload.gzipSize()).isEqualTo(payload.size());
+    }
+
+    private static boolean isGzip(ResponseEntity<byte[]> response) {
+        return "gzip".equals(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+}
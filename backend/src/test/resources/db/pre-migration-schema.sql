@@ -0,0 +1,80 @@
+-- A database as it looked before the schema migrations existed: created by Hibernate
+-- (ddl-auto=update) from the original entities, without anything the backend added later.
+-- The rows cover what the migrations must carry over: a duplicated answer, and an attempt whose
+-- test number is not a number.
+
+CREATE TABLE profiles (
+    id         uuid NOT NULL PRIMARY KEY,
+    username   varchar(255) NOT NULL UNIQUE,
+    created_at timestamp(6) with time zone NOT NULL
+);
+
+CREATE TABLE sections (
+    id                  bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    exam_source         varchar(255) NOT NULL,
+    test_number         integer NOT NULL,
+    skill               varchar(255) NOT NULL,
+    part_number         integer NOT NULL,
+    display_content_url varchar(255),
+    section_layout      jsonb,
+    passage_text        text,
+    audio_url           varchar(255)
+);
+
+CREATE TABLE questions (
+    id               bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    section_id       bigint NOT NULL REFERENCES sections (id),
+    question_number  integer NOT NULL,
+    question_uid     varchar(255) NOT NULL,
+    question_type    varchar(255) NOT NULL,
+    question_content jsonb NOT NULL,
+    correct_answer   jsonb NOT NULL,
+    explanation      text,
+    word_limit       varchar(255),
+    image_url        varchar(255)
+);
+
+CREATE TABLE test_attempts (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id      uuid NOT NULL,
+    exam_source  varchar(255) NOT NULL,
+    test_number  varchar(255) NOT NULL,
+    skill        varchar(255) NOT NULL,
+    status       varchar(255) NOT NULL,
+    score        integer,
+    started_at   timestamp(6) with time zone NOT NULL,
+    completed_at timestamp(6) with time zone,
+    time_left    integer,
+    current_part integer
+);
+
+CREATE TABLE user_answers (
+    id             bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id        uuid NOT NULL,
+    attempt_id     bigint NOT NULL REFERENCES test_attempts (id),
+    question_id    bigint NOT NULL REFERENCES questions (id),
+    answer_content jsonb NOT NULL,
+    user_answer    varchar(255),
+    is_correct     boolean,
+    submitted_at   timestamp(6) with time zone,
+    created_at     timestamp(6) with time zone
+);
+
+INSERT INTO sections (id, exam_source, test_number, skill, part_number)
+VALUES (1, 'cam17', 1, 'reading', 1);
+
+INSERT INTO questions (id, section_id, question_number, question_uid, question_type, question_content, correct_answer)
+VALUES (1, 1, 1, 'cam17-t1-r-q1', 'FILL_IN_BLANK', '{}', '["a"]'),
+       (2, 1, 2, 'cam17-t1-r-q2', 'FILL_IN_BLANK', '{}', '["b"]');
+
+INSERT INTO test_attempts (id, user_id, exam_source, test_number, skill, status, score, started_at, completed_at)
+VALUES (1, '00000000-0000-0000-0000-000000000001', 'cam17', ' 1', 'reading', 'COMPLETED', 1,
+        '2024-01-01 10:00+00', '2024-01-01 11:00+00'),
+       (2, '00000000-0000-0000-0000-000000000001', 'cam17', 'practice', 'reading', 'IN_PROGRESS', NULL,
+        '2024-01-02 10:00+00', NULL);
+
+INSERT INTO user_answers (id, user_id, attempt_id, question_id, answer_content, user_answer, is_correct, submitted_at, created_at)
+VALUES (1, '00000000-0000-0000-0000-000000000001', 1, 1, '{"value": "x"}', 'x', false, '2024-01-01 10:10+00', '2024-01-01 10:10+00'),
+       (2, '00000000-0000-0000-0000-000000000001', 1, 1, '{"value": "a"}', 'a', true, '2024-01-01 10:20+00', '2024-01-01 10:20+00'),
+       (3, '00000000-0000-0000-0000-000000000001', 1, 2, '{"value": "c"}', 'c', false, NULL, '2024-01-01 10:30+00'),
+       (4, '00000000-0000-0000-0000-000000000001', 2, 1, '{"value": "a"}', 'a', NULL, '2024-01-02 10:10+00', '2024-01-02 10:10+00');